@@ -3,8 +3,9 @@
  */
 package edu.isu.cs2235;
 
-import edu.isu.cs2235.structures.implementations.Trie;
-import edu.isu.cs2235.structures.implementations.FillTree;
+import edu.isu.cs2235.structures.Dictionary;
+import edu.isu.cs2235.structures.DictionaryView;
+import edu.isu.cs2235.structures.implementations.NGramModel;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -13,11 +14,12 @@ import java.util.ArrayList;
 import java.util.Scanner;
 
 /**
- * a simple spellchecker program utilizing a trie.
+ * a simple spellchecker program utilizing a trie(or any other dictionary backend, picked with -Ddictionary.backend).
  * @author Brandon Watkins
  */
 public class App {
-    private Trie tree;
+    private DictionaryReloader dictionary;
+    private NGramModel ngrams;
     private String[] inputs;
     private String[] args;
 
@@ -33,23 +35,37 @@ public class App {
 
 
     /**
-     * Reads the word list file into a trie. Including several word lists to choose from.
+     * Reads the word list file into a trie. Including several word lists to choose from. The word list is then watched,
+     * and reloaded in the background whenever it changes.
      * @throws IOException when the BufferedReader has an issue reading the file.
      */
     public void fillTree() throws IOException {
-        FillTree tree = new FillTree();
-
         //largest word list, lots of abbreviations and acronyms though - 464,677 words
-        //this.tree = tree.readInFile(System.getProperty("user.dir") + "\\data\\words.txt");
+        //String wordList = System.getProperty("user.dir") + "\\data\\words.txt";
 
         //same as largest, minus words with dashes and apostrophes - 370,074 words
-        //this.tree = tree.readInFile(System.getProperty("user.dir") + "\\data\\words_alpha.txt");
+        //String wordList = System.getProperty("user.dir") + "\\data\\words_alpha.txt";
 
         //seems to be a more normal word list - 370,076 words
-        //this.tree = tree.readInFile(System.getProperty("user.dir") + "\\data\\words_dictionary.json");
+        //String wordList = System.getProperty("user.dir") + "\\data\\words_dictionary.json";
 
         //smallest word list - 77,698 words
-        this.tree = tree.readInFile(System.getProperty("user.dir") + "\\data\\wordList.txt");
+        String wordList = System.getProperty("user.dir") + "\\data\\wordList.txt";
+
+        this.dictionary = new DictionaryReloader(wordList);
+        this.dictionary.start();
+
+        //optional text corpus, for ranking suggestions by the words around them(-Dngram.corpus=path/to/corpus.txt)
+        String corpus = System.getProperty("ngram.corpus");
+        if (corpus != null) this.ngrams = NGramModel.fromCorpus(corpus);
+    }
+
+    /**
+     * The dictionary currently being served. Changes when the word list is reloaded.
+     * @return The current dictionary.
+     */
+    public Dictionary tree(){
+        return this.dictionary.current();
     }
 
     /**
@@ -70,6 +86,7 @@ public class App {
             } else {
                 System.out.println("\r\nGoodbye.");
                 inputReader.close();
+                this.dictionary.close();
                 anotherString = false;
                 return;
             }
@@ -122,9 +139,21 @@ public class App {
                 this.inputs[i] = this.inputs[i].substring(0, this.inputs[i].length() - 1);
             }
             if (this.inputs[i].hashCode() == 0) continue;
+            ArrayList<String> suggestions = null;
+            //use the same dictionary for the whole word, even if a reload(or another version) gets published meanwhile,
+            //holding on to it so it isn't closed while it's being used.
+            try (DictionaryReloader.Lease lease = this.dictionary.acquire()) {
+                DictionaryView tree = lease.dictionary().snapshot();
+                if (tree.findWord(this.inputs[i].toLowerCase()) == false) suggestions = tree.wordSuggestions(this.inputs[i].toLowerCase());
+            }
             //if word wasn't found (not spelled correctly)...
-            if (this.tree.findWord(this.inputs[i].toLowerCase()) == false) {
-                ArrayList<String> suggestions = this.tree.wordSuggestions(this.inputs[i].toLowerCase());
+            if (suggestions != null) {
+                //best fit between the previous and next words first, leaving "Manual Entry" and "Ignore" at the end.
+                if (this.ngrams != null && suggestions.size() > 3) {
+                    String previous = i > 0 ? this.inputs[i - 1] : null;
+                    String next = i < this.inputs.length - 1 ? this.inputs[i + 1] : null;
+                    this.ngrams.rerank(suggestions.subList(0, suggestions.size() - 2), previous, next);
+                }
                 String temp = "";
                 if (i > 0) {
                     temp = "\"..." + this.inputs[i - 1] + " ";
@@ -176,8 +205,11 @@ public class App {
                 userPickedSuggestion(inputsIndex, suggestions, response, temp, punctuation, inputReader);
                 return;
             }
-            if (this.tree.findWord(manualWord)) System.out.println("Added \"" + manualWord + "\" to word list.");// just to the trie's word list, not the file.
-            this.tree.add(manualWord);
+            try (DictionaryReloader.Lease lease = this.dictionary.acquire()) {
+                Dictionary tree = lease.dictionary();
+                if (tree.findWord(manualWord)) System.out.println("Added \"" + manualWord + "\" to word list.");// just to the trie's word list, not the file.
+                tree.addWord(manualWord);
+            }
             this.inputs[inputsIndex] = manualWord + punctuation;
         }
         else if (response <= suggestions.size() - 2) this.inputs[inputsIndex] = suggestions.get(response - 1);
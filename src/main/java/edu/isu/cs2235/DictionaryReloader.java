@@ -0,0 +1,262 @@
+package edu.isu.cs2235;
+
+import edu.isu.cs2235.structures.Dictionary;
+import edu.isu.cs2235.structures.implementations.DictionaryFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the app's dictionary up to date with its word list file, without restarting the app.
+ * @implNote A replacement dictionary is built on the watcher thread while the current one keeps answering lookups, and
+ * is only published, with a single reference swap, once it's completely filled. Readers grab the dictionary once per
+ * request, so they never see a partially built one. Words added at runtime(Dictionary.addWord) only live until the
+ * next reload. The dictionary's backend is picked by DictionaryFactory.
+ * @implNote Dictionaries holding memory outside the heap(see ArenaTrie) are Closeable, and are closed as soon as
+ * they're replaced and no request is using them anymore: each published dictionary counts the requests holding it(see
+ * acquire), plus one for the reloader itself while it's current, and the last one to let go closes it.
+ * @author Brandon Watkins
+ */
+public class DictionaryReloader implements Closeable {
+
+    private final Path wordList;
+    private final String backend;
+    private final AtomicReference<Published> current;
+    private final AtomicInteger version;
+    private volatile long lastReloadMillis;
+    private volatile long memoryHighWater;
+    private WatchService watchService;
+    private Thread watcher;
+    private volatile boolean closed;
+    boolean out = false;//To report each reload.
+
+    /**
+     * Loads the word list into the configured backend(see DictionaryFactory.backend), synchronously, so there's a
+     * dictionary to serve right away.
+     * @param filePath The word list file to load, and then watch for changes.
+     * @throws IOException when the initial word list can't be loaded.
+     */
+    public DictionaryReloader(String filePath) throws IOException {
+        this(filePath, DictionaryFactory.backend());
+    }
+
+    /**
+     * Loads the word list into the given backend, synchronously, so there's a dictionary to serve right away.
+     * @param filePath The word list file to load, and then watch for changes.
+     * @param backend The dictionary backend's name(see DictionaryFactory.BACKENDS).
+     * @throws IOException when the initial word list can't be loaded.
+     * @throws IllegalArgumentException when there's no such backend.
+     */
+    public DictionaryReloader(String filePath, String backend) throws IOException, IllegalArgumentException {
+        this.wordList = Paths.get(filePath).toAbsolutePath();
+        this.backend = backend;
+        this.current = new AtomicReference<>();
+        this.version = new AtomicInteger(0);
+        if (!this.reload()) throw new IOException("Unable to load word list " + filePath + ".");
+    }
+
+    /**
+     * The most recently published dictionary. Grab it once per request, and use that same dictionary for the whole
+     * request. Use acquire instead if the backend may be closed once it's replaced(see DictionaryFactory.OFF_HEAP_BACKEND).
+     * @return The current dictionary.
+     */
+    public Dictionary current(){
+        return this.current.get().dictionary;
+    }
+
+    /**
+     * Holds on to the current dictionary for a request, so it isn't closed if it's replaced meanwhile. Close the lease
+     * (try-with-resources) when the request is done.
+     * @return The lease on the current dictionary.
+     * @throws IllegalStateException when the reloader has been closed.
+     */
+    public Lease acquire() throws IllegalStateException {
+        while (true) {
+            if (this.closed) throw new IllegalStateException("The dictionary reloader has been closed.");
+            Published published = this.current.get();
+            int holders = published.holders.get();
+            // 0 holders means it was replaced and closed before we got to it, so try the newer one.
+            if (holders > 0 && published.holders.compareAndSet(holders, holders + 1)) return new Lease(published);
+        }
+    }
+
+    /**
+     * @return The number of times a dictionary has been published. 1 after the initial load.
+     */
+    public int version(){
+        return this.version.get();
+    }
+
+    /**
+     * @return How long the last successful reload took, in ms.
+     */
+    public long lastReloadMillis(){
+        return this.lastReloadMillis;
+    }
+
+    /**
+     * @return The heap high-water mark(in bytes) seen while building the last successful reload.
+     */
+    public long memoryHighWater(){
+        return this.memoryHighWater;
+    }
+
+    /**
+     * Builds a fresh dictionary from the word list, and swaps it in if it loaded. The old dictionary keeps serving until
+     * then.
+     * @return True if the new dictionary was published, false if the word list couldn't be read(the old one is kept),
+     * or the reloader has been closed.
+     */
+    public synchronized boolean reload(){
+        if (this.closed) return false;
+        long time = System.currentTimeMillis();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) pool.resetPeakUsage();
+        }
+        Dictionary fresh = DictionaryFactory.open(this.backend, this.wordList.toString());
+        if (fresh == null) return false;
+        long highWater = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) highWater += pool.getPeakUsage().getUsed();
+        }
+        Published replaced = this.current.getAndSet(new Published(fresh));
+        if (replaced != null) replaced.release();
+        int newVersion = this.version.incrementAndGet();
+        this.lastReloadMillis = System.currentTimeMillis() - time;
+        this.memoryHighWater = highWater;
+        if (out) System.out.println("\r\nDictionary version " + newVersion + ": " + fresh.numberOfWords() + " words, loaded in "
+                + this.lastReloadMillis + "ms, heap high-water " + (highWater / (1024 * 1024)) + "MB.");
+        return true;
+    }
+
+    /**
+     * Starts watching the word list's directory, on a daemon thread, reloading whenever the word list changes.
+     * @throws IOException when the directory can't be watched.
+     */
+    public synchronized void start() throws IOException {
+        if (this.watcher != null) return;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.wordList.getParent().register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watcher = new Thread(this::watch, "dictionary-reloader");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    /**
+     * Waits for changes to the word list, reloading after each burst of changes.
+     */
+    private void watch(){
+        try {
+            while (true) {
+                WatchKey key = this.watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()){
+                    if (this.wordList.getFileName().equals(event.context())) changed = true;
+                }
+                key.reset();
+                if (!changed) continue;
+                // editors and copies write in several steps, so wait for the file to settle before reloading.
+                WatchKey more;
+                do {
+                    Thread.sleep(250);
+                    more = this.watchService.poll();
+                    if (more != null) {
+                        more.pollEvents();
+                        more.reset();
+                    }
+                } while (more != null);
+                this.reload();
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException e){
+            // closed, stop watching.
+        }
+    }
+
+    /**
+     * Stops watching the word list, and closes the current dictionary(if it's Closeable) once no request is using it.
+     * @throws IOException when the watch service has an issue closing.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.watchService != null) this.watchService.close();
+        if (this.watcher != null) this.watcher.interrupt();
+        this.watcher = null;
+        this.watchService = null;
+        if (!this.closed) {
+            this.closed = true;
+            this.current.get().release();
+        }
+    }
+
+    /**
+     * A published dictionary, and the number of holders keeping it open.
+     */
+    private static class Published {
+
+        private final Dictionary dictionary;
+        // the reloader holds it while it's current.
+        private final AtomicInteger holders = new AtomicInteger(1);
+
+        private Published(Dictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Lets go of the dictionary, closing it if it's Closeable and this was the last holder.
+         */
+        private void release() {
+            if (this.holders.decrementAndGet() != 0 || !(this.dictionary instanceof Closeable)) return;
+            try {
+                ((Closeable) this.dictionary).close();
+            }
+            catch (IOException e) {
+                System.out.println("Error trying to close the replaced dictionary.");
+            }
+        }
+    }
+
+    /**
+     * A request's hold on a dictionary(see acquire).
+     */
+    public static class Lease implements Closeable {
+
+        private final Published published;
+        private boolean released;
+
+        private Lease(Published published) {
+            this.published = published;
+        }
+
+        /**
+         * @return The dictionary, usable until the lease is closed.
+         */
+        public Dictionary dictionary() {
+            return this.published.dictionary;
+        }
+
+        /**
+         * Lets go of the dictionary. Closing it again does nothing.
+         */
+        @Override
+        public void close() {
+            if (this.released) return;
+            this.released = true;
+            this.published.release();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package edu.isu.cs2235.structures;
+
+/**
+ * A spell checking dictionary: a set of words, with prefix lookups and spelling suggestions(see DictionaryView), that
+ * words can be added to and removed from. The app only talks to a Dictionary, so backends(see DictionaryFactory) can
+ * be swapped without touching the call sites. Words are matched ignoring case and surrounding white space.
+ * @author Brandon Watkins
+ */
+public interface Dictionary extends DictionaryView {
+
+    /**
+     * Adds a word to the dictionary.
+     * @param word The word to add.
+     * @return True if the word wasn't already in the dictionary.
+     */
+    boolean addWord(String word);
+
+    /**
+     * Removes a word from the dictionary.
+     * @param word The word to remove.
+     * @return True if the word was in the dictionary, and has been removed.
+     */
+    boolean remove(String word);
+
+    /**
+     * A read-only view of the dictionary that won't be changed by other threads, for answering a whole request from.
+     * Backends that are changed in place just return themselves.
+     * @return The view to read from for the rest of the request.
+     */
+    default DictionaryView snapshot() {
+        return this;
+    }
+
+}
@@ -0,0 +1,52 @@
+package edu.isu.cs2235.structures;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * The read-only part of a spell checking dictionary: a set of words, with prefix lookups and spelling suggestions.
+ * Snapshots(see Dictionary.snapshot), and dictionaries that can't be changed in place, are only views. Words are
+ * matched ignoring case and surrounding white space.
+ * @author Brandon Watkins
+ */
+public interface DictionaryView extends Iterable<String> {
+
+    /**
+     * Determines if the word is in the dictionary.
+     * @param word The word to look up.
+     * @return True if the word is in the dictionary.
+     */
+    boolean findWord(String word);
+
+    /**
+     * Creates a cursor at the empty prefix, to walk the dictionary's prefixes a letter at a time.
+     * @return A new cursor.
+     */
+    PrefixCursor cursor();
+
+    /**
+     * Counts the words starting with the prefix(including the prefix itself, if it's a word).
+     * @param prefix The prefix to count words for.
+     * @return The number of words starting with the prefix.
+     */
+    int countPrefix(String prefix);
+
+    /**
+     * Suggests replacements for a misspelled word, ending with "Manual Entry" and "Ignore".
+     * @param word The misspelled word.
+     * @return The suggestions, best first.
+     */
+    ArrayList<String> wordSuggestions(String word);
+
+    /**
+     * @return The number of words in the dictionary.
+     */
+    int numberOfWords();
+
+    /**
+     * Describes the dictionary's size and structure, for comparing backends.
+     * @return Each statistic's value, by name, always including "words".
+     */
+    Map<String, Number> stats();
+
+}
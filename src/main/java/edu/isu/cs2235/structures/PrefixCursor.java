@@ -0,0 +1,37 @@
+package edu.isu.cs2235.structures;
+
+/**
+ * Walks down a dictionary's prefixes a letter at a time(see Dictionary.cursor), so checking a growing prefix doesn't
+ * start over from the first letter each time.
+ * @author Brandon Watkins
+ */
+public interface PrefixCursor {
+
+    /**
+     * Moves the cursor down to the prefix with the letter added, if any word starts with it.
+     * @param letter The next letter. Case doesn't matter.
+     * @return True if the cursor moved, false if no word starts with the longer prefix(the cursor stays put).
+     */
+    boolean next(char letter);
+
+    /**
+     * @return True if the cursor's prefix is a word itself.
+     */
+    boolean isWord();
+
+    /**
+     * @return The number of words starting with the cursor's prefix.
+     */
+    int countWords();
+
+    /**
+     * @return The number of letters in the cursor's prefix.
+     */
+    int depth();
+
+    /**
+     * Moves the cursor back to the empty prefix.
+     */
+    void reset();
+
+}
@@ -0,0 +1,19 @@
+package edu.isu.cs2235.structures;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A stream of words read from a word list, one at a time, so the word list never has to be held in memory.
+ * @author Brandon Watkins
+ */
+public interface WordReader extends Closeable {
+
+    /**
+     * Reads the next word from the word list, as-is(no trimming or formatting).
+     * @return The next word, or null if the end of the word list has been reached.
+     * @throws IOException when the underlying stream has an issue reading.
+     */
+    String nextWord() throws IOException;
+
+}
@@ -0,0 +1,135 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An index of a trie's words by their sorted-letter signature("listen" and "silent" are both "eilnst"), for finding
+ * anagrams, plus a search for every word that can be spelled from a set of letters.
+ * @implNote The index doesn't keep its own copy of the words, it keeps each word's id, and only decodes the words(from
+ * the trie's word pool) when they're returned. Removed words are skipped, since their ids are no longer in use.
+ * @author Brandon Watkins
+ */
+public class AnagramIndex {
+
+    private static final int[] NO_WORDS = new int[0];
+
+    private final Trie tree;
+    private final HashMap<String, int[]> bySignature;
+    private int size;
+
+    public AnagramIndex(Trie tree) {
+        this.tree = tree;
+        this.bySignature = new HashMap<>();
+    }
+
+    /**
+     * Builds an index of every word already in the trie.
+     * @param tree The trie to index.
+     * @return The index.
+     */
+    public static AnagramIndex of(Trie tree) {
+        AnagramIndex index = new AnagramIndex(tree);
+        for (String word : tree) index.add(word, tree.wordId(word));
+        return index;
+    }
+
+    /**
+     * Sorts the word's letters, giving the signature shared by all of its anagrams.
+     * @param word The word.
+     * @return The word's letters, lower case, in sorted order.
+     */
+    public static String signature(String word) {
+        char[] letters = word.trim().toLowerCase().toCharArray();
+        Arrays.sort(letters);
+        return new String(letters);
+    }
+
+    /**
+     * Adds a word to the index.
+     * @param word The word.
+     * @param wordId The word's id in the trie(see TrieNode.wordId).
+     */
+    public void add(String word, int wordId) {
+        if (wordId < 0) return;
+        String signature = signature(word);
+        int[] words = this.bySignature.get(signature);
+        if (words == null) words = NO_WORDS;
+        for (int existing : words) if (existing == wordId) return;
+        words = Arrays.copyOf(words, words.length + 1);
+        words[words.length - 1] = wordId;
+        this.bySignature.put(signature, words);
+        this.size++;
+    }
+
+    /**
+     * Finds every word using exactly the given letters, with a single lookup.
+     * @param letters The letters(in any order) to find anagrams of.
+     * @return The words spelled with exactly those letters, in sorted order.
+     */
+    public ArrayList<String> anagrams(String letters) {
+        ArrayList<String> words = new ArrayList<>();
+        int[] ids = this.bySignature.get(signature(letters));
+        if (ids == null) return words;
+        for (int id : ids) if (this.tree.isWord(id)) words.add(this.tree.word(id));
+        words.sort(null);
+        return words;
+    }
+
+    /**
+     * Finds every word that can be spelled using some of the given letters(each letter used at most as many times as
+     * it's given), like in a word game.
+     * @implNote Walks the trie, only following children whose letter still has a count left, so branches needing a
+     * letter that's been used up are never visited.
+     * @param letters The letters available.
+     * @param minLength The shortest word to include.
+     * @param limit The most words to find, or 0 for no limit.
+     * @return The words, in sorted order.
+     */
+    public ArrayList<String> subAnagrams(String letters, int minLength, int limit) {
+        char[] sorted = signature(letters).toCharArray();
+        // distinct letters, in sorted order(so the words come out sorted), each with a count.
+        char[] distinct = new char[sorted.length];
+        int[] counts = new int[sorted.length];
+        int size = 0;
+        for (char c : sorted) {
+            if (size > 0 && distinct[size - 1] == c) counts[size - 1]++;
+            else {
+                distinct[size] = c;
+                counts[size++] = 1;
+            }
+        }
+        ArrayList<String> words = new ArrayList<>();
+        char[] path = new char[sorted.length];
+        walk(this.tree.root(), distinct, counts, size, path, 0, Math.max(1, minLength), limit <= 0 ? Integer.MAX_VALUE : limit, words);
+        return words;
+    }
+
+    private void walk(TrieNode node, char[] distinct, int[] counts, int size, char[] path, int depth, int minLength, int limit, ArrayList<String> words) {
+        for (int i = 0; i < size && words.size() < limit; i++) {
+            if (counts[i] == 0) continue;
+            TrieNode child = this.tree.find(distinct[i], node);
+            if (child == null) continue;
+            path[depth] = distinct[i];
+            if (child.isEndOfWord() && depth + 1 >= minLength) words.add(new String(path, 0, depth + 1));
+            counts[i]--;
+            walk(child, distinct, counts, size, path, depth + 1, minLength, limit, words);
+            counts[i]++;
+        }
+    }
+
+    /**
+     * @return The number of words in the index.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The number of distinct signatures in the index.
+     */
+    public int numberOfSignatures() {
+        return this.bySignature.size();
+    }
+}
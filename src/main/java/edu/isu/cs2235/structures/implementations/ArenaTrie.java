@@ -0,0 +1,527 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.Dictionary;
+import edu.isu.cs2235.structures.PrefixCursor;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A trie whose nodes live off the heap, so a large dictionary(or several) doesn't add millions of objects for every
+ * full garbage collection to scan. The heap only holds the arena's chunk list. Close it to let go of the memory.
+ * @implNote Nodes are fixed size 16 byte records in direct ByteBuffer chunks(64k nodes, 1MB, each): first child,
+ * next sibling, and number of words in the subtree as ints, then the letter(a char), and a flags byte(end of word).
+ * Nodes refer to each other by int node index, where the index's high bits pick the chunk and its low bits the record,
+ * and NONE(-1) is no node. Node 0 is the root. Siblings are kept sorted by letter, like Trie.
+ * @implNote Words added in sorted order(by FillTree.readInOffHeap) continue from the last shared node of the previous
+ * word's path, and are always appended after the last sibling, like FillTree does for Trie. Removed words are only
+ * unmarked, so their nodes stay in the arena until the next relayout, which leaves out every node that no longer
+ * leads to a word.
+ * @implNote The chunks are never freed explicitly(with the JVM's cleaner), only dropped, and freed once they're
+ * garbage collected, so a thread still reading old chunks(after a relayout, or close) never touches freed memory.
+ * @implNote relayout renumbers and copies the nodes into a cache friendly order: breadth first for the top few levels
+ * (which every lookup passes through), then each subtree below clustered depth first, with each node's children next
+ * to each other, so a sibling scan reads neighbouring records(4 to a cache line) and a lookup's path stays close.
+ * @implNote Suggestions are found by a bounded edit distance search over the arena(every word within 2 edits of the
+ * misspelling, closest first), rather than Trie's edit strategies, so they can differ from Trie's.
+ * @author Brandon Watkins
+ */
+public class ArenaTrie implements Dictionary, Closeable {
+
+    private static final int NONE = -1;
+    private static final int NODE_BYTES = 16;
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_NODES = 1 << CHUNK_BITS;
+    private static final int FIRST_CHILD = 0;
+    private static final int NEXT_SIBLING = 4;
+    private static final int WORDS = 8;
+    private static final int LETTER = 12;
+    private static final int FLAGS = 14;
+    private static final byte END_OF_WORD = 1;
+    // App lists the suggestions plus "Manual Entry" and "Ignore", answered with a single digit(1-9).
+    private static final int MAX_SUGGESTIONS = 7;
+    private static final int MAX_DISTANCE = 2;
+
+    // null once closed. Volatile, so other threads see the arena closed, or the relaid out chunks, right away.
+    private volatile ByteBuffer[] chunks;
+    private int numberOfNodes;
+    private int numberOfWords;
+    private int[] path;
+    private char[] lastWord;
+    private int lastLength;
+
+    public ArenaTrie() {
+        this.chunks = new ByteBuffer[4];
+        this.path = new int[64];
+        this.lastWord = new char[64];
+        this.path[0] = newNode(' ');
+    }
+
+    /**
+     * Stores a new node, with no children or siblings, growing the arena by a chunk if needed.
+     * @return The new node's index.
+     */
+    private int newNode(char letter) {
+        int index = this.numberOfNodes;
+        int chunk = index >>> CHUNK_BITS;
+        ByteBuffer[] chunks = this.chunks;
+        if (chunks == null) throw new IllegalStateException("The dictionary has been closed.");
+        if (chunk == chunks.length) this.chunks = chunks = Arrays.copyOf(chunks, chunk * 2);
+        if (chunks[chunk] == null) {
+            chunks[chunk] = ByteBuffer.allocateDirect(CHUNK_NODES * NODE_BYTES).order(ByteOrder.nativeOrder());
+        }
+        this.numberOfNodes++;
+        ByteBuffer buffer = chunks[chunk];
+        int at = (index & (CHUNK_NODES - 1)) * NODE_BYTES;
+        buffer.putInt(at + FIRST_CHILD, NONE);
+        buffer.putInt(at + NEXT_SIBLING, NONE);
+        buffer.putInt(at + WORDS, 0);
+        buffer.putChar(at + LETTER, letter);
+        buffer.put(at + FLAGS, (byte) 0);
+        return index;
+    }
+
+    private ByteBuffer chunk(int node) {
+        ByteBuffer[] chunks = this.chunks;
+        if (chunks == null) throw new IllegalStateException("The dictionary has been closed.");
+        return chunks[node >>> CHUNK_BITS];
+    }
+
+    private static int offset(int node) {
+        return (node & (CHUNK_NODES - 1)) * NODE_BYTES;
+    }
+
+    private int firstChild(int node) { return chunk(node).getInt(offset(node) + FIRST_CHILD); }
+
+    private int nextSibling(int node) { return chunk(node).getInt(offset(node) + NEXT_SIBLING); }
+
+    private int wordsBelow(int node) { return chunk(node).getInt(offset(node) + WORDS); }
+
+    private char letter(int node) { return chunk(node).getChar(offset(node) + LETTER); }
+
+    private boolean isEndOfWord(int node) { return (chunk(node).get(offset(node) + FLAGS) & END_OF_WORD) != 0; }
+
+    /**
+     * Finds the node's child holding the letter.
+     * @return The child's index, or NONE if there isn't one.
+     */
+    private int child(int node, char letter) {
+        for (int child = firstChild(node); child != NONE; child = nextSibling(child)) {
+            char value = letter(child);
+            if (value == letter) return child;
+            if (value > letter) return NONE;
+        }
+        return NONE;
+    }
+
+    /**
+     * Finds the node holding the last letter of the word(trimmed, in lower case).
+     * @return The node's index, NONE if the trie doesn't continue with the word's letters.
+     */
+    private int find(String word) {
+        if (word == null) return NONE;
+        String lower = word.trim().toLowerCase();
+        int node = 0;
+        for (int i = 0; i < lower.length() && node != NONE; i++) node = child(node, lower.charAt(i));
+        return node;
+    }
+
+    /**
+     * Finds, or adds, the node's child holding the letter, keeping the siblings sorted. A new letter past the last
+     * sibling(always, for sorted input) is linked after the last sibling found.
+     */
+    private int addChild(int node, char letter) {
+        int previous = NONE;
+        int child = firstChild(node);
+        while (child != NONE && letter(child) < letter) {
+            previous = child;
+            child = nextSibling(child);
+        }
+        if (child != NONE && letter(child) == letter) return child;
+        int added = newNode(letter);
+        chunk(added).putInt(offset(added) + NEXT_SIBLING, child);
+        if (previous == NONE) chunk(node).putInt(offset(node) + FIRST_CHILD, added);
+        else chunk(previous).putInt(offset(previous) + NEXT_SIBLING, added);
+        return added;
+    }
+
+    /**
+     * Adds a word(already trimmed, and in lower case), continuing from the last node it shares with the previously
+     * added word.
+     * @return True if the word wasn't already in the trie.
+     */
+    boolean addFormatted(String word) {
+        int length = word.length();
+        if (length == 0) return false;
+        if (length >= this.path.length) {
+            this.path = Arrays.copyOf(this.path, length * 2);
+            this.lastWord = Arrays.copyOf(this.lastWord, length * 2);
+        }
+        int shared = 0;
+        while (shared < length && shared < this.lastLength && this.lastWord[shared] == word.charAt(shared)) shared++;
+        //For each letter past the shared prefix, find or add its node...
+        for (int i = shared; i < length; i++) {
+            this.path[i + 1] = addChild(this.path[i], word.charAt(i));
+            this.lastWord[i] = word.charAt(i);
+        }
+        this.lastLength = length;
+        int node = this.path[length];
+        if (isEndOfWord(node)) return false;
+        chunk(node).put(offset(node) + FLAGS, END_OF_WORD);
+        for (int i = 0; i <= length; i++) adjustWordsBelow(this.path[i], 1);
+        this.numberOfWords++;
+        return true;
+    }
+
+    private void adjustWordsBelow(int node, int change) {
+        chunk(node).putInt(offset(node) + WORDS, wordsBelow(node) + change);
+    }
+
+    /**
+     * Renumbers and copies the nodes into the cache friendly order, breadth first for the top 3 levels(see
+     * relayout(int)).
+     * @return The number of nodes moved.
+     */
+    public int relayout() {
+        return relayout(3);
+    }
+
+    /**
+     * Renumbers and copies the nodes into new chunks, in a cache friendly order: breadth first for the top levels,
+     * then, below each node on the last of those levels, depth first, laying out each node's children together before
+     * moving down to the first child's. Nodes that no longer lead to a word(left behind by removed words) are left
+     * out. The old chunks are dropped, for the garbage collector. Words added afterwards are appended as usual. Don't
+     * run it while other threads are reading, they'd still be reading the old chunks.
+     * @param bfsLevels The number of levels below the root laid out breadth first.
+     * @return The number of nodes moved(the number of nodes left).
+     */
+    public int relayout(int bfsLevels) {
+        int n = this.numberOfNodes;
+        // order[new index] = old index, and newIndex[old index] = new index.
+        int[] order = new int[n];
+        int size = 0;
+        order[size++] = 0;
+        int levelStart = 0;
+        int levelEnd = 1;
+        //For each breadth first level, lay out the children of every node on the level above...
+        for (int level = 0; level < bfsLevels && levelStart < levelEnd; level++) {
+            for (int i = levelStart; i < levelEnd; i++) {
+                for (int child = liveSibling(firstChild(order[i])); child != NONE; child = liveSibling(nextSibling(child))) {
+                    order[size++] = child;
+                }
+            }
+            levelStart = levelEnd;
+            levelEnd = size;
+        }
+        int[] stack = new int[64];
+        for (int i = levelStart; i < levelEnd; i++) {
+            int top = 0;
+            stack[top++] = order[i];
+            while (top > 0) {
+                int node = stack[--top];
+                int first = size;
+                for (int child = liveSibling(firstChild(node)); child != NONE; child = liveSibling(nextSibling(child))) {
+                    order[size++] = child;
+                }
+                // pushed last to first, so the first child's children are laid out next.
+                for (int c = size - 1; c >= first; c--) {
+                    if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                    stack[top++] = order[c];
+                }
+            }
+        }
+        int[] newIndex = new int[n];
+        for (int i = 0; i < size; i++) newIndex[order[i]] = i;
+        ByteBuffer[] chunks = new ByteBuffer[Math.max(4, ((size - 1) >>> CHUNK_BITS) + 1)];
+        for (int i = 0; i < size; i++) {
+            int old = order[i];
+            if (chunks[i >>> CHUNK_BITS] == null) {
+                chunks[i >>> CHUNK_BITS] = ByteBuffer.allocateDirect(CHUNK_NODES * NODE_BYTES).order(ByteOrder.nativeOrder());
+            }
+            ByteBuffer to = chunks[i >>> CHUNK_BITS];
+            int at = offset(i);
+            int firstChild = liveSibling(firstChild(old));
+            int nextSibling = liveSibling(nextSibling(old));
+            to.putInt(at + FIRST_CHILD, firstChild == NONE ? NONE : newIndex[firstChild]);
+            to.putInt(at + NEXT_SIBLING, nextSibling == NONE ? NONE : newIndex[nextSibling]);
+            to.putInt(at + WORDS, wordsBelow(old));
+            to.putChar(at + LETTER, letter(old));
+            to.put(at + FLAGS, chunk(old).get(offset(old) + FLAGS));
+        }
+        this.chunks = chunks;
+        this.numberOfNodes = size;
+        // the previous word's path holds old node indexes, so the next word starts from the root.
+        this.lastLength = 0;
+        return size;
+    }
+
+    /**
+     * Skips the siblings that no longer lead to a word.
+     * @param node The node to start from.
+     * @return The first node from there(along the sibling list) that leads to a word, or NONE.
+     */
+    private int liveSibling(int node) {
+        while (node != NONE && wordsBelow(node) == 0) node = nextSibling(node);
+        return node;
+    }
+
+    public boolean findWord(String word) {
+        int node = find(word);
+        return node > 0 && isEndOfWord(node);
+    }
+
+    public PrefixCursor cursor() {
+        return new Cursor();
+    }
+
+    public int countPrefix(String prefix) {
+        int node = find(prefix);
+        return node == NONE ? 0 : wordsBelow(node);
+    }
+
+    /**
+     * Finds the words within 2 edits(Levenshtein) of the misspelled word, walking the arena depth first with one row of
+     * the edit distance table per letter, and skipping any branch whose row is already past 2.
+     * @param word The misspelled word.
+     * @return Up to 7 suggestions, closest first, then alphabetically, then "Manual Entry" and "Ignore".
+     */
+    public ArrayList<String> wordSuggestions(String word) {
+        String lower = word.trim().toLowerCase();
+        int columns = lower.length() + 1;
+        ArrayList<String> suggestions = new ArrayList<>();
+        ArrayList<Integer> distances = new ArrayList<>();
+        int[][] rows = new int[2][columns];
+        for (int j = 0; j < columns; j++) rows[0][j] = j;
+        char[] letters = new char[16];
+        // each node waiting to be visited is kept with its depth, and the row it extends is the one at that depth.
+        int[] stack = new int[64];
+        int[] depths = new int[64];
+        int top = 0;
+        for (int child = firstChild(0); child != NONE; child = nextSibling(child)) {
+            stack[top] = child;
+            depths[top++] = 1;
+        }
+        // children are pushed in reverse, so they're popped in sorted order.
+        reverse(stack, depths, 0, top);
+        while (top > 0) {
+            int node = stack[--top];
+            int depth = depths[top];
+            if (depth >= rows.length) rows = Arrays.copyOf(rows, depth * 2);
+            if (rows[depth] == null) rows[depth] = new int[columns];
+            if (depth > letters.length) letters = Arrays.copyOf(letters, depth * 2);
+            char letter = letter(node);
+            letters[depth - 1] = letter;
+            int[] previous = rows[depth - 1];
+            int[] current = rows[depth];
+            current[0] = depth;
+            int rowMin = depth;
+            for (int j = 1; j < columns; j++) {
+                int cost = lower.charAt(j - 1) == letter ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (isEndOfWord(node) && current[columns - 1] <= MAX_DISTANCE) {
+                int distance = current[columns - 1];
+                int at = suggestions.size();
+                while (at > 0 && distances.get(at - 1) > distance) at--;
+                suggestions.add(at, new String(letters, 0, depth));
+                distances.add(at, distance);
+            }
+            if (rowMin > MAX_DISTANCE) continue;
+            int start = top;
+            for (int child = firstChild(node); child != NONE; child = nextSibling(child)) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                    depths = Arrays.copyOf(depths, top * 2);
+                }
+                stack[top] = child;
+                depths[top++] = depth + 1;
+            }
+            reverse(stack, depths, start, top);
+        }
+        ArrayList<String> best = new ArrayList<>(suggestions.subList(0, Math.min(MAX_SUGGESTIONS, suggestions.size())));
+        best.remove(lower);
+        best.add("Manual Entry");
+        best.add("Ignore");
+        return best;
+    }
+
+    private static void reverse(int[] stack, int[] depths, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int node = stack[i];
+            stack[i] = stack[j];
+            stack[j] = node;
+            int depth = depths[i];
+            depths[i] = depths[j];
+            depths[j] = depth;
+        }
+    }
+
+    /**
+     * Adds a word to the trie, in lower case, without the white space around it.
+     * @param word The word to add.
+     * @return True if the word wasn't already in the trie.
+     */
+    public boolean addWord(String word) {
+        if (word == null) return false;
+        return addFormatted(word.trim().toLowerCase());
+    }
+
+    /**
+     * Unmarks the word, leaving its nodes in the arena.
+     * @param word The word to remove.
+     * @return True if the word was in the trie, and has been removed.
+     */
+    public boolean remove(String word) {
+        if (word == null) return false;
+        String lower = word.trim().toLowerCase();
+        int[] nodes = new int[lower.length() + 1];
+        for (int i = 0; i < lower.length(); i++) {
+            nodes[i + 1] = child(nodes[i], lower.charAt(i));
+            if (nodes[i + 1] == NONE) return false;
+        }
+        int node = nodes[lower.length()];
+        if (node == 0 || !isEndOfWord(node)) return false;
+        chunk(node).put(offset(node) + FLAGS, (byte) 0);
+        for (int pathNode : nodes) adjustWordsBelow(pathNode, -1);
+        this.numberOfWords--;
+        // the previous word's path may now end in an unmarked node, which addFormatted handles fine.
+        return true;
+    }
+
+    public int numberOfWords() {
+        return this.numberOfWords;
+    }
+
+    /**
+     * @return The number of nodes in the arena, including the root.
+     */
+    public int numberOfNodes() {
+        return this.numberOfNodes;
+    }
+
+    /**
+     * @return The number of bytes reserved off the heap for the arena's chunks.
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        ByteBuffer[] chunks = this.chunks;
+        if (chunks != null) for (ByteBuffer chunk : chunks) if (chunk != null) bytes += chunk.capacity();
+        return bytes;
+    }
+
+    public Map<String, Number> stats() {
+        LinkedHashMap<String, Number> stats = new LinkedHashMap<>();
+        stats.put("words", this.numberOfWords);
+        stats.put("nodes", this.numberOfNodes);
+        stats.put("offHeapBytes", offHeapBytes());
+        return stats;
+    }
+
+    /**
+     * Iterates over the words in sorted order, depth first, keeping the current path's letters in one buffer.
+     */
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int[] stack = new int[64];
+            private int[] depths = new int[64];
+            private int top = pushChildren(0, 0);
+            private char[] letters = new char[64];
+            private String next = advance();
+
+            private int pushChildren(int node, int depth) {
+                int start = this.top;
+                for (int child = firstChild(node); child != NONE; child = nextSibling(child)) {
+                    if (this.top == this.stack.length) {
+                        this.stack = Arrays.copyOf(this.stack, this.top * 2);
+                        this.depths = Arrays.copyOf(this.depths, this.top * 2);
+                    }
+                    this.stack[this.top] = child;
+                    this.depths[this.top++] = depth + 1;
+                }
+                reverse(this.stack, this.depths, start, this.top);
+                return this.top;
+            }
+
+            private String advance() {
+                while (this.top > 0) {
+                    int node = this.stack[--this.top];
+                    int depth = this.depths[this.top];
+                    if (depth > this.letters.length) this.letters = Arrays.copyOf(this.letters, depth * 2);
+                    this.letters[depth - 1] = letter(node);
+                    pushChildren(node, depth);
+                    if (isEndOfWord(node)) return new String(this.letters, 0, depth);
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public String next() {
+                if (this.next == null) throw new NoSuchElementException();
+                String word = this.next;
+                this.next = advance();
+                return word;
+            }
+        };
+    }
+
+    /**
+     * Drops the arena's chunks, so their memory is freed once they're garbage collected, even if the dictionary itself
+     * is still referenced. The dictionary can't be used after it's closed. Lookups already running on other threads
+     * finish(or fail) safely, since the chunks aren't freed out from under them.
+     */
+    @Override
+    public void close() {
+        this.chunks = null;
+    }
+
+    /**
+     * A prefix cursor over the arena, holding the prefix's node index.
+     */
+    private class Cursor implements PrefixCursor {
+        private int node = 0;
+        private int depth = 0;
+
+        @Override
+        public boolean next(char letter) {
+            int child = child(this.node, Character.toLowerCase(letter));
+            if (child == NONE) return false;
+            this.node = child;
+            this.depth++;
+            return true;
+        }
+
+        @Override
+        public boolean isWord() {
+            return this.node != 0 && isEndOfWord(this.node);
+        }
+
+        @Override
+        public int countWords() {
+            return wordsBelow(this.node);
+        }
+
+        @Override
+        public int depth() {
+            return this.depth;
+        }
+
+        @Override
+        public void reset() {
+            this.node = 0;
+            this.depth = 0;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A BK-tree(Burkhard-Keller tree) over the dictionary's words, for finding the words nearest to a misspelling by edit
+ * distance, used as the suggestion backend for longer words(see Trie.bkTreeMinLength).
+ * @implNote Each word is a node, and each child is kept under its edit distance from its parent. Searching for words
+ * within r edits of the query, a node d edits from the query only needs the children whose distance from it is within
+ * d - r to d + r(the triangle inequality), so most of the tree is never visited. The k nearest search shrinks r to the
+ * k'th best distance found so far as it goes.
+ * @implNote There are no node objects. The words' characters are kept back to back in one char array, and each node's
+ * first child, next sibling, and distance from its parent are kept in int and byte arrays, indexed by word id(the order
+ * the words were added in). Removed words are only marked as removed, since the words under them are still needed.
+ * @author Brandon Watkins
+ */
+public class BKTree {
+
+    private static final int NONE = -1;
+
+    private char[] chars;
+    private int[] offsets;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private byte[] edge;
+    private BitSet removed;
+    private int size;
+    private int numberRemoved;
+
+    public BKTree() {
+        this.chars = new char[8192];
+        this.offsets = new int[1025];
+        this.firstChild = new int[1024];
+        this.nextSibling = new int[1024];
+        this.edge = new byte[1024];
+        this.removed = new BitSet();
+    }
+
+    /**
+     * Builds a BK-tree of every word in the trie.
+     * @param tree The trie to build from.
+     * @return The BK-tree.
+     */
+    public static BKTree of(Trie tree) {
+        BKTree bkTree = new BKTree();
+        for (String word : tree) bkTree.add(word);
+        return bkTree;
+    }
+
+    /**
+     * Adds a word to the tree, walking down from the first word along the children at the word's distance from each.
+     * @param word The word to add.
+     * @return True if the word wasn't already in the tree.
+     */
+    public boolean add(CharSequence word) {
+        char[] query = lower(word);
+        if (query.length == 0) return false;
+        EditDistance distanceTo = new EditDistance(new String(query));
+        char[] buffer = new char[64];
+        int node = this.size > 0 ? 0 : NONE;
+        while (node != NONE) {
+            buffer = spell(node, buffer);
+            int distance = distanceTo.levenshtein(buffer, length(node), Byte.MAX_VALUE);
+            if (distance == 0) {
+                // a removed word being added back.
+                if (!this.removed.get(node)) return false;
+                this.removed.clear(node);
+                this.numberRemoved--;
+                return true;
+            }
+            int child = this.firstChild[node];
+            while (child != NONE && this.edge[child] != distance) child = this.nextSibling[child];
+            if (child == NONE) {
+                int id = append(query, distance);
+                this.nextSibling[id] = this.firstChild[node];
+                this.firstChild[node] = id;
+                return true;
+            }
+            node = child;
+        }
+        append(query, 0);
+        return true;
+    }
+
+    /**
+     * Stores the word's characters, and gives it the next word id.
+     * @return The word's id.
+     */
+    private int append(char[] word, int distance) {
+        if (this.size + 1 == this.firstChild.length) {
+            int capacity = this.firstChild.length * 2;
+            this.offsets = Arrays.copyOf(this.offsets, capacity + 1);
+            this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+            this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+            this.edge = Arrays.copyOf(this.edge, capacity);
+        }
+        int start = this.offsets[this.size];
+        if (start + word.length > this.chars.length) {
+            this.chars = Arrays.copyOf(this.chars, Math.max(this.chars.length * 2, start + word.length));
+        }
+        System.arraycopy(word, 0, this.chars, start, word.length);
+        int id = this.size++;
+        this.offsets[this.size] = start + word.length;
+        this.firstChild[id] = NONE;
+        this.nextSibling[id] = NONE;
+        this.edge[id] = (byte) Math.min(distance, Byte.MAX_VALUE);
+        return id;
+    }
+
+    /**
+     * Marks the word as removed, so it's no longer found.
+     * @param word The word to remove.
+     * @return True if the word was in the tree.
+     */
+    public boolean remove(CharSequence word) {
+        int node = find(lower(word));
+        if (node == NONE || this.removed.get(node)) return false;
+        this.removed.set(node);
+        this.numberRemoved++;
+        return true;
+    }
+
+    /**
+     * Determines if the word is in the tree.
+     * @param word The word.
+     * @return True if the word is in the tree, and hasn't been removed.
+     */
+    public boolean contains(CharSequence word) {
+        int node = find(lower(word));
+        return node != NONE && !this.removed.get(node);
+    }
+
+    /**
+     * Follows the word's distance from each node down the tree, until the word itself is found.
+     * @return The word's id, or NONE if it isn't in the tree.
+     */
+    private int find(char[] query) {
+        if (query.length == 0) return NONE;
+        EditDistance distanceTo = new EditDistance(new String(query));
+        char[] buffer = new char[64];
+        int node = this.size > 0 ? 0 : NONE;
+        while (node != NONE) {
+            buffer = spell(node, buffer);
+            int distance = distanceTo.levenshtein(buffer, length(node), Byte.MAX_VALUE);
+            if (distance == 0) return node;
+            int child = this.firstChild[node];
+            while (child != NONE && this.edge[child] != distance) child = this.nextSibling[child];
+            node = child;
+        }
+        return NONE;
+    }
+
+    /**
+     * Finds the k words nearest to the given word, within maxDistance edits.
+     * @param word The(probably misspelled) word.
+     * @param k The most words to return.
+     * @param maxDistance The most edits a word can be away from the given word.
+     * @return The nearest words, closest first, then alphabetically.
+     */
+    public ArrayList<String> nearest(String word, int k, int maxDistance) {
+        ArrayList<String> found = new ArrayList<>();
+        char[] query = lower(word);
+        if (query.length == 0 || k <= 0 || this.size == 0) return found;
+        int[] bestIds = new int[k];
+        int[] bestDistances = new int[k];
+        int count = 0;
+        int radius = maxDistance;
+        // each node waiting to be visited is kept with the least distance it could be from the query.
+        int[] stack = new int[64];
+        int[] lowerBounds = new int[64];
+        int top = 0;
+        stack[top] = 0;
+        lowerBounds[top++] = 0;
+        char[] buffer = new char[64];
+        EditDistance distanceTo = new EditDistance(new String(query));
+        while (top > 0) {
+            int node = stack[--top];
+            if (lowerBounds[top] > radius) continue;
+            buffer = spell(node, buffer);
+            // past radius + the farthest child's distance, neither the node nor any of its children can be in range.
+            int reach = radius;
+            for (int child = this.firstChild[node]; child != NONE; child = this.nextSibling[child]) {
+                reach = Math.max(reach, radius + this.edge[child]);
+            }
+            int distance = distanceTo.levenshtein(buffer, length(node), reach);
+            if (distance > reach) continue;
+            if (distance <= radius && !this.removed.get(node)) {
+                // a full list only takes words ranking above its last word.
+                if (count < k || ranksBefore(node, distance, bestIds[k - 1], bestDistances[k - 1])) {
+                    int at = count < k ? count++ : k - 1;
+                    while (at > 0 && ranksBefore(node, distance, bestIds[at - 1], bestDistances[at - 1])) {
+                        bestIds[at] = bestIds[at - 1];
+                        bestDistances[at] = bestDistances[at - 1];
+                        at--;
+                    }
+                    bestIds[at] = node;
+                    bestDistances[at] = distance;
+                    if (count == k) radius = bestDistances[k - 1];
+                }
+            }
+            //For each child within radius of the query, by the triangle inequality...
+            for (int child = this.firstChild[node]; child != NONE; child = this.nextSibling[child]) {
+                int bound = Math.abs(this.edge[child] - distance);
+                if (bound > radius) continue;
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                    lowerBounds = Arrays.copyOf(lowerBounds, top * 2);
+                }
+                stack[top] = child;
+                lowerBounds[top++] = bound;
+            }
+        }
+        for (int i = 0; i < count; i++) found.add(word(bestIds[i]));
+        return found;
+    }
+
+    /**
+     * Determines if a word ranks before another, closest first, then alphabetically.
+     */
+    private boolean ranksBefore(int id, int distance, int otherId, int otherDistance) {
+        if (distance != otherDistance) return distance < otherDistance;
+        int a = this.offsets[id];
+        int aEnd = this.offsets[id + 1];
+        int b = this.offsets[otherId];
+        int bEnd = this.offsets[otherId + 1];
+        for (; a < aEnd && b < bEnd; a++, b++) {
+            if (this.chars[a] != this.chars[b]) return this.chars[a] < this.chars[b];
+        }
+        return aEnd - a < bEnd - b;
+    }
+
+    /**
+     * Copies the word's characters into the buffer, growing the buffer if needed.
+     * @return The buffer holding the word.
+     */
+    private char[] spell(int id, char[] buffer) {
+        int length = length(id);
+        if (length > buffer.length) buffer = new char[length * 2];
+        System.arraycopy(this.chars, this.offsets[id], buffer, 0, length);
+        return buffer;
+    }
+
+    private int length(int id) {
+        return this.offsets[id + 1] - this.offsets[id];
+    }
+
+    private String word(int id) {
+        return new String(this.chars, this.offsets[id], length(id));
+    }
+
+    private static char[] lower(CharSequence word) {
+        return word.toString().trim().toLowerCase().toCharArray();
+    }
+
+    /**
+     * @return The number of words in the tree(not counting removed words).
+     */
+    public int size() {
+        return this.size - this.numberRemoved;
+    }
+
+    /**
+     * @return The length of the longest path from the first word down the tree.
+     */
+    public int height() {
+        int height = 0;
+        int[] depths = new int[this.size];
+        // children are always added after their parent, so each node's depth is known before its children's.
+        for (int id = 0; id < this.size; id++) {
+            for (int child = this.firstChild[id]; child != NONE; child = this.nextSibling[child]) depths[child] = depths[id] + 1;
+            height = Math.max(height, depths[id] + 1);
+        }
+        return height;
+    }
+}
@@ -0,0 +1,160 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.Dictionary;
+import edu.isu.cs2235.structures.WordReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Builds the app's dictionary with the backend picked by configuration(-Ddictionary.backend=name), so a new engine can
+ * be tried, and compared against the others(see DifferentialHarness), without changing any call sites.
+ * @author Brandon Watkins
+ */
+public class DictionaryFactory {
+
+    public static final String BACKEND_PROPERTY = "dictionary.backend";
+    public static final String DEFAULT_BACKEND = "reverse-trie";
+
+    /**
+     * Every backend's name: "trie"(just the trie), "reverse-trie"(plus a reverse word trie, for faster suggestions),
+     * and "perfect-hash"(plus a minimal perfect hash dictionary, for faster findWord).
+     */
+    public static final String[] BACKENDS = {"trie", "reverse-trie", "perfect-hash"};
+
+    /**
+     * The off-heap backend(see ArenaTrie). It isn't in BACKENDS, since its suggestions come from an edit distance
+     * search rather than Trie's edit strategies, so only its lookups match the other backends'.
+     */
+    public static final String OFF_HEAP_BACKEND = "off-heap";
+
+    /**
+     * The persistent backend(see VersionedDictionary), which takes additions while being read. Like the off-heap
+     * backend, its suggestions come from an edit distance search.
+     */
+    public static final String PERSISTENT_BACKEND = "persistent";
+
+    /**
+     * The segmented backend(see SegmentedDictionary), which only loads the segments that get looked up. Its suggestions
+     * only come from the misspelled word's own segment.
+     */
+    public static final String SEGMENTED_BACKEND = "segmented";
+
+    /**
+     * The segmented backend's prefix length, and the most segments it keeps loaded at once.
+     */
+    private static final int SEGMENT_PREFIX_LENGTH = 2;
+    private static final int MAX_LOADED_SEGMENTS = 64;
+
+    /**
+     * The number of top trie levels every trie backend packs(see Trie.packChildLabels): root, and the first letters,
+     * which every lookup and suggestion goes through.
+     */
+    private static final int PACKED_LEVELS = 2;
+
+    private DictionaryFactory() {
+    }
+
+    /**
+     * @return The configured backend's name, or the default if none is configured.
+     */
+    public static String backend() {
+        return System.getProperty(BACKEND_PROPERTY, DEFAULT_BACKEND);
+    }
+
+    /**
+     * Reads a word list into the configured backend.
+     * @param filePath The word list, in any format FillTree.openWordList supports.
+     * @return The dictionary, or null if the word list couldn't be read.
+     * @throws IllegalArgumentException when the configured backend doesn't exist.
+     */
+    public static Dictionary open(String filePath) throws IllegalArgumentException {
+        return open(backend(), filePath);
+    }
+
+    /**
+     * Reads a word list into the given backend.
+     * @param backend The backend's name(see BACKENDS, OFF_HEAP_BACKEND, PERSISTENT_BACKEND, and SEGMENTED_BACKEND).
+     * @param filePath The word list, in any format FillTree.openWordList supports. The segmented backend also takes a
+     * directory written by SegmentedDictionary.writeSegments.
+     * @return The dictionary, or null if the word list couldn't be read.
+     * @throws IllegalArgumentException when there's no such backend.
+     */
+    public static Dictionary open(String backend, String filePath) throws IllegalArgumentException {
+        try {
+            if (isSegmented(backend)) {
+                if (new File(filePath).isDirectory()) return new SegmentedDictionary(filePath, MAX_LOADED_SEGMENTS);
+                return segmented(FillTree.openWordList(filePath));
+            }
+            if (isOffHeap(backend)) return new FillTree().readInOffHeap(FillTree.openWordList(filePath));
+            if (isPersistent(backend)) {
+                Trie tree = new FillTree().readInFile(filePath);
+                return tree == null ? null : VersionedDictionary.of(tree);
+            }
+            return fillTree(backend).readInFile(filePath);
+        }
+        catch (IOException e) {
+            System.out.println("Error trying to read file " + filePath + ".");
+            return null;
+        }
+    }
+
+    /**
+     * Reads words into the given backend, closing the reader when done.
+     * @param backend The backend's name(see BACKENDS, OFF_HEAP_BACKEND, PERSISTENT_BACKEND, and SEGMENTED_BACKEND).
+     * @param wordReader The words to read in.
+     * @return The dictionary.
+     * @throws IOException when the reader has an issue reading.
+     * @throws IllegalArgumentException when there's no such backend.
+     */
+    public static Dictionary open(String backend, WordReader wordReader) throws IOException, IllegalArgumentException {
+        if (isOffHeap(backend)) return new FillTree().readInOffHeap(wordReader);
+        if (isPersistent(backend)) return VersionedDictionary.of(new FillTree().readIn(wordReader));
+        if (isSegmented(backend)) return segmented(wordReader);
+        return fillTree(backend).readIn(wordReader);
+    }
+
+    /**
+     * Splits words into segments in a new temp directory(deleted on exit), and opens them.
+     * @param wordReader The words to split up, closed when done.
+     * @return The segmented dictionary.
+     * @throws IOException when the words can't be read, or the segments can't be written.
+     */
+    private static SegmentedDictionary segmented(WordReader wordReader) throws IOException {
+        File directory = Files.createTempDirectory("segments").toFile();
+        // registered first, so it's deleted last, once it's empty.
+        directory.deleteOnExit();
+        SegmentedDictionary.writeSegments(wordReader, directory.getPath(), SEGMENT_PREFIX_LENGTH);
+        File[] files = directory.listFiles();
+        if (files != null) for (File file : files) file.deleteOnExit();
+        return new SegmentedDictionary(directory.getPath(), MAX_LOADED_SEGMENTS);
+    }
+
+    private static boolean isOffHeap(String backend) {
+        return backend != null && backend.trim().equalsIgnoreCase(OFF_HEAP_BACKEND);
+    }
+
+    private static boolean isPersistent(String backend) {
+        return backend != null && backend.trim().equalsIgnoreCase(PERSISTENT_BACKEND);
+    }
+
+    private static boolean isSegmented(String backend) {
+        return backend != null && backend.trim().equalsIgnoreCase(SEGMENTED_BACKEND);
+    }
+
+    /**
+     * Sets up a FillTree to build the given backend.
+     * @param backend The backend's name(see BACKENDS).
+     * @return The FillTree.
+     * @throws IllegalArgumentException when there's no such backend.
+     */
+    private static FillTree fillTree(String backend) throws IllegalArgumentException {
+        switch (backend == null ? "" : backend.trim().toLowerCase()) {
+            case "trie": return new FillTree().packChildLabels(PACKED_LEVELS);
+            case "reverse-trie": return new FillTree().buildReverseTrie(true).packChildLabels(PACKED_LEVELS);
+            case "perfect-hash": return new FillTree().buildReverseTrie(true).buildPerfectHash(true).packChildLabels(PACKED_LEVELS);
+            default: throw new IllegalArgumentException("No dictionary backend named \"" + backend + "\".");
+        }
+    }
+}
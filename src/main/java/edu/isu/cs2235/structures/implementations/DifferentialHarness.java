@@ -0,0 +1,255 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.Dictionary;
+import edu.isu.cs2235.structures.PrefixCursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+/**
+ * Runs the same workload against several dictionary backends, checking that every backend gives the same results as
+ * the first one, and timing each backend's operations, so a new engine can be adopted safely.
+ * @implNote The read-only operations(listing the words, findWord, countPrefix, walking a cursor, and wordSuggestions)
+ * run first, then the additions(addWord, then findWord on the added words), since they change the backends.
+ * @author Brandon Watkins
+ */
+public class DifferentialHarness {
+
+    private static final int MAX_MISMATCHES = 100;
+
+    private final LinkedHashMap<String, Dictionary> backends;
+    private final ArrayList<String> lookups;
+    private final ArrayList<String> prefixes;
+    private final ArrayList<String> misspellings;
+    private final ArrayList<String> additions;
+
+    public DifferentialHarness() {
+        this.backends = new LinkedHashMap<>();
+        this.lookups = new ArrayList<>();
+        this.prefixes = new ArrayList<>();
+        this.misspellings = new ArrayList<>();
+        this.additions = new ArrayList<>();
+    }
+
+    /**
+     * Adds a backend to compare. The first backend added is the reference the others are checked against.
+     * @param name The backend's name, for the report.
+     * @param dictionary The backend's dictionary, filled with the same words as the others.
+     * @return This harness.
+     */
+    public DifferentialHarness backend(String name, Dictionary dictionary) {
+        this.backends.put(name, dictionary);
+        return this;
+    }
+
+    /**
+     * @param words Words(or non-words) to look up with findWord.
+     * @return This harness.
+     */
+    public DifferentialHarness lookups(Collection<String> words) {
+        this.lookups.addAll(words);
+        return this;
+    }
+
+    /**
+     * @param prefixes Prefixes to count, and to walk a cursor down.
+     * @return This harness.
+     */
+    public DifferentialHarness prefixes(Collection<String> prefixes) {
+        this.prefixes.addAll(prefixes);
+        return this;
+    }
+
+    /**
+     * @param words Misspelled words to get suggestions for.
+     * @return This harness.
+     */
+    public DifferentialHarness misspellings(Collection<String> words) {
+        this.misspellings.addAll(words);
+        return this;
+    }
+
+    /**
+     * @param words Words to add to every backend, after the read-only operations.
+     * @return This harness.
+     */
+    public DifferentialHarness additions(Collection<String> words) {
+        this.additions.addAll(words);
+        return this;
+    }
+
+    /**
+     * Runs the workload against every backend.
+     * @return The report of mismatches and timings.
+     */
+    public Report run() {
+        Report report = new Report();
+        run(report, "words", Arrays.asList(""), (dictionary, unused) -> {
+            ArrayList<String> words = new ArrayList<>();
+            for (String word : dictionary) words.add(word);
+            return words;
+        });
+        run(report, "findWord", this.lookups, Dictionary::findWord);
+        run(report, "countPrefix", this.prefixes, Dictionary::countPrefix);
+        run(report, "cursor", this.prefixes, DifferentialHarness::walk);
+        run(report, "wordSuggestions", this.misspellings, Dictionary::wordSuggestions);
+        run(report, "addWord", this.additions, Dictionary::addWord);
+        run(report, "findWord(added)", this.additions, Dictionary::findWord);
+        run(report, "numberOfWords", Arrays.asList(""), (dictionary, unused) -> dictionary.numberOfWords());
+        return report;
+    }
+
+    /**
+     * Runs one operation on each input, against each backend, timing each backend, and comparing each result with the
+     * first backend's.
+     */
+    private <T> void run(Report report, String operation, List<String> inputs, BiFunction<Dictionary, String, T> op) {
+        Object[] expected = null;
+        String reference = null;
+        for (Map.Entry<String, Dictionary> backend : this.backends.entrySet()) {
+            Object[] results = new Object[inputs.size()];
+            long start = System.nanoTime();
+            for (int i = 0; i < results.length; i++) results[i] = op.apply(backend.getValue(), inputs.get(i));
+            report.time(backend.getKey(), operation, System.nanoTime() - start);
+            if (expected == null) {
+                expected = results;
+                reference = backend.getKey();
+                continue;
+            }
+            for (int i = 0; i < results.length; i++) {
+                if (!String.valueOf(expected[i]).equals(String.valueOf(results[i]))) {
+                    report.mismatch(operation + "(\"" + inputs.get(i) + "\"): " + reference + " gave " + expected[i]
+                            + ", " + backend.getKey() + " gave " + results[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks a cursor down the prefix, noting the words below each letter(and * for prefixes that are words).
+     */
+    private static String walk(Dictionary dictionary, String prefix) {
+        PrefixCursor cursor = dictionary.cursor();
+        StringBuilder steps = new StringBuilder();
+        for (int i = 0; i < prefix.length(); i++) {
+            if (!cursor.next(prefix.charAt(i))) {
+                steps.append('-');
+                break;
+            }
+            steps.append(cursor.countWords()).append(cursor.isWord() ? "* " : " ");
+        }
+        return steps.append('@').append(cursor.depth()).toString();
+    }
+
+    /**
+     * The results of a run: every mismatch with the reference backend, and how long each backend took for each
+     * operation.
+     */
+    public static class Report {
+
+        private final ArrayList<String> mismatches = new ArrayList<>();
+        private int numberOfMismatches;
+        private final LinkedHashMap<String, LinkedHashMap<String, Long>> nanos = new LinkedHashMap<>();
+
+        private void mismatch(String description) {
+            if (this.numberOfMismatches++ < MAX_MISMATCHES) this.mismatches.add(description);
+        }
+
+        private void time(String backend, String operation, long nanos) {
+            this.nanos.computeIfAbsent(backend, b -> new LinkedHashMap<>()).put(operation, nanos);
+        }
+
+        /**
+         * @return True if every backend gave the same results as the reference backend.
+         */
+        public boolean matches() {
+            return this.numberOfMismatches == 0;
+        }
+
+        /**
+         * @return The first 100 mismatches, described.
+         */
+        public ArrayList<String> mismatches() {
+            return this.mismatches;
+        }
+
+        /**
+         * @return The number of mismatches.
+         */
+        public int numberOfMismatches() {
+            return this.numberOfMismatches;
+        }
+
+        /**
+         * @param backend The backend's name.
+         * @param operation The operation's name.
+         * @return How long the backend took for every input of the operation, in ns, or -1 if it wasn't run.
+         */
+        public long nanos(String backend, String operation) {
+            Map<String, Long> times = this.nanos.get(backend);
+            return times == null || !times.containsKey(operation) ? -1 : times.get(operation);
+        }
+
+        /**
+         * @return A table of each backend's time(ms) per operation, followed by the mismatches.
+         */
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            for (Map.Entry<String, LinkedHashMap<String, Long>> backend : this.nanos.entrySet()) {
+                out.append(backend.getKey()).append(':');
+                for (Map.Entry<String, Long> time : backend.getValue().entrySet()) {
+                    out.append(' ').append(time.getKey()).append('=').append(String.format("%.1f", time.getValue() / 1e6)).append("ms");
+                }
+                out.append("\r\n");
+            }
+            out.append(this.numberOfMismatches).append(" mismatches").append("\r\n");
+            for (String mismatch : this.mismatches) out.append(mismatch).append("\r\n");
+            return out.toString();
+        }
+    }
+
+    /**
+     * Compares every backend(see DictionaryFactory.BACKENDS) on a word list, with a workload sampled from its words.
+     * @param args The word list's path, and optionally the number of words to sample(1000 by default).
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: DifferentialHarness wordListPath [sampleSize]");
+            return;
+        }
+        int sampleSize = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        DifferentialHarness harness = new DifferentialHarness();
+        for (String backend : DictionaryFactory.BACKENDS) {
+            Dictionary dictionary = DictionaryFactory.open(backend, args[0]);
+            if (dictionary == null) return;
+            harness.backend(backend, dictionary);
+        }
+        ArrayList<String> words = new ArrayList<>();
+        for (String word : harness.backends.values().iterator().next()) words.add(word);
+        Random random = new Random(42);
+        ArrayList<String> sample = new ArrayList<>();
+        ArrayList<String> damaged = new ArrayList<>();
+        for (int i = 0; i < sampleSize && !words.isEmpty(); i++) {
+            String word = words.get(random.nextInt(words.size()));
+            sample.add(word);
+            // one random edit: a dropped, doubled, or replaced letter.
+            int at = random.nextInt(word.length());
+            char letter = (char) ('a' + random.nextInt(26));
+            switch (random.nextInt(3)) {
+                case 0: damaged.add(word.substring(0, at) + word.substring(at + 1)); break;
+                case 1: damaged.add(word.substring(0, at + 1) + word.substring(at)); break;
+                default: damaged.add(word.substring(0, at) + letter + word.substring(at + 1));
+            }
+        }
+        harness.lookups(sample).lookups(damaged).prefixes(sample).misspellings(damaged.subList(0, Math.min(100, damaged.size())))
+                .additions(Arrays.asList("differentialharnessword", "zzyzx"));
+        System.out.println(harness.run());
+    }
+}
@@ -0,0 +1,282 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.util.Arrays;
+
+/**
+ * Edit distance from a pattern word to other words: Levenshtein(the fewest single character insertions, deletions, and
+ * substitutions turning one word into another), and Damerau(also counting swapping two neighbouring characters as a
+ * single edit), for checking and ranking suggestion candidates. Build one for the misspelled word, then measure each
+ * candidate against it.
+ * @implNote Uses Myers' bit-parallel algorithm(as formulated by Hyyro, with his transposition extension for Damerau),
+ * which keeps a whole column of the edit distance table as the bits of a long, so each of the candidate's characters
+ * costs a handful of bitwise operations instead of a pass over the pattern. Each character's match mask(the pattern
+ * positions holding it) is worked out once, when the pattern is built. Patterns over 64 characters are split into
+ * 64 bit blocks, carrying between them(Damerau falls back to the table for those). The bounded versions give up as
+ * soon as the candidate can't finish within the bound.
+ * @author Brandon Watkins
+ */
+public class EditDistance {
+
+    private static final long[] NO_MASKS = new long[0];
+
+    private final char[] pattern;
+    private final int length;
+    private final int blocks;
+    private final long lastBit;
+    private final long[] asciiMasks;
+    private char[] otherChars;
+    private long[][] otherMasks;
+    private int numberOfOthers;
+    private long[] positive;
+    private long[] negative;
+
+    /**
+     * Precomputes the pattern's match masks.
+     * @param pattern The word the other words are measured against. Case matters, like String.equals.
+     */
+    public EditDistance(CharSequence pattern) {
+        this.length = pattern.length();
+        this.pattern = new char[this.length];
+        for (int i = 0; i < this.length; i++) this.pattern[i] = pattern.charAt(i);
+        this.blocks = Math.max(1, (this.length + 63) / 64);
+        this.lastBit = this.length == 0 ? 0 : 1L << ((this.length - 1) % 64);
+        this.asciiMasks = new long[128 * this.blocks];
+        this.otherChars = new char[4];
+        this.otherMasks = new long[4][];
+        for (int i = 0; i < this.length; i++) {
+            char c = this.pattern[i];
+            long bit = 1L << (i % 64);
+            if (c < 128) this.asciiMasks[c * this.blocks + i / 64] |= bit;
+            else masksForOther(c, true)[i / 64] |= bit;
+        }
+        this.positive = new long[this.blocks];
+        this.negative = new long[this.blocks];
+    }
+
+    /**
+     * Gets the match masks of a character outside of ascii, adding them if asked to.
+     */
+    private long[] masksForOther(char c, boolean add) {
+        for (int i = 0; i < this.numberOfOthers; i++) if (this.otherChars[i] == c) return this.otherMasks[i];
+        if (!add) return NO_MASKS;
+        if (this.numberOfOthers == this.otherChars.length) {
+            this.otherChars = Arrays.copyOf(this.otherChars, this.numberOfOthers * 2);
+            this.otherMasks = Arrays.copyOf(this.otherMasks, this.numberOfOthers * 2);
+        }
+        this.otherChars[this.numberOfOthers] = c;
+        return this.otherMasks[this.numberOfOthers++] = new long[this.blocks];
+    }
+
+    /**
+     * Gets the pattern positions(in the block) holding the character, as bits.
+     */
+    private long mask(char c, int block) {
+        if (c < 128) return this.asciiMasks[c * this.blocks + block];
+        long[] masks = masksForOther(c, false);
+        return masks.length == 0 ? 0 : masks[block];
+    }
+
+    /**
+     * @return The pattern's length.
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Determines the Levenshtein distance from the pattern to the word.
+     * @param word The word to measure.
+     * @return The number of edits needed to turn the pattern into the word.
+     */
+    public int levenshtein(CharSequence word) {
+        char[] text = toChars(word);
+        return levenshtein(text, text.length, Math.max(this.length, text.length));
+    }
+
+    /**
+     * Determines the Levenshtein distance from the pattern to the first textLength characters of text, if it's no more
+     * than max. Doesn't allocate.
+     * @param text The word's characters.
+     * @param textLength The word's length.
+     * @param max The largest distance of interest.
+     * @return The number of edits needed to turn the pattern into the word, or max + 1 if it's more than max.
+     */
+    public int levenshtein(char[] text, int textLength, int max) {
+        if (max < 0) return 0;
+        if (Math.abs(this.length - textLength) > max) return max + 1;
+        if (this.length == 0 || textLength == 0) return Math.max(this.length, textLength);
+        if (this.blocks > 1) return levenshteinBlocks(text, textLength, max);
+        long positive = -1L;
+        long negative = 0;
+        int score = this.length;
+        //For each character of the text, work out the next column of the table...
+        for (int j = 0; j < textLength; j++) {
+            long match = mask(text[j], 0);
+            long diagonalZero = (((match & positive) + positive) ^ positive) | match | negative;
+            long horizontalPositive = negative | ~(diagonalZero | positive);
+            long horizontalNegative = diagonalZero & positive;
+            if ((horizontalPositive & this.lastBit) != 0) score++;
+            else if ((horizontalNegative & this.lastBit) != 0) score--;
+            // the top row of the table goes up by one each column.
+            horizontalPositive = (horizontalPositive << 1) | 1;
+            horizontalNegative <<= 1;
+            positive = horizontalNegative | ~(diagonalZero | horizontalPositive);
+            negative = diagonalZero & horizontalPositive;
+            // the score can drop by at most one per remaining character.
+            if (score - (textLength - j - 1) > max) return max + 1;
+        }
+        return score;
+    }
+
+    /**
+     * Levenshtein for patterns over 64 characters, a 64 bit block at a time, carrying each block's bottom row change
+     * into the block below it.
+     */
+    private int levenshteinBlocks(char[] text, int textLength, int max) {
+        Arrays.fill(this.positive, -1L);
+        Arrays.fill(this.negative, 0);
+        int score = this.length;
+        for (int j = 0; j < textLength; j++) {
+            // the top row of the table goes up by one each column.
+            int carry = 1;
+            for (int b = 0; b < this.blocks; b++) {
+                long match = mask(text[j], b);
+                long positive = this.positive[b];
+                long negative = this.negative[b];
+                long vertical = match | negative;
+                if (carry < 0) match |= 1;
+                long horizontal = (((match & positive) + positive) ^ positive) | match;
+                long horizontalPositive = negative | ~(horizontal | positive);
+                long horizontalNegative = positive & horizontal;
+                long bottom = b == this.blocks - 1 ? this.lastBit : 1L << 63;
+                int carryOut = (horizontalPositive & bottom) != 0 ? 1 : (horizontalNegative & bottom) != 0 ? -1 : 0;
+                horizontalPositive <<= 1;
+                horizontalNegative <<= 1;
+                if (carry < 0) horizontalNegative |= 1;
+                else if (carry > 0) horizontalPositive |= 1;
+                this.positive[b] = horizontalNegative | ~(vertical | horizontalPositive);
+                this.negative[b] = horizontalPositive & vertical;
+                carry = carryOut;
+            }
+            score += carry;
+            if (score - (textLength - j - 1) > max) return max + 1;
+        }
+        return score;
+    }
+
+    /**
+     * Determines the Damerau distance from the pattern to the word.
+     * @param word The word to measure.
+     * @return The number of edits(counting swapped neighbours as one) needed to turn the pattern into the word.
+     */
+    public int damerau(CharSequence word) {
+        char[] text = toChars(word);
+        return damerau(text, text.length, Math.max(this.length, text.length));
+    }
+
+    /**
+     * Determines the Damerau distance(optimal string alignment: no character is edited more than once) from the pattern
+     * to the first textLength characters of text, if it's no more than max. Doesn't allocate, for patterns up to 64
+     * characters.
+     * @param text The word's characters.
+     * @param textLength The word's length.
+     * @param max The largest distance of interest.
+     * @return The number of edits needed to turn the pattern into the word, or max + 1 if it's more than max.
+     */
+    public int damerau(char[] text, int textLength, int max) {
+        if (max < 0) return 0;
+        if (Math.abs(this.length - textLength) > max) return max + 1;
+        if (this.length == 0 || textLength == 0) return Math.max(this.length, textLength);
+        if (this.blocks > 1) return damerauTable(this.pattern, this.length, text, textLength, max);
+        long positive = -1L;
+        long negative = 0;
+        long diagonalZero = 0;
+        long previousMatch = 0;
+        int score = this.length;
+        for (int j = 0; j < textLength; j++) {
+            long match = mask(text[j], 0);
+            // pattern positions where swapping this character with the last one matches.
+            long transposed = (((~diagonalZero) & match) << 1) & previousMatch;
+            diagonalZero = (((match & positive) + positive) ^ positive) | match | negative | transposed;
+            long horizontalPositive = negative | ~(diagonalZero | positive);
+            long horizontalNegative = diagonalZero & positive;
+            if ((horizontalPositive & this.lastBit) != 0) score++;
+            else if ((horizontalNegative & this.lastBit) != 0) score--;
+            horizontalPositive = (horizontalPositive << 1) | 1;
+            horizontalNegative <<= 1;
+            positive = horizontalNegative | ~(diagonalZero | horizontalPositive);
+            negative = diagonalZero & horizontalPositive;
+            previousMatch = match;
+            if (score - (textLength - j - 1) > max) return max + 1;
+        }
+        return score;
+    }
+
+    /**
+     * Damerau(optimal string alignment) distance, filling in the table three rows at a time, for patterns too long
+     * for the bit-parallel version.
+     */
+    private static int damerauTable(char[] a, int aLength, char[] b, int bLength, int max) {
+        int[] twoBack = new int[bLength + 1];
+        int[] previous = new int[bLength + 1];
+        int[] current = new int[bLength + 1];
+        for (int j = 0; j <= bLength; j++) previous[j] = j;
+        for (int i = 1; i <= aLength; i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= bLength; j++) {
+                int cost = a[i - 1] == b[j - 1] ? 0 : 1;
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a[i - 1] == b[j - 2] && a[i - 2] == b[j - 1]) {
+                    distance = Math.min(distance, twoBack[j - 2] + 1);
+                }
+                current[j] = distance;
+                rowMin = Math.min(rowMin, distance);
+            }
+            if (rowMin > max) return max + 1;
+            int[] swap = twoBack;
+            twoBack = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[bLength] > max ? max + 1 : previous[bLength];
+    }
+
+    /**
+     * Determines the Levenshtein distance between the words. Case matters, like String.equals.
+     * @param a The first word.
+     * @param b The second word.
+     * @return The number of edits needed to turn a into b.
+     */
+    public static int levenshtein(CharSequence a, CharSequence b) {
+        return new EditDistance(a).levenshtein(b);
+    }
+
+    /**
+     * Determines the Levenshtein distance between the words, if it's no more than max.
+     * @param a The first word.
+     * @param b The second word.
+     * @param max The largest distance of interest.
+     * @return The number of edits needed to turn a into b, or max + 1 if it's more than max.
+     */
+    public static int levenshtein(CharSequence a, CharSequence b, int max) {
+        char[] text = toChars(b);
+        return new EditDistance(a).levenshtein(text, text.length, max);
+    }
+
+    /**
+     * Determines the Damerau distance between the words. Case matters, like String.equals.
+     * @param a The first word.
+     * @param b The second word.
+     * @return The number of edits(counting swapped neighbours as one) needed to turn a into b.
+     */
+    public static int damerau(CharSequence a, CharSequence b) {
+        return new EditDistance(a).damerau(b);
+    }
+
+    private static char[] toChars(CharSequence word) {
+        char[] chars = new char[word.length()];
+        for (int i = 0; i < chars.length; i++) chars[i] = word.charAt(i);
+        return chars;
+    }
+}
@@ -0,0 +1,257 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.WordReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts, and removes duplicates from, word lists of any size using a bounded amount of memory, so they can be fed to
+ * FillTree in sorted order(where each word shares the most nodes with the word before it).
+ * @implNote Words are read in runs of up to maxWordsPerRun words, each run is sorted and written to a temp file, and
+ * the runs are then k-way merged back together as the words are read out. If everything fits in one run, no temp file
+ * is written. Temp files are deleted when the returned reader is closed.
+ * @author Brandon Watkins
+ */
+public class ExternalSorter {
+
+    private final int maxWordsPerRun;
+    private final File tempDirectory;
+
+    /**
+     * @param maxWordsPerRun The most words to hold in memory at once.
+     * @param tempDirectory The directory to write sorted runs to, or null for the system's temp directory.
+     */
+    public ExternalSorter(int maxWordsPerRun, File tempDirectory) {
+        if (maxWordsPerRun < 1) throw new IllegalArgumentException("Runs must hold at least 1 word.");
+        this.maxWordsPerRun = maxWordsPerRun;
+        this.tempDirectory = tempDirectory;
+    }
+
+    public ExternalSorter() {
+        this(100000, null);
+    }
+
+    /**
+     * Sorts the words from all of the inputs together, dropping duplicates. The inputs are read(and closed) right away,
+     * the sorted words are then read out of the returned reader.
+     * @param inputs The word lists to sort, in any order.
+     * @return A reader giving every distinct word from the inputs, in sorted order.
+     * @throws IOException when an input can't be read, or a run can't be written.
+     */
+    public WordReader sort(List<WordReader> inputs) throws IOException {
+        ArrayList<File> runs = new ArrayList<>();
+        String[] run = new String[Math.min(this.maxWordsPerRun, 1024)];
+        int runSize = 0;
+        try {
+            for (WordReader input : inputs) {
+                try {
+                    String word;
+                    while ((word = input.nextWord()) != null) {
+                        if (runSize == this.maxWordsPerRun) {
+                            runs.add(writeRun(run, runSize));
+                            runSize = 0;
+                        }
+                        if (runSize == run.length) run = Arrays.copyOf(run, Math.min(run.length * 2, this.maxWordsPerRun));
+                        run[runSize++] = word;
+                    }
+                }
+                finally {
+                    input.close();
+                }
+            }
+            if (runs.isEmpty()) return new ArrayWordReader(run, sortUnique(run, runSize));
+            if (runSize > 0) runs.add(writeRun(run, runSize));
+        }
+        catch (IOException e) {
+            for (File file : runs) file.delete();
+            throw e;
+        }
+        ArrayList<WordReader> runReaders = new ArrayList<>();
+        for (File file : runs) runReaders.add(new RunReader(file));
+        return merge(runReaders);
+    }
+
+    /**
+     * Sorts the words from the input, dropping duplicates.
+     * @param input The word list to sort.
+     * @return A reader giving every distinct word from the input, in sorted order.
+     * @throws IOException when the input can't be read, or a run can't be written.
+     */
+    public WordReader sort(WordReader input) throws IOException {
+        ArrayList<WordReader> inputs = new ArrayList<>();
+        inputs.add(input);
+        return sort(inputs);
+    }
+
+    /**
+     * Merges already sorted word lists into one sorted list, dropping duplicates, as the words are read out.
+     * @param sortedInputs The word lists to merge, each of which must already be sorted.
+     * @return A reader giving every distinct word from the inputs, in sorted order. Closing it closes the inputs.
+     */
+    public static WordReader merge(List<WordReader> sortedInputs) {
+        return new MergingWordReader(sortedInputs);
+    }
+
+    /**
+     * Sorts the first size words of the array in place, and moves the distinct words to the front.
+     * @return The number of distinct words.
+     */
+    private static int sortUnique(String[] words, int size) {
+        Arrays.sort(words, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || !words[i].equals(words[unique - 1])) words[unique++] = words[i];
+        }
+        return unique;
+    }
+
+    /**
+     * Sorts a run, and writes its distinct words to a new temp file, a word per line.
+     * @return The temp file holding the run.
+     */
+    private File writeRun(String[] run, int size) throws IOException {
+        int unique = sortUnique(run, size);
+        File file = File.createTempFile("wordRun", ".txt", this.tempDirectory);
+        file.deleteOnExit();
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 50000)) {
+            for (int i = 0; i < unique; i++) {
+                writer.write(run[i]);
+                writer.newLine();
+                run[i] = null;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Reads the words back out of an in-memory run.
+     */
+    private static class ArrayWordReader implements WordReader {
+        private final String[] words;
+        private final int size;
+        private int index;
+
+        ArrayWordReader(String[] words, int size) {
+            this.words = words;
+            this.size = size;
+        }
+
+        @Override
+        public String nextWord() {
+            if (this.index >= this.size) return null;
+            return this.words[this.index++];
+        }
+
+        @Override
+        public void close() {
+            this.index = this.size;
+        }
+    }
+
+    /**
+     * Reads the words back out of a run's temp file, deleting the file when closed.
+     */
+    private static class RunReader implements WordReader {
+        private final File file;
+        private final BufferedReader reader;
+
+        RunReader(File file) throws IOException {
+            this.file = file;
+            this.reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 50000);
+        }
+
+        @Override
+        public String nextWord() throws IOException {
+            return this.reader.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.reader.close();
+            this.file.delete();
+        }
+    }
+
+    /**
+     * K-way merges sorted word readers, using a heap holding the next word from each reader.
+     */
+    private static class MergingWordReader implements WordReader {
+        private final List<WordReader> inputs;
+        private final PriorityQueue<Head> heads;
+        private String lastWord;
+        private boolean started;
+
+        MergingWordReader(List<WordReader> inputs) {
+            this.inputs = inputs;
+            this.heads = new PriorityQueue<>(Math.max(1, inputs.size()));
+        }
+
+        @Override
+        public String nextWord() throws IOException {
+            if (!this.started) {
+                this.started = true;
+                for (WordReader input : this.inputs) advance(new Head(input));
+            }
+            while (!this.heads.isEmpty()) {
+                Head head = this.heads.poll();
+                String word = head.word;
+                advance(head);
+                // duplicates come out of the heap back to back.
+                if (this.lastWord == null || !this.lastWord.equals(word)) {
+                    this.lastWord = word;
+                    return word;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Reads the head's next word, putting it back in the heap unless its reader has run out.
+         */
+        private void advance(Head head) throws IOException {
+            head.word = head.input.nextWord();
+            if (head.word != null) this.heads.add(head);
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (WordReader input : this.inputs) {
+                try {
+                    input.close();
+                }
+                catch (IOException e) {
+                    failure = e;
+                }
+            }
+            this.heads.clear();
+            if (failure != null) throw failure;
+        }
+    }
+
+    private static class Head implements Comparable<Head> {
+        private final WordReader input;
+        private String word;
+
+        Head(WordReader input) {
+            this.input = input;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            return this.word.compareTo(other.word);
+        }
+    }
+}
@@ -1,23 +1,42 @@
 package edu.isu.cs2235.structures.implementations;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import edu.isu.cs2235.structures.implementations.TrieNode;
-import edu.isu.cs2235.structures.implementations.Trie;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import edu.isu.cs2235.structures.WordReader;
 
 /**
  * A class meant to read in the word list from a text file, and insert the characters into corresponding nodes in a trie.
- * @implNote The reader assumes that each line of text in the file equates to a word. Will not take a CSV file.
+ * @implNote Word lists are streamed through a WordReader, picked by openWordList from the file's extension(plain text,
+ * json, or word/frequency tsv, optionally gzip or deflate compressed), so the file is never held in memory.
  * @implNote When adding a new word, I decided to backtrack through the ancestors of the last added letter until I reach
  * a shared node between the previous word and the next word to add to the tree, instead of starting at root, resulting
- * in filling the trie 10% faster.
+ * in filling the trie 10% faster. This works best on sorted input, so unsorted or multiple word lists can be run through
+ * an ExternalSorter first(readInUnsorted, readInMerged).
  * @author Brandon Watkins
  */
 public class FillTree {
     Trie tree;
     String prevWord;
     String currentWord;
+    int pointerDepth = 0;//The number of letters from root down to the trie's pointer.
     boolean out = false;//To show how long it takes to fill the tree.
+    boolean buildAnagramIndex = false;
+    boolean buildReverseTrie = false;
+    boolean buildPhoneticIndex = false;
+    boolean buildTrigramIndex = false;
+    boolean buildPerfectHash = false;
+    int packedLevels = 0;
+    long[] wordHashes = null;
+    int numberOfHashes = 0;
+    PhoneticIndex phoneticIndex = null;
+    TrigramIndex trigramIndex = null;
+    BKTree bkTree = null;
 
     public FillTree(){
         this.tree = new Trie();
@@ -25,58 +44,302 @@ public class FillTree {
         this.currentWord = null;
     }
 
+    /**
+     * Get or Set whether an anagram index(see AnagramIndex) is built alongside the trie, as the words are read in.
+     * @param buildAnagramIndex True to build the anagram index.
+     * @return This FillTree.
+     */
+    public FillTree buildAnagramIndex(boolean buildAnagramIndex){
+        this.buildAnagramIndex = buildAnagramIndex;
+        return this;
+    }
+
+    /**
+     * Set whether a reverse word trie(see Trie.reverse) is built alongside the trie, as the words are read in, to speed
+     * up the prefix side and middle edit searches.
+     * @param buildReverseTrie True to build the reverse trie.
+     * @return This FillTree.
+     */
+    public FillTree buildReverseTrie(boolean buildReverseTrie){
+        this.buildReverseTrie = buildReverseTrie;
+        return this;
+    }
+
+    /**
+     * Set whether a sound-alike index(see PhoneticIndex) is built alongside the trie, as the words are read in.
+     * @param buildPhoneticIndex True to build the phonetic index.
+     * @return This FillTree.
+     */
+    public FillTree buildPhoneticIndex(boolean buildPhoneticIndex){
+        this.buildPhoneticIndex = buildPhoneticIndex;
+        return this;
+    }
+
+    /**
+     * Set whether a trigram index(see TrigramIndex) is built alongside the trie, as the words are read in.
+     * @param buildTrigramIndex True to build the trigram index.
+     * @return This FillTree.
+     */
+    public FillTree buildTrigramIndex(boolean buildTrigramIndex){
+        this.buildTrigramIndex = buildTrigramIndex;
+        return this;
+    }
+
+    /**
+     * Set whether a BK-tree(see BKTree) is built alongside the trie, from the words as they're read in.
+     * @param buildBKTree True to build the BK-tree.
+     * @return This FillTree.
+     */
+    public FillTree buildBKTree(boolean buildBKTree){
+        this.bkTree = buildBKTree ? new BKTree() : null;
+        return this;
+    }
+
+    /**
+     * Set whether a perfect hash dictionary(see PerfectHashDictionary) is built from the words as they're read in, and
+     * used as the trie's findWord backend.
+     * @param buildPerfectHash True to build the perfect hash dictionary.
+     * @return This FillTree.
+     */
+    public FillTree buildPerfectHash(boolean buildPerfectHash){
+        this.buildPerfectHash = buildPerfectHash;
+        return this;
+    }
+
+    /**
+     * Set the number of the trie's top levels whose nodes get their children's letters packed, once the words are read
+     * in(see Trie.packChildLabels).
+     * @param packedLevels The number of levels to pack, starting with root. 0 for none.
+     * @return This FillTree.
+     */
+    public FillTree packChildLabels(int packedLevels){
+        this.packedLevels = packedLevels;
+        return this;
+    }
+
     public Trie readInFile(String filePath) throws IOException {
         try {
-            long time = System.currentTimeMillis();
             System.out.println("\r\nLoading word list...");
-            //Open word list file
-            File file = new File(filePath);
-            BufferedReader fileReader = new BufferedReader(new FileReader(file), 50000);
-            String[] currentLine;
+            return readIn(openWordList(filePath));
+        }
+        catch (Exception e){
+            System.out.println("Error trying to read file " + filePath + ".");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Reads every word from the word reader into a new trie, closing the reader when done.
+     * @param wordReader The word list to read in, in any of the supported formats.
+     * @return The filled trie.
+     * @throws IOException when the reader has an issue reading the word list.
+     */
+    public Trie readIn(WordReader wordReader) throws IOException {
+        try {
+            long time = System.currentTimeMillis();
+            String word;
             this.tree = new Trie();
-            while (fileReader.ready() && (currentLine = fileReader.readLine().split(",")) != null){
-                //For each word in the word list file...
-                for (int w = 0; w < currentLine.length; w++) {
+            if (this.buildAnagramIndex) this.tree.anagramIndex(new AnagramIndex(this.tree));
+            if (this.buildReverseTrie) this.tree.reverse(new Trie());
+            this.phoneticIndex = this.buildPhoneticIndex ? new PhoneticIndex(this.tree) : null;
+            this.trigramIndex = this.buildTrigramIndex ? new TrigramIndex(this.tree) : null;
+            this.wordHashes = this.buildPerfectHash ? new long[1024] : null;
+            this.numberOfHashes = 0;
+            this.prevWord = null;
+            this.pointerDepth = 0;
+            //For each word in the word list...
+            while ((word = wordReader.nextWord()) != null){
 
-                    if (incorrectlyFormattedWord(currentLine, w, filePath)) continue;
+                if (incorrectlyFormattedWord(word)) continue;
 
-                    int numberOfGenerationsToMoveDownTrie = determineGenerationsToLastSharedNode();
+                int numberOfGenerationsToMoveDownTrie = determineGenerationsToLastSharedNode();
 
-                     pointToSharedNode(numberOfGenerationsToMoveDownTrie);
+                pointToSharedNode(numberOfGenerationsToMoveDownTrie);
 
-                    addWordToTrie();
-                }
+                addWordToTrie();
+            }
+            if (this.phoneticIndex != null) this.tree.phoneticIndex(this.phoneticIndex.build());
+            if (this.trigramIndex != null) this.tree.trigramIndex(this.trigramIndex.build());
+            if (this.wordHashes != null) {
+                this.tree.perfectHash(PerfectHashDictionary.build(Arrays.copyOf(this.wordHashes, this.numberOfHashes)));
+            }
+            if (this.packedLevels > 0) this.tree.packChildLabels(this.packedLevels);
+            this.phoneticIndex = null;
+            this.trigramIndex = null;
+            this.wordHashes = null;
+            if (this.bkTree != null) {
+                this.tree.bkTree(this.bkTree);
+                this.bkTree = new BKTree();
             }
-            fileReader.close();
             if (out) System.out.println("\r\nWord list loaded, in " + (System.currentTimeMillis() - time) + "ms.");
             else System.out.println("\r\nWord list loaded.");
             return this.tree;
         }
+        finally {
+            wordReader.close();
+        }
+    }
+
+    /**
+     * Reads every word from the word reader into a new off-heap trie(see ArenaTrie), closing the reader when done. None
+     * of the indexes are built for it. Once read, the nodes are laid out for faster lookups(see ArenaTrie.relayout).
+     * @param wordReader The word list to read in, in any of the supported formats. Sorted lists fill fastest.
+     * @return The filled off-heap trie. Close it when it's no longer needed.
+     * @throws IOException when the reader has an issue reading the word list.
+     */
+    public ArenaTrie readInOffHeap(WordReader wordReader) throws IOException {
+        ArenaTrie arena = new ArenaTrie();
+        try {
+            long time = System.currentTimeMillis();
+            String word;
+            //For each word in the word list...
+            while ((word = wordReader.nextWord()) != null){
+                if (incorrectlyFormattedWord(word)) continue;
+                arena.addFormatted(this.currentWord);
+            }
+            if (out) System.out.println("\r\nWord list loaded off-heap, in " + (System.currentTimeMillis() - time) + "ms.");
+            else System.out.println("\r\nWord list loaded.");
+            arena.relayout();
+            return arena;
+        }
+        catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+        finally {
+            wordReader.close();
+        }
+    }
+
+    /**
+     * Reads unsorted word lists(or several lists that need combining) into a new trie. The words are formatted, then
+     * sorted and de-duplicated with bounded memory by an ExternalSorter, before being streamed into the trie.
+     * @param filePaths The word lists to read in, in any order.
+     * @return The filled trie, or null if a word list couldn't be read.
+     * @throws IOException when a word list has an issue being read.
+     */
+    public Trie readInUnsorted(String... filePaths) throws IOException {
+        try {
+            System.out.println("\r\nSorting word list...");
+            return readIn(new ExternalSorter().sort(openFormattedWordLists(filePaths)));
+        }
         catch (Exception e){
-            System.out.println("Error trying to read file " + filePath + ".");
+            System.out.println("Error trying to sort word lists.");
             e.printStackTrace();
             return null;
         }
     }
 
     /**
-     * Formats the current word, determining if using json wordlist and removing quotes, and trims white space from
-     * currentWord. If currentWord ends in "-", it is just a prefix marker for the wordlist. If the word is a single
-     * character, only 'a' and 'i' are considered words, unsure why the word lists all consider 'b' a word, etc.
-     * @param currentLine The current line being read from the file.
-     * @param currentLineIndex The index of currentWord in currentLine.
-     * @param filePath The file path for the word list being read in.
-     * @return True if word doesn't meet requirements for a word, go to next word.
+     * Reads several already sorted word lists(for example, a base word list plus domain glossaries) into a new trie,
+     * k-way merging them into one sorted stream as they're read.
+     * @param filePaths The sorted word lists to read in.
+     * @return The filled trie, or null if a word list couldn't be read.
+     * @throws IOException when a word list has an issue being read.
      */
-    public boolean incorrectlyFormattedWord(String[] currentLine, int currentLineIndex, String filePath){
-        this.currentWord = currentLine[currentLineIndex].trim();
-        if(filePath.contains("words_dictionary.json")){
-            int firstQuotes = this.currentWord.indexOf('"') + 1;
-            int secondQuotes = this.currentWord.indexOf('"', firstQuotes);
-            if (firstQuotes == -1 || secondQuotes == -1) return true;
-            this.currentWord = this.currentWord.substring(firstQuotes, secondQuotes);
+    public Trie readInMerged(String... filePaths) throws IOException {
+        try {
+            System.out.println("\r\nMerging word lists...");
+            return readIn(ExternalSorter.merge(openFormattedWordLists(filePaths)));
         }
-        this.currentWord = this.currentWord.trim();
+        catch (Exception e){
+            System.out.println("Error trying to merge word lists.");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Opens each word list, skipping and formatting words the same way readIn does, so they sort the way the trie
+     * stores them.
+     * @param filePaths The word lists to open.
+     * @return A formatted word reader for each word list.
+     * @throws IOException when a word list can't be opened.
+     */
+    private static ArrayList<WordReader> openFormattedWordLists(String... filePaths) throws IOException {
+        ArrayList<WordReader> readers = new ArrayList<>();
+        try {
+            for (String filePath : filePaths) readers.add(formatted(openWordList(filePath)));
+        }
+        catch (IOException e) {
+            for (WordReader reader : readers) reader.close();
+            throw e;
+        }
+        return readers;
+    }
+
+    /**
+     * Wraps a word reader, so it only gives correctly formatted(see incorrectlyFormattedWord) words.
+     * @param wordReader The word reader to wrap.
+     * @return A word reader giving the formatted words.
+     */
+    public static WordReader formatted(WordReader wordReader) {
+        FillTree formatter = new FillTree();
+        return new WordReader() {
+            @Override
+            public String nextWord() throws IOException {
+                String word;
+                while ((word = wordReader.nextWord()) != null) {
+                    if (!formatter.incorrectlyFormattedWord(word)) return formatter.currentWord;
+                }
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                wordReader.close();
+            }
+        };
+    }
+
+    /**
+     * Opens a word list for streaming, picking the reader by the file's extension: ".json" for a json object or array
+     * of words, ".tsv" for a word/frequency list, and anything else for a word per line(or comma separated) list.
+     * Gzip compressed lists(".gz", or starting with the gzip magic number) and zlib deflated lists(".deflate", ".zz")
+     * are decompressed as they're read.
+     * @param filePath The word list's file path.
+     * @return A word reader for the file.
+     * @throws IOException when the file can't be opened.
+     */
+    public static WordReader openWordList(String filePath) throws IOException {
+        String name = filePath.toLowerCase();
+        BufferedInputStream stream = new BufferedInputStream(new FileInputStream(filePath), 50000);
+        InputStream input = stream;
+        try {
+            if (name.endsWith(".deflate") || name.endsWith(".zz")) {
+                input = new InflaterInputStream(stream, new Inflater(), 50000);
+                name = name.substring(0, name.lastIndexOf('.'));
+            }
+            else {
+                // look for the gzip magic number, so compressed lists work whatever they're named.
+                stream.mark(2);
+                boolean gzip = stream.read() == 0x1f && stream.read() == 0x8b;
+                stream.reset();
+                if (gzip) input = new GZIPInputStream(stream, 50000);
+                if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+            }
+        }
+        catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        if (name.endsWith(".json")) return new JsonWordReader(reader);
+        if (name.endsWith(".tsv")) return new FrequencyWordReader(reader);
+        return new LineWordReader(reader);
+    }
+
+    /**
+     * Formats the current word, trimming white space from currentWord. If currentWord ends in "-", it is just a prefix
+     * marker for the wordlist. If the word is a single character, only 'a' and 'i' are considered words, unsure why the
+     * word lists all consider 'b' a word, etc.
+     * @param word The word, as read from the word list.
+     * @return True if word doesn't meet requirements for a word, go to next word.
+     */
+    public boolean incorrectlyFormattedWord(String word){
+        this.currentWord = word.trim();
+        if (this.currentWord.length() == 0) return true;
         //If word ends with "-", move onto next word. This is just marking prefixes in my word list file.
         if (this.currentWord.endsWith("-")) return true;
         this.currentWord = this.currentWord.toLowerCase();
@@ -114,11 +377,13 @@ public class FillTree {
         //if the words had no common nodes, set pointer to root.
         if (this.prevWord == null || generationsToBackTrack == this.prevWord.length()){
             this.tree.pointer(this.tree.root());
+            this.pointerDepth = 0;
         }
         else {
             // for each letter/node/generation that we need to backtrack...
             for (int j = 0; j < generationsToBackTrack && this.tree.pointer() != this.tree.root(); j++) {
                 this.tree.pointer(this.tree.pointer().parent());
+                this.pointerDepth--;
             }
         }
     }
@@ -129,20 +394,34 @@ public class FillTree {
      */
     public void addWordToTrie(){
         // for each new letter, from the last shared node...
-        for (int currentIndex = this.tree.pointer().length(); currentIndex < this.currentWord.length(); currentIndex++) {
-            boolean endOfWord = false;
-            if (currentIndex == this.currentWord.length() - 1) endOfWord = true;
-            // Create a new child TrieNode with the new letter
-            TrieNode newNode = this.tree.pointer().addChild(this.currentWord.charAt(currentIndex), endOfWord);
-            this.tree.incNodeCount();
-            //mark the letter if it completes the word, increase the word count.
-            if (endOfWord) {
-                this.prevWord = this.currentWord;
-                this.tree.incWordCount();
-            }
+        //the pointer's depth is kept as it moves, rather than counting its ancestors(TrieNode.length) for every word.
+        for (int currentIndex = this.pointerDepth; currentIndex < this.currentWord.length(); currentIndex++) {
+            // Create a new child TrieNode with the new letter(only counted if it didn't already exist)
+            TrieNode newNode = this.tree.addChild(this.tree.pointer(), this.currentWord.charAt(currentIndex));
             // set pointer to the new node
             this.tree.pointer(newNode);
         }
+        this.pointerDepth = Math.max(this.pointerDepth, this.currentWord.length());
+        //mark the last letter as completing the word, increase the word count if it's a new word. With unsorted input,
+        //the word may have been a prefix of the previous word, and not needed any new nodes.
+        //The word gets the next word id, and is stored in the trie's word pool.
+        boolean isNewWord = this.tree.markWord(this.tree.pointer(), this.currentWord);
+        int wordId = this.tree.pointer().wordId();
+        if (isNewWord && this.tree.anagramIndex() != null) this.tree.anagramIndex().add(this.currentWord, wordId);
+        if (isNewWord && this.phoneticIndex != null) this.phoneticIndex.add(this.currentWord, wordId);
+        if (isNewWord && this.trigramIndex != null) this.trigramIndex.add(this.currentWord, wordId);
+        if (isNewWord && this.bkTree != null) this.bkTree.add(this.currentWord);
+        if (isNewWord && this.wordHashes != null) {
+            if (this.numberOfHashes == this.wordHashes.length) {
+                this.wordHashes = Arrays.copyOf(this.wordHashes, this.numberOfHashes * 2);
+            }
+            this.wordHashes[this.numberOfHashes++] = PerfectHashDictionary.hash(this.currentWord);
+        }
+        //reversed words don't come in sorted order, so each one is added from the reverse trie's root.
+        if (isNewWord && this.tree.reverse() != null) {
+            this.tree.reverse().add(new StringBuilder(this.currentWord).reverse().toString());
+        }
+        this.prevWord = this.currentWord;
     }
 
 }
@@ -0,0 +1,70 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.WordReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads a tab separated frequency list, where each line holds a word and(optionally) how often it occurs.
+ * Blank lines and lines starting with '#' are skipped.
+ * @author Brandon Watkins
+ */
+public class FrequencyWordReader implements WordReader {
+
+    private final BufferedReader reader;
+    private long frequency;
+
+    public FrequencyWordReader(Reader reader) {
+        this.reader = new BufferedReader(reader, 50000);
+        this.frequency = 0;
+    }
+
+    @Override
+    public String nextWord() throws IOException {
+        String line;
+        while ((line = this.reader.readLine()) != null) {
+            if (line.length() == 0 || line.charAt(0) == '#') continue;
+            int tab = line.indexOf('\t');
+            if (tab == -1) {
+                this.frequency = 0;
+                return line;
+            }
+            this.frequency = parseFrequency(line, tab + 1);
+            return line.substring(0, tab);
+        }
+        return null;
+    }
+
+    /**
+     * The frequency listed with the last word read.
+     * @return The last word's frequency, or 0 if it didn't have one.
+     */
+    public long frequency() {
+        return this.frequency;
+    }
+
+    /**
+     * Parses the digits in the count column, without making a substring.
+     * @param line The line being read.
+     * @param start The index just after the tab.
+     * @return The count, or 0 if it isn't a number.
+     */
+    private static long parseFrequency(String line, int start) {
+        long count = 0;
+        int i = start;
+        for (; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') break;
+            count = count * 10 + (c - '0');
+        }
+        if (i == start) return 0;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
@@ -0,0 +1,172 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.WordReader;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streams the words out of a json word list, either an object whose keys are the words({"a": 1, "aa": 1, ...}), or
+ * an array of word strings(["a", "aa", ...]).
+ * @implNote Reads straight out of its own char buffer, so only the words themselves are ever made into Strings. Values
+ * in a json object, and anything that isn't a string in a json array, are skipped without being parsed.
+ * @author Brandon Watkins
+ */
+public class JsonWordReader implements WordReader {
+
+    private final Reader reader;
+    private final char[] buffer;
+    private final StringBuilder word;
+    private int position;
+    private int limit;
+    private boolean inObject;
+    private boolean started;
+    private boolean finished;
+
+    public JsonWordReader(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[50000];
+        this.word = new StringBuilder(32);
+        this.position = 0;
+        this.limit = 0;
+    }
+
+    @Override
+    public String nextWord() throws IOException {
+        if (this.finished) return null;
+        if (!this.started) {
+            this.started = true;
+            int open = nextToken();
+            if (open == '{') this.inObject = true;
+            else if (open != '[') throw new IOException("Expected a json object or array, found '" + (char) open + "'.");
+            if (peekToken() == (this.inObject ? '}' : ']')) {
+                this.finished = true;
+                return null;
+            }
+        }
+        while (true) {
+            int c = nextToken();
+            if (c == -1) throw new IOException("Unexpected end of json word list.");
+            String found = null;
+            if (this.inObject) {
+                if (c != '"') throw new IOException("Expected a json key, found '" + (char) c + "'.");
+                found = readString();
+                if (nextToken() != ':') throw new IOException("Expected ':' after json key \"" + found + "\".");
+                skipValue(nextToken());
+            }
+            else if (c == '"') found = readString();
+            else skipValue(c);
+            // after each entry comes either a comma, or the end of the list.
+            int separator = nextToken();
+            if (separator == '}' || separator == ']') this.finished = true;
+            else if (separator != ',') throw new IOException("Expected ',' in json word list, found '" + (char) separator + "'.");
+            if (found != null) return found;
+            if (this.finished) return null;
+        }
+    }
+
+    /**
+     * Reads the rest of a json string(the opening quote has already been read), handling escapes.
+     * @return The string's contents.
+     * @throws IOException when the string isn't terminated.
+     */
+    private String readString() throws IOException {
+        this.word.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == -1) throw new IOException("Unterminated json string.");
+            if (c == '"') return this.word.toString();
+            if (c == '\\') {
+                int escaped = read();
+                switch (escaped) {
+                    case 'n': c = '\n'; break;
+                    case 't': c = '\t'; break;
+                    case 'r': c = '\r'; break;
+                    case 'b': c = '\b'; break;
+                    case 'f': c = '\f'; break;
+                    case 'u':
+                        c = 0;
+                        for (int i = 0; i < 4; i++) c = (c << 4) + Character.digit(read(), 16);
+                        break;
+                    default: c = escaped;
+                }
+            }
+            this.word.append((char) c);
+        }
+    }
+
+    /**
+     * Skips over a json value of any type(including nested objects and arrays), without building it.
+     * @param first The value's first non-whitespace character.
+     * @throws IOException when the value isn't terminated.
+     */
+    private void skipValue(int first) throws IOException {
+        if (first == '"') {
+            skipString();
+            return;
+        }
+        if (first == '{' || first == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                int c = read();
+                if (c == -1) throw new IOException("Unterminated json value.");
+                if (c == '"') skipString();
+                else if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+            }
+            return;
+        }
+        // numbers, true, false, null: read up to the next separator.
+        int c;
+        while ((c = peek()) != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) this.position++;
+    }
+
+    private void skipString() throws IOException {
+        int c;
+        while ((c = read()) != '"') {
+            if (c == -1) throw new IOException("Unterminated json string.");
+            if (c == '\\') read();
+        }
+    }
+
+    /**
+     * @return The next non-whitespace character, or -1 at the end of input.
+     */
+    private int nextToken() throws IOException {
+        int c;
+        while ((c = read()) != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    /**
+     * @return The next non-whitespace character(without consuming it), or -1 at the end of input.
+     */
+    private int peekToken() throws IOException {
+        int c;
+        while ((c = peek()) != -1 && Character.isWhitespace(c)) this.position++;
+        return c;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) this.position++;
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (this.position >= this.limit) {
+            this.limit = this.reader.read(this.buffer, 0, this.buffer.length);
+            this.position = 0;
+            if (this.limit <= 0) {
+                this.limit = 0;
+                return -1;
+            }
+        }
+        return this.buffer[this.position];
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
@@ -0,0 +1,40 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.WordReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads a plain text word list, where each line holds a word(or several comma separated words).
+ * @author Brandon Watkins
+ */
+public class LineWordReader implements WordReader {
+
+    private final BufferedReader reader;
+    private String[] currentLine;
+    private int currentLineIndex;
+
+    public LineWordReader(Reader reader) {
+        this.reader = new BufferedReader(reader, 50000);
+        this.currentLine = new String[0];
+        this.currentLineIndex = 0;
+    }
+
+    @Override
+    public String nextWord() throws IOException {
+        while (this.currentLineIndex >= this.currentLine.length) {
+            String line = this.reader.readLine();
+            if (line == null) return null;
+            this.currentLine = line.split(",");
+            this.currentLineIndex = 0;
+        }
+        return this.currentLine[this.currentLineIndex++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
@@ -0,0 +1,339 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A word/bigram/trigram model, counted from a local text corpus, used to rank spelling suggestions by how well they fit
+ * between the words around the misspelling("...the [cat] sat..." over "...the [cot] sat...").
+ * @implNote The corpus' words are kept in the model's own trie, so each distinct word gets a dense word id(see
+ * TrieNode.wordId). An n-gram is its words' ids packed into a long(21 bits each), stored in an open addressing(linear
+ * probing) table of primitive longs, so n-grams never collide and a lookup never allocates. Counts are kept as ints
+ * while counting, then build() quantizes them to a byte each(a log2 scale), leaving 9 bytes per slot. Words ignore
+ * case and anything but letters and apostrophes.
+ * @implNote While counting, words are looked up in the trie a character at a time. Once built, scoring finds a word's
+ * id by its 64 bit hash instead, in a second(much smaller) table, rather than following a node(and likely a cache
+ * miss) per letter. A word outside the vocabulary could share a word's hash, but it's rare enough not to matter for
+ * ranking.
+ * @implNote The model has its own trie, rather than using the dictionary's word ids, so it doesn't need rebuilding
+ * when the dictionary is reloaded, and words that aren't in the dictionary still give context.
+ * @author Brandon Watkins
+ */
+public class NGramModel {
+
+    private static final long EMPTY = 0;
+    private static final int ID_BITS = 21;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    /**
+     * The most distinct words the model can count. Words seen after that many are skipped, like punctuation.
+     */
+    public static final int MAX_WORDS = (1 << ID_BITS) - 2;
+
+    private final Trie vocabulary = new Trie();
+    private long[] wordHashes;
+    private int[] wordIds;
+    private long[] keys;
+    private int[] counts;
+    private byte[] quantized;
+    private int size;
+    private int mask;
+
+    /**
+     * @param expectedNGrams About how many distinct n-grams will be counted, to size the table.
+     */
+    public NGramModel(int expectedNGrams) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedNGrams / 0.75)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.counts = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public NGramModel() {
+        this(1 << 16);
+    }
+
+    /**
+     * Counts every unigram, bigram, and trigram in a text file, and builds the model.
+     * @param filePath The corpus.
+     * @return The built model.
+     * @throws IOException when the corpus can't be read.
+     */
+    public static NGramModel fromCorpus(String filePath) throws IOException {
+        NGramModel model = new NGramModel();
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8), 50000)) {
+            model.addText(reader);
+        }
+        return model.build();
+    }
+
+    /**
+     * Counts every unigram, bigram, and trigram in the text, streaming it a character at a time.
+     * @param text The text to count.
+     * @throws IOException when the reader has an issue reading.
+     */
+    public void addText(Reader text) throws IOException {
+        if (this.counts == null) throw new IllegalStateException("The model has already been built.");
+        char[] buffer = new char[8192];
+        StringBuilder word = new StringBuilder();
+        // the current word's node, while it's already in the vocabulary, so repeated words don't need a String.
+        TrieNode node = this.vocabulary.root();
+        long twoBack = 0;
+        long oneBack = 0;
+        boolean inWord = false;
+        int read;
+        while ((read = text.read(buffer)) != -1 || inWord) {
+            // one extra pass at the end of the text, to finish the last word.
+            if (read == -1) {
+                buffer[0] = ' ';
+                read = 1;
+            }
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                char lower = lower(c);
+                if (lower != 0) {
+                    word.append(lower);
+                    if (node != null) node = this.vocabulary.find(lower, node);
+                    inWord = true;
+                    continue;
+                }
+                if (inWord) {
+                    long id = node != null && node.isEndOfWord() ? node.wordId() + 1 : idOf(word.toString());
+                    if (id != 0) {
+                        count(id);
+                        if (oneBack != 0) count(key(oneBack, id));
+                        if (twoBack != 0) count(key(twoBack, oneBack, id));
+                    }
+                    twoBack = id == 0 ? 0 : oneBack;
+                    oneBack = id;
+                    word.setLength(0);
+                    node = this.vocabulary.root();
+                    inWord = false;
+                }
+                // sentence breaks end the context.
+                if (c == '.' || c == '!' || c == '?') {
+                    twoBack = 0;
+                    oneBack = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a new word to the vocabulary.
+     * @return The word's id plus 1(so 0 can mean no word), or 0 if the vocabulary is full.
+     */
+    private long idOf(String word) {
+        if (this.vocabulary.numberOfWords() >= MAX_WORDS) return 0;
+        return this.vocabulary.add(word).wordId() + 1;
+    }
+
+    private void count(long key) {
+        int slot = slot(key);
+        while (this.keys[slot] != EMPTY && this.keys[slot] != key) slot = (slot + 1) & this.mask;
+        if (this.keys[slot] == EMPTY) {
+            this.keys[slot] = key;
+            this.size++;
+        }
+        if (this.counts[slot] < Integer.MAX_VALUE) this.counts[slot]++;
+        if (this.size > this.keys.length * 3 / 4) grow();
+    }
+
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldCounts = this.counts;
+        this.keys = new long[oldKeys.length * 2];
+        this.counts = new int[oldKeys.length * 2];
+        this.mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = slot(oldKeys[i]);
+            while (this.keys[slot] != EMPTY) slot = (slot + 1) & this.mask;
+            this.keys[slot] = oldKeys[i];
+            this.counts[slot] = oldCounts[i];
+        }
+    }
+
+    /**
+     * Quantizes the counts to a byte each(1 + 16 * log2(count), capped at 255), and drops the int counts. No more text
+     * can be added after this.
+     * @return This model.
+     */
+    public NGramModel build() {
+        if (this.counts == null) return this;
+        this.quantized = new byte[this.keys.length];
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.counts[i] == 0) continue;
+            int log = 1 + (int) (16 * (Math.log(this.counts[i]) / Math.log(2)));
+            this.quantized[i] = (byte) Math.min(255, log);
+        }
+        this.counts = null;
+        indexWords();
+        return this;
+    }
+
+    /**
+     * Indexes each word's hash to its id, for scoring.
+     */
+    private void indexWords() {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (this.vocabulary.numberOfWords() / 0.75)) - 1) << 1;
+        this.wordHashes = new long[capacity];
+        this.wordIds = new int[capacity];
+        for (String word : this.vocabulary) {
+            long hash = hash(word);
+            int slot = (int) mix(hash) & (capacity - 1);
+            while (this.wordHashes[slot] != EMPTY && this.wordHashes[slot] != hash) slot = (slot + 1) & (capacity - 1);
+            this.wordHashes[slot] = hash;
+            this.wordIds[slot] = this.vocabulary.wordId(word) + 1;
+        }
+    }
+
+    /**
+     * Get the quantized count of an n-gram.
+     * @return The n-gram's quantized count(0 to 255), 0 if it was never seen.
+     */
+    private int quantizedCount(long key) {
+        int slot = slot(key);
+        long found;
+        while ((found = this.keys[slot]) != EMPTY) {
+            if (found == key) return this.quantized[slot] & 0xff;
+            slot = (slot + 1) & this.mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Scores how well the word fits between the previous and next words. Higher is a better fit. Doesn't allocate.
+     * @param previous The word before, or null if none.
+     * @param word The candidate word.
+     * @param next The word after, or null if none.
+     * @return The word's score. Like a backoff model, a trigram outweighs any bigrams, and bigrams outweigh the word's
+     * own count.
+     */
+    public int score(CharSequence previous, CharSequence word, CharSequence next) {
+        if (this.quantized == null) throw new IllegalStateException("The model hasn't been built.");
+        long w = id(word);
+        if (w == 0) return 0;
+        long p = previous == null ? 0 : id(previous);
+        long n = next == null ? 0 : id(next);
+        int bigrams = 0;
+        if (p != 0) bigrams += quantizedCount(key(p, w));
+        if (n != 0) bigrams += quantizedCount(key(w, n));
+        int trigram = p != 0 && n != 0 ? quantizedCount(key(p, w, n)) : 0;
+        // trigram in the top bits, then the bigrams(up to 510), then the word's own count.
+        return (trigram << 17) | (bigrams << 8) | quantizedCount(w);
+    }
+
+    /**
+     * Sorts the candidates by how well they fit between the previous and next words, best first. Candidates that score
+     * the same keep their order.
+     * @param candidates The candidate words, sorted in place.
+     * @param previous The word before, or null if none.
+     * @param next The word after, or null if none.
+     */
+    public void rerank(List<String> candidates, String previous, String next) {
+        int[] scores = new int[candidates.size()];
+        ArrayList<String> words = new ArrayList<>(candidates);
+        for (int i = 0; i < scores.length; i++) scores[i] = score(previous, words.get(i), next);
+        Integer[] order = new Integer[scores.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> scores[b] - scores[a]);
+        for (int i = 0; i < order.length; i++) candidates.set(i, words.get(order[i]));
+    }
+
+    /**
+     * @return The number of distinct n-grams in the model.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The number of distinct words in the model.
+     */
+    public int numberOfWords() {
+        return this.vocabulary.numberOfWords();
+    }
+
+    /**
+     * @return About how many bytes the model's tables take up(not counting its vocabulary's trie).
+     */
+    public long memoryBytes() {
+        long words = this.wordHashes != null ? (long) this.wordHashes.length * 12 : 0;
+        return words + (long) this.keys.length * 8 + (this.quantized != null ? this.quantized.length : (long) this.counts.length * 4);
+    }
+
+    /**
+     * Looks up a word's letters and apostrophes in the vocabulary, ignoring case.
+     * @return The word's id plus 1, or 0 if it isn't in the vocabulary.
+     */
+    private long id(CharSequence word) {
+        long hash = hash(word);
+        int mask = this.wordHashes.length - 1;
+        int slot = (int) mix(hash) & mask;
+        long found;
+        while ((found = this.wordHashes[slot]) != EMPTY) {
+            if (found == hash) return this.wordIds[slot];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Hashes a word's letters and apostrophes, ignoring case.
+     * @return The word's hash, never EMPTY.
+     */
+    private static long hash(CharSequence word) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < word.length(); i++) {
+            char lower = lower(word.charAt(i));
+            if (lower != 0) hash = (hash ^ lower) * PRIME;
+        }
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    /**
+     * @return The character in lower case, if it's a letter or apostrophe, otherwise 0.
+     */
+    private static char lower(char c) {
+        if (c >= 'a' && c <= 'z' || c == '\'') return c;
+        if (c >= 'A' && c <= 'Z') return (char) (c + ('a' - 'A'));
+        if (c > 127 && Character.isLetter(c)) return Character.toLowerCase(c);
+        return 0;
+    }
+
+    /**
+     * Packs a bigram's word ids(plus 1). A unigram's key is just its id, which is smaller than any bigram's, and every
+     * bigram's is smaller than any trigram's, so the 3 can't collide. None are ever EMPTY.
+     */
+    private static long key(long a, long b) {
+        return (a << ID_BITS) | b;
+    }
+
+    private static long key(long a, long b, long c) {
+        return (a << (2 * ID_BITS)) | (b << ID_BITS) | c;
+    }
+
+    private int slot(long key) {
+        return (int) mix(key) & this.mask;
+    }
+
+    /**
+     * Spreads the key's bits(murmur3's finalizer), so the low bits make a good table slot.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
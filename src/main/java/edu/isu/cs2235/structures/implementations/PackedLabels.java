@@ -0,0 +1,85 @@
+package edu.isu.cs2235.structures.implementations;
+
+/**
+ * A copy of a node's children, with their letters packed into an array, so finding a child compares the letter against
+ * several children at once, instead of following the sibling list one node(and likely one cache miss) at a time. Used
+ * for the nodes with many children, near the top of the trie, which every lookup goes through(see
+ * Trie.packChildLabels).
+ * @implNote The letters are packed 4 to a long, 16 bits each, first child in the lowest bits. A lookup xors each long
+ * with the letter repeated in every lane, so matching lanes become 0, then finds the zero lanes without any carries
+ * between lanes: ((x &amp; 0x7FFF) + 0x7FFF) has the lane's top bit set when any low bit is, so or-ing in x and the low
+ * bits, and negating, leaves only the top bit of each zero lane. The lowest set bit gives the child's index.
+ * @author Brandon Watkins
+ */
+public class PackedLabels {
+
+    /**
+     * The fewest children a node needs to be worth packing.
+     */
+    public static final int MIN_CHILDREN = 8;
+
+    private static final int LANES = 4;
+    private static final long ONES = 0x0001000100010001L;
+    private static final long LOW_BITS = 0x7FFF7FFF7FFF7FFFL;
+
+    private final long[] labels;
+    private final TrieNode[] children;
+
+    private PackedLabels(long[] labels, TrieNode[] children) {
+        this.labels = labels;
+        this.children = children;
+    }
+
+    /**
+     * Packs the node's children, in their sorted order.
+     * @param node The node whose children to pack.
+     * @return The packed children.
+     */
+    public static PackedLabels of(TrieNode node) {
+        int count = 0;
+        for (TrieNode child = node.firstChild(); child != null; child = child.next()) count++;
+        TrieNode[] children = new TrieNode[count];
+        long[] labels = new long[(count + LANES - 1) / LANES];
+        int i = 0;
+        for (TrieNode child = node.firstChild(); child != null && i < count; child = child.next()) {
+            children[i] = child;
+            labels[i / LANES] |= (long) child.value() << (16 * (i % LANES));
+            i++;
+        }
+        return new PackedLabels(labels, children);
+    }
+
+    /**
+     * Finds the child holding the letter.
+     * @param letter The letter to search for.
+     * @return The child's index, in sorted order, or -1 if not found.
+     */
+    public int indexOf(char letter) {
+        long pattern = letter * ONES;
+        for (int i = 0; i < this.labels.length; i++) {
+            long x = this.labels[i] ^ pattern;
+            long zeros = ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+            if (zeros != 0) {
+                // the unused lanes of the last long are 0, so they only match '\0', past the last child.
+                int index = i * LANES + (Long.numberOfTrailingZeros(zeros) >>> 4);
+                return index < this.children.length ? index : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param index The child's index, in sorted order.
+     * @return The child.
+     */
+    public TrieNode child(int index) {
+        return this.children[index];
+    }
+
+    /**
+     * @return The number of children.
+     */
+    public int size() {
+        return this.children.length;
+    }
+}
@@ -0,0 +1,224 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A compiled wildcard pattern, for crossword and glob style searches of a trie("c?t", "inter*tion", "[bc]at").
+ * Patterns can hold '?' for any single character, '*' for any number(including none) of characters, "[abc]" or "[a-z]"
+ * for any character in the set, "[!abc]"(or "[^abc]") for any character not in the set, and '\' to match the next
+ * character literally. Matching ignores case, like the rest of the trie.
+ * @implNote The pattern is compiled into a small NFA, where state i means the first i pattern elements have been
+ * matched, and the set of live states is kept in a long's bits. The trie is walked in lockstep with the NFA, and any
+ * child that leaves no live states is never visited. When every live state needs a specific letter, those children are
+ * looked up directly instead of scanning all of the node's children.
+ * @author Brandon Watkins
+ */
+public class PatternQuery {
+
+    private static final byte LITERAL = 0;
+    private static final byte ANY = 1;
+    private static final byte STAR = 2;
+    private static final byte CLASS = 3;
+
+    private final String pattern;
+    private final byte[] types;
+    private final char[] literals;
+    private final char[][] classRanges;
+    private final boolean[] negated;
+    private final int accept;
+    private final long start;
+
+    /**
+     * Compiles the pattern.
+     * @param pattern The wildcard pattern.
+     * @throws IllegalArgumentException when the pattern is malformed, or has more than 63 elements.
+     */
+    public PatternQuery(String pattern) throws IllegalArgumentException {
+        if (pattern == null) throw new IllegalArgumentException("Pattern is null.");
+        this.pattern = pattern;
+        String lower = pattern.trim().toLowerCase();
+        byte[] types = new byte[lower.length()];
+        char[] literals = new char[lower.length()];
+        char[][] classRanges = new char[lower.length()][];
+        boolean[] negated = new boolean[lower.length()];
+        int elements = 0;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c == '*') {
+                // repeated stars match the same thing as one star.
+                if (elements > 0 && types[elements - 1] == STAR) continue;
+                types[elements++] = STAR;
+            }
+            else if (c == '?') types[elements++] = ANY;
+            else if (c == '[') {
+                int close = lower.indexOf(']', i + 2);
+                if (close == -1) throw new IllegalArgumentException("Unclosed '[' in pattern " + pattern + ".");
+                int from = i + 1;
+                if (lower.charAt(from) == '!' || lower.charAt(from) == '^') {
+                    negated[elements] = true;
+                    from++;
+                }
+                classRanges[elements] = compileClass(lower, from, close);
+                types[elements++] = CLASS;
+                i = close;
+            }
+            else {
+                if (c == '\\' && i + 1 < lower.length()) c = lower.charAt(++i);
+                types[elements] = LITERAL;
+                literals[elements++] = c;
+            }
+        }
+        if (elements > 63) throw new IllegalArgumentException("Pattern " + pattern + " has more than 63 elements.");
+        this.types = Arrays.copyOf(types, elements);
+        this.literals = Arrays.copyOf(literals, elements);
+        this.classRanges = Arrays.copyOf(classRanges, elements);
+        this.negated = Arrays.copyOf(negated, elements);
+        this.accept = elements;
+        this.start = closure(1L);
+    }
+
+    /**
+     * Compiles a character class's contents into(low, high) range pairs.
+     * @return The ranges, as a flat array of low/high pairs.
+     */
+    private static char[] compileClass(String pattern, int from, int to) {
+        char[] ranges = new char[(to - from) * 2];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            char low = pattern.charAt(i);
+            char high = low;
+            if (i + 2 < to && pattern.charAt(i + 1) == '-') {
+                high = pattern.charAt(i + 2);
+                i += 2;
+            }
+            ranges[size++] = (char) Math.min(low, high);
+            ranges[size++] = (char) Math.max(low, high);
+        }
+        return Arrays.copyOf(ranges, size);
+    }
+
+    /**
+     * Determines if the pattern element matches the character.
+     */
+    private boolean matches(int element, char c) {
+        switch (this.types[element]) {
+            case LITERAL: return this.literals[element] == c;
+            case ANY: return true;
+            case CLASS:
+                char[] ranges = this.classRanges[element];
+                boolean inClass = false;
+                for (int i = 0; i < ranges.length && !inClass; i += 2) inClass = c >= ranges[i] && c <= ranges[i + 1];
+                return inClass != this.negated[element];
+            default: return false;
+        }
+    }
+
+    /**
+     * Adds the states reachable without reading a character(skipping over stars).
+     */
+    private long closure(long states) {
+        for (int i = 0; i < this.accept; i++) {
+            if (this.types[i] == STAR && (states & (1L << i)) != 0) states |= 1L << (i + 1);
+        }
+        return states;
+    }
+
+    /**
+     * Moves every live state forward on the character.
+     * @return The live states after reading the character, or 0 if the pattern can't continue.
+     */
+    private long step(long states, char c) {
+        long next = 0;
+        for (int i = 0; i < this.accept; i++) {
+            if ((states & (1L << i)) == 0) continue;
+            if (this.types[i] == STAR) next |= 1L << i;
+            else if (matches(i, c)) next |= 1L << (i + 1);
+        }
+        return closure(next);
+    }
+
+    /**
+     * Determines if each live state needs one specific letter, so only those children need to be looked at.
+     */
+    private boolean onlyLiterals(long states) {
+        for (int i = 0; i < this.accept; i++) {
+            if ((states & (1L << i)) != 0 && this.types[i] != LITERAL) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the trie's words matching the pattern, in sorted order, handing each to the consumer as it's found.
+     * @param tree The trie to search.
+     * @param limit The most words to find, or 0 for no limit.
+     * @param out Receives each matching word.
+     * @return The number of words found.
+     */
+    public int run(Trie tree, int limit, Consumer<String> out) {
+        Search search = new Search(limit <= 0 ? Integer.MAX_VALUE : limit, out);
+        search.visitChildren(tree, tree.root(), this.start, 0);
+        return search.found;
+    }
+
+    @Override
+    public String toString() {
+        return this.pattern;
+    }
+
+    /**
+     * The state of a single run, so a compiled pattern can be shared between threads.
+     */
+    private class Search {
+        private final int limit;
+        private final Consumer<String> out;
+        private char[] path;
+        private int found;
+
+        Search(int limit, Consumer<String> out) {
+            this.limit = limit;
+            this.out = out;
+            this.path = new char[16];
+        }
+
+        /**
+         * Visits the node's children that the live states can continue through.
+         */
+        void visitChildren(Trie tree, TrieNode node, long states, int depth) {
+            // the accept state can't read any more letters.
+            if ((states & ~(1L << accept)) == 0) return;
+            if (onlyLiterals(states & ~(1L << accept))) {
+                // the literal states are in pattern order, not letter order, so look them up in letter order.
+                char[] wanted = new char[Long.bitCount(states)];
+                int size = 0;
+                for (int i = 0; i < accept; i++) if ((states & (1L << i)) != 0) wanted[size++] = literals[i];
+                Arrays.sort(wanted, 0, size);
+                for (int i = 0; i < size && this.found < this.limit; i++) {
+                    if (i > 0 && wanted[i] == wanted[i - 1]) continue;
+                    TrieNode child = tree.find(wanted[i], node);
+                    if (child != null) visit(tree, child, states, depth);
+                }
+                return;
+            }
+            for (TrieNode child = node.firstChild(); child != null && this.found < this.limit; child = child.next()) {
+                visit(tree, child, states, depth);
+            }
+        }
+
+        /**
+         * Reads the child's letter, and if the pattern can continue, reports it if it's a matching word and keeps going.
+         */
+        void visit(Trie tree, TrieNode child, long states, int depth) {
+            long next = step(states, child.value());
+            if (next == 0) return;
+            if (depth >= this.path.length) this.path = Arrays.copyOf(this.path, this.path.length * 2);
+            this.path[depth] = child.value();
+            if (child.isEndOfWord() && (next & (1L << accept)) != 0) {
+                this.found++;
+                this.out.accept(new String(this.path, 0, depth + 1));
+                if (this.found >= this.limit) return;
+            }
+            if (child.firstChild() != null) visitChildren(tree, child, next, depth + 1);
+        }
+    }
+}
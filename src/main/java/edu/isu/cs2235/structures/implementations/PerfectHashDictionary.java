@@ -0,0 +1,265 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * A read-only set of words, for deployments that only need yes/no spell checks(see Trie.perfectHash), answering
+ * contains in constant time, in about 20 bits per word.
+ * @implNote Each word is hashed to 64 bits, and a minimal perfect hash function(BBHash style) maps each word's hash to
+ * its own slot, 0 to n - 1. The function is a series of bit arrays(levels), each about twice as long as the number of
+ * hashes left to place: every hash is dropped into a bit of the first level, the bits hit by exactly one hash are kept,
+ * and the hashes that collided move on to the next, smaller, level. A word's slot is the number of kept bits before its
+ * bit(its rank), counted with a running total every 512 bits. Hashes still colliding after the last level are kept
+ * sorted, after the levels' slots.
+ * @implNote The function gives every string some slot, words or not, so each slot holds a 16 bit fingerprint(other
+ * bits of the word's hash) to check against. A misspelling is wrongly accepted about once in 65536 lookups.
+ * @implNote Building a level only sets bits, so the words are spread across cores(with atomic or-ing of the bits).
+ * @author Brandon Watkins
+ */
+public class PerfectHashDictionary {
+
+    private static final int MAGIC = 0x4d504844;// "MPHD"
+    private static final int VERSION = 1;
+    private static final int MAX_LEVELS = 24;
+    private static final double GAMMA = 2.0;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long[] bits;
+    private int[] levelStarts;
+    private int[] ranks;
+    private long[] leftovers;
+    private short[] fingerprints;
+    private int size;
+
+    private PerfectHashDictionary(long[] bits, int[] levelStarts, long[] leftovers, short[] fingerprints, int size) {
+        this.bits = bits;
+        this.levelStarts = levelStarts;
+        this.leftovers = leftovers;
+        this.fingerprints = fingerprints;
+        this.size = size;
+        this.ranks = rank(bits);
+    }
+
+    /**
+     * Builds a dictionary of every word in the trie.
+     * @param tree The trie to build from.
+     * @return The built dictionary.
+     */
+    public static PerfectHashDictionary of(Trie tree) {
+        return build(tree.words().parallel().mapToLong(PerfectHashDictionary::hash).toArray());
+    }
+
+    /**
+     * Builds a dictionary from the words' hashes(see hash), levels at a time, each level's hashes in parallel.
+     * @param hashes The words' hashes, in any order. Repeats are dropped.
+     * @return The built dictionary.
+     */
+    public static PerfectHashDictionary build(long[] hashes) {
+        long[] keys = hashes.clone();
+        Arrays.parallelSort(keys);
+        int distinct = 0;
+        for (int i = 0; i < keys.length; i++) if (distinct == 0 || keys[distinct - 1] != keys[i]) keys[distinct++] = keys[i];
+        keys = Arrays.copyOf(keys, distinct);
+        long[][] levels = new long[MAX_LEVELS][];
+        int numberOfLevels = 0;
+        long[] remaining = keys;
+        //For each level, while there are hashes left to place...
+        while (remaining.length > 0 && numberOfLevels < MAX_LEVELS) {
+            int level = numberOfLevels;
+            long levelBits = Math.max(64, ((long) Math.ceil(remaining.length * GAMMA) + 63) & ~63L);
+            AtomicLongArray hit = new AtomicLongArray((int) (levelBits / 64));
+            AtomicLongArray collided = new AtomicLongArray((int) (levelBits / 64));
+            long[] toPlace = remaining;
+            IntStream.range(0, toPlace.length).parallel().forEach(i -> {
+                long position = position(toPlace[i], level, levelBits);
+                long bit = 1L << position;
+                long before = hit.getAndAccumulate((int) (position >>> 6), bit, (a, b) -> a | b);
+                if ((before & bit) != 0) collided.getAndAccumulate((int) (position >>> 6), bit, (a, b) -> a | b);
+            });
+            long[] kept = new long[hit.length()];
+            for (int w = 0; w < kept.length; w++) kept[w] = hit.get(w) & ~collided.get(w);
+            levels[numberOfLevels++] = kept;
+            remaining = Arrays.stream(toPlace).parallel().filter(key -> {
+                long position = position(key, level, levelBits);
+                return (kept[(int) (position >>> 6)] & (1L << position)) == 0;
+            }).toArray();
+        }
+        int[] levelStarts = new int[numberOfLevels + 1];
+        for (int level = 0; level < numberOfLevels; level++) levelStarts[level + 1] = levelStarts[level] + levels[level].length;
+        long[] bits = new long[levelStarts[numberOfLevels]];
+        for (int level = 0; level < numberOfLevels; level++) {
+            System.arraycopy(levels[level], 0, bits, levelStarts[level], levels[level].length);
+        }
+        PerfectHashDictionary dictionary = new PerfectHashDictionary(bits, levelStarts, remaining, new short[distinct], distinct);
+        // every slot belongs to exactly one hash, so the fingerprints can be filled in parallel.
+        long[] all = keys;
+        IntStream.range(0, all.length).parallel().forEach(i -> dictionary.fingerprints[dictionary.slot(all[i])] = fingerprint(all[i]));
+        return dictionary;
+    }
+
+    /**
+     * Determines if the word is in the dictionary. Ignores case and surrounding white space, like Trie.find. Doesn't
+     * allocate.
+     * @param word The word.
+     * @return True if the word is in the dictionary(or, rarely, shares a fingerprint with the word in its slot).
+     */
+    public boolean contains(CharSequence word) {
+        if (word == null) return false;
+        long hash = hash(word);
+        if (hash == 0) return false;
+        int slot = slot(hash);
+        return slot >= 0 && this.fingerprints[slot] == fingerprint(hash);
+    }
+
+    /**
+     * Finds the hash's slot, the rank of the first level bit kept for it.
+     * @return The slot, or -1 if the hash isn't kept by any level, or among the leftovers.
+     */
+    private int slot(long hash) {
+        for (int level = 0; level + 1 < this.levelStarts.length; level++) {
+            long levelBits = (long) (this.levelStarts[level + 1] - this.levelStarts[level]) * 64;
+            long position = position(hash, level, levelBits) + (long) this.levelStarts[level] * 64;
+            int word = (int) (position >>> 6);
+            long bit = 1L << position;
+            if ((this.bits[word] & bit) == 0) continue;
+            int block = word >>> 3;
+            int rank = this.ranks[block];
+            for (int w = block << 3; w < word; w++) rank += Long.bitCount(this.bits[w]);
+            return rank + Long.bitCount(this.bits[word] & (bit - 1));
+        }
+        int leftover = Arrays.binarySearch(this.leftovers, hash);
+        return leftover < 0 ? -1 : this.size - this.leftovers.length + leftover;
+    }
+
+    /**
+     * Counts the kept bits before each 512 bit block.
+     */
+    private static int[] rank(long[] bits) {
+        int[] ranks = new int[(bits.length >>> 3) + 1];
+        int rank = 0;
+        for (int w = 0; w < bits.length; w++) {
+            if ((w & 7) == 0) ranks[w >>> 3] = rank;
+            rank += Long.bitCount(bits[w]);
+        }
+        return ranks;
+    }
+
+    /**
+     * Picks the hash's bit in a level, re-mixing the hash with the level, so hashes colliding in one level are
+     * spread out in the next.
+     */
+    private static long position(long hash, int level, long levelBits) {
+        return Long.remainderUnsigned(mix(hash + (level + 1) * 0x9e3779b97f4a7c15L), levelBits);
+    }
+
+    private static short fingerprint(long hash) {
+        return (short) (mix(hash ^ 0x5851f42d4c957f2dL) >>> 48);
+    }
+
+    /**
+     * Hashes the word's characters, in lower case, skipping any white space(anything String.trim would drop), anywhere
+     * in the word, the same as Trie.find(String, TrieNode), which trims what's left of the word at every letter.
+     * @param word The word.
+     * @return The word's 64 bit hash, or 0 if the word is blank.
+     */
+    public static long hash(CharSequence word) {
+        long hash = FNV_OFFSET;
+        boolean blank = true;
+        for (int i = 0; i < word.length(); i++) {
+            char character = word.charAt(i);
+            if (character <= ' ') continue;
+            hash = (hash ^ Character.toLowerCase(character)) * PRIME;
+            blank = false;
+        }
+        if (blank) return 0;
+        hash = mix(hash);
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Spreads the hash's bits(murmur3's finalizer).
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Writes a snapshot of the dictionary, to be read back by readFrom without rebuilding it.
+     * @param out The stream to write to. It isn't closed.
+     * @throws IOException when the stream has an issue writing.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 50000));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(this.size);
+        data.writeInt(this.levelStarts.length);
+        for (int start : this.levelStarts) data.writeInt(start);
+        for (long word : this.bits) data.writeLong(word);
+        data.writeInt(this.leftovers.length);
+        for (long leftover : this.leftovers) data.writeLong(leftover);
+        for (short fingerprint : this.fingerprints) data.writeShort(fingerprint);
+        data.flush();
+    }
+
+    /**
+     * Reads a snapshot written by writeTo.
+     * @param in The stream to read from. It isn't closed.
+     * @return The dictionary.
+     * @throws IOException when the stream has an issue reading, or isn't a snapshot.
+     */
+    public static PerfectHashDictionary readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 50000));
+        if (data.readInt() != MAGIC) throw new IOException("Not a perfect hash dictionary snapshot.");
+        int version = data.readInt();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ".");
+        int size = data.readInt();
+        int[] levelStarts = new int[data.readInt()];
+        for (int i = 0; i < levelStarts.length; i++) levelStarts[i] = data.readInt();
+        long[] bits = new long[levelStarts[levelStarts.length - 1]];
+        for (int i = 0; i < bits.length; i++) bits[i] = data.readLong();
+        long[] leftovers = new long[data.readInt()];
+        for (int i = 0; i < leftovers.length; i++) leftovers[i] = data.readLong();
+        short[] fingerprints = new short[size];
+        for (int i = 0; i < size; i++) fingerprints[i] = data.readShort();
+        return new PerfectHashDictionary(bits, levelStarts, leftovers, fingerprints, size);
+    }
+
+    /**
+     * @return The number of words in the dictionary.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The number of levels the words were placed in.
+     */
+    public int levels() {
+        return this.levelStarts.length - 1;
+    }
+
+    /**
+     * @return The bits used per word, counting the levels, ranks, leftovers, and fingerprints.
+     */
+    public double bitsPerWord() {
+        long bits = (long) this.bits.length * 64 + (long) this.ranks.length * 32 + (long) this.leftovers.length * 64
+                + (long) this.fingerprints.length * 16;
+        return this.size == 0 ? 0 : (double) bits / this.size;
+    }
+}
@@ -0,0 +1,369 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.DictionaryView;
+import edu.isu.cs2235.structures.PrefixCursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable trie: one version of a dictionary. Adding or removing a word makes a new version, leaving this one
+ * unchanged, so readers holding a version never see it change, and never need a lock(see VersionedDictionary). A
+ * version is only a DictionaryView, since it can't be changed in place.
+ * @implNote Persistent, with path copying: with/without copy only the nodes on the path from the root down to the
+ * word's last letter, and the new version shares every other node with the old one, so an update is O(word length)
+ * (times a node's number of children, at most the size of the alphabet). Old versions are garbage collected once no
+ * reader holds them. Each node keeps its children's letters in a sorted char array, next to the array of children,
+ * and the number of words below it.
+ * @implNote Suggestions are found by a bounded edit distance search(every word within 2 edits, closest first), like
+ * ArenaTrie, rather than Trie's edit strategies.
+ * @author Brandon Watkins
+ */
+public class PersistentTrie implements DictionaryView {
+
+    private static final char[] NO_LETTERS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Node EMPTY = new Node(NO_LETTERS, NO_CHILDREN, false, 0);
+    // App lists the suggestions plus "Manual Entry" and "Ignore", answered with a single digit(1-9).
+    private static final int MAX_SUGGESTIONS = 7;
+    private static final int MAX_DISTANCE = 2;
+
+    private final Node root;
+    private final long version;
+
+    /**
+     * An empty dictionary, version 0.
+     */
+    public PersistentTrie() {
+        this(EMPTY, 0);
+    }
+
+    private PersistentTrie(Node root, long version) {
+        this.root = root;
+        this.version = version;
+    }
+
+    /**
+     * A node, which never changes once made.
+     */
+    static final class Node {
+        final char[] letters;
+        final Node[] children;
+        final boolean endOfWord;
+        final int wordsBelow;
+
+        Node(char[] letters, Node[] children, boolean endOfWord, int wordsBelow) {
+            this.letters = letters;
+            this.children = children;
+            this.endOfWord = endOfWord;
+            this.wordsBelow = wordsBelow;
+        }
+
+        Node child(char letter) {
+            int i = Arrays.binarySearch(this.letters, letter);
+            return i < 0 ? null : this.children[i];
+        }
+    }
+
+    /**
+     * Copies a trie into a new persistent trie, version 0.
+     * @param tree The trie to copy.
+     * @return The persistent trie.
+     */
+    public static PersistentTrie of(Trie tree) {
+        return new PersistentTrie(copy(tree.root(), false), 0);
+    }
+
+    private static Node copy(TrieNode node, boolean endOfWord) {
+        int count = node.numChildren();
+        if (count == 0) return new Node(NO_LETTERS, NO_CHILDREN, endOfWord, endOfWord ? 1 : 0);
+        char[] letters = new char[count];
+        Node[] children = new Node[count];
+        int words = endOfWord ? 1 : 0;
+        int i = 0;
+        // siblings are stored sorted, so the letters come out sorted.
+        for (TrieNode child = node.firstChild(); child != null && i < count; child = child.next(), i++) {
+            letters[i] = child.value();
+            children[i] = copy(child, child.isEndOfWord());
+            words += children[i].wordsBelow;
+        }
+        return new Node(letters, children, endOfWord, words);
+    }
+
+    /**
+     * Makes a new version with the word added. This version doesn't change.
+     * @param word The word to add. Trimmed, and put in lower case.
+     * @return The new version, or this version if the word was already in it(or is blank).
+     */
+    public PersistentTrie with(String word) {
+        if (word == null || word.trim().length() == 0) return this;
+        Node root = with(this.root, word.trim().toLowerCase(), 0);
+        return root == this.root ? this : new PersistentTrie(root, this.version + 1);
+    }
+
+    /**
+     * Copies the node, with the word(from the letter at depth on) added below it.
+     * @return The new node, or the same node if the word is already there.
+     */
+    private static Node with(Node node, String word, int depth) {
+        if (depth == word.length()) {
+            if (node.endOfWord) return node;
+            return new Node(node.letters, node.children, true, node.wordsBelow + 1);
+        }
+        char letter = word.charAt(depth);
+        int i = Arrays.binarySearch(node.letters, letter);
+        Node child = i >= 0 ? node.children[i] : EMPTY;
+        Node newChild = with(child, word, depth + 1);
+        if (newChild == child) return node;
+        char[] letters;
+        Node[] children;
+        if (i >= 0) {
+            letters = node.letters;
+            children = node.children.clone();
+            children[i] = newChild;
+        }
+        else {
+            // a new letter, inserted in sorted order.
+            int at = -i - 1;
+            letters = new char[node.letters.length + 1];
+            children = new Node[node.children.length + 1];
+            System.arraycopy(node.letters, 0, letters, 0, at);
+            System.arraycopy(node.children, 0, children, 0, at);
+            letters[at] = letter;
+            children[at] = newChild;
+            System.arraycopy(node.letters, at, letters, at + 1, node.letters.length - at);
+            System.arraycopy(node.children, at, children, at + 1, node.children.length - at);
+        }
+        return new Node(letters, children, node.endOfWord, node.wordsBelow + 1);
+    }
+
+    /**
+     * Makes a new version with the word removed, dropping any nodes that no longer lead to a word. This version
+     * doesn't change.
+     * @param word The word to remove.
+     * @return The new version, or this version if the word wasn't in it.
+     */
+    public PersistentTrie without(String word) {
+        if (word == null || word.trim().length() == 0) return this;
+        Node root = without(this.root, word.trim().toLowerCase(), 0);
+        if (root == this.root) return this;
+        return new PersistentTrie(root == null ? EMPTY : root, this.version + 1);
+    }
+
+    /**
+     * Copies the node, with the word(from the letter at depth on) removed below it.
+     * @return The new node, the same node if the word isn't there, or null if nothing is left below the node.
+     */
+    private static Node without(Node node, String word, int depth) {
+        if (depth == word.length()) {
+            if (!node.endOfWord) return node;
+            if (node.wordsBelow == 1) return null;
+            return new Node(node.letters, node.children, false, node.wordsBelow - 1);
+        }
+        int i = Arrays.binarySearch(node.letters, word.charAt(depth));
+        if (i < 0) return node;
+        Node child = node.children[i];
+        Node newChild = without(child, word, depth + 1);
+        if (newChild == child) return node;
+        if (newChild == null && node.wordsBelow == 1) return null;
+        char[] letters = node.letters;
+        Node[] children;
+        if (newChild != null) {
+            children = node.children.clone();
+            children[i] = newChild;
+        }
+        else {
+            letters = new char[node.letters.length - 1];
+            children = new Node[node.children.length - 1];
+            System.arraycopy(node.letters, 0, letters, 0, i);
+            System.arraycopy(node.children, 0, children, 0, i);
+            System.arraycopy(node.letters, i + 1, letters, i, letters.length - i);
+            System.arraycopy(node.children, i + 1, children, i, children.length - i);
+        }
+        return new Node(letters, children, node.endOfWord, node.wordsBelow - 1);
+    }
+
+    /**
+     * @return The version number: 0 for a new trie, plus one for each change since.
+     */
+    public long version() {
+        return this.version;
+    }
+
+    private Node find(String word) {
+        if (word == null) return null;
+        String lower = word.trim().toLowerCase();
+        Node node = this.root;
+        for (int i = 0; i < lower.length() && node != null; i++) node = node.child(lower.charAt(i));
+        return node;
+    }
+
+    public boolean findWord(String word) {
+        Node node = find(word);
+        return node != null && node != this.root && node.endOfWord;
+    }
+
+    public PrefixCursor cursor() {
+        return new Cursor();
+    }
+
+    public int countPrefix(String prefix) {
+        Node node = find(prefix);
+        return node == null ? 0 : node.wordsBelow;
+    }
+
+    /**
+     * Finds the words within 2 edits(Levenshtein) of the misspelled word, walking the trie depth first with one row of
+     * the edit distance table per letter, and skipping any branch whose row is already past 2.
+     * @param word The misspelled word.
+     * @return Up to 7 suggestions, closest first, then alphabetically, then "Manual Entry" and "Ignore".
+     */
+    public ArrayList<String> wordSuggestions(String word) {
+        String lower = word.trim().toLowerCase();
+        int[] firstRow = new int[lower.length() + 1];
+        for (int j = 0; j < firstRow.length; j++) firstRow[j] = j;
+        ArrayList<String> suggestions = new ArrayList<>();
+        ArrayList<Integer> distances = new ArrayList<>();
+        suggest(this.root, lower, firstRow, new StringBuilder(), suggestions, distances);
+        ArrayList<String> best = new ArrayList<>(suggestions.subList(0, Math.min(MAX_SUGGESTIONS, suggestions.size())));
+        best.remove(lower);
+        best.add("Manual Entry");
+        best.add("Ignore");
+        return best;
+    }
+
+    private static void suggest(Node node, String word, int[] previous, StringBuilder path, ArrayList<String> suggestions,
+                                ArrayList<Integer> distances) {
+        //For each child, in sorted order, work out its row of the edit distance table...
+        for (int c = 0; c < node.children.length; c++) {
+            char letter = node.letters[c];
+            int[] current = new int[previous.length];
+            current[0] = previous[0] + 1;
+            int rowMin = current[0];
+            for (int j = 1; j < current.length; j++) {
+                int cost = word.charAt(j - 1) == letter ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            path.append(letter);
+            Node child = node.children[c];
+            int distance = current[current.length - 1];
+            if (child.endOfWord && distance <= MAX_DISTANCE) {
+                int at = suggestions.size();
+                while (at > 0 && distances.get(at - 1) > distance) at--;
+                suggestions.add(at, path.toString());
+                distances.add(at, distance);
+            }
+            if (rowMin <= MAX_DISTANCE) suggest(child, word, current, path, suggestions, distances);
+            path.setLength(path.length() - 1);
+        }
+    }
+
+    public int numberOfWords() {
+        return this.root.wordsBelow;
+    }
+
+    public Map<String, Number> stats() {
+        LinkedHashMap<String, Number> stats = new LinkedHashMap<>();
+        stats.put("words", this.numberOfWords());
+        stats.put("version", this.version);
+        return stats;
+    }
+
+    /**
+     * Iterates over the words in sorted order, depth first, keeping the current path's letters in one buffer. The
+     * version never changes, so it's safe to iterate while other threads make new versions.
+     */
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private Node[] nodes = new Node[64];
+            private int[] nextChild = new int[64];
+            private char[] letters = new char[64];
+            private int depth = 0;
+            private String next;
+
+            {
+                this.nodes[0] = PersistentTrie.this.root;
+                this.next = advance();
+            }
+
+            private String advance() {
+                while (this.depth >= 0) {
+                    Node node = this.nodes[this.depth];
+                    int c = this.nextChild[this.depth];
+                    if (c == node.children.length) {
+                        this.depth--;
+                        continue;
+                    }
+                    this.nextChild[this.depth]++;
+                    if (this.depth + 1 == this.nodes.length) {
+                        this.nodes = Arrays.copyOf(this.nodes, this.nodes.length * 2);
+                        this.nextChild = Arrays.copyOf(this.nextChild, this.nodes.length);
+                        this.letters = Arrays.copyOf(this.letters, this.nodes.length);
+                    }
+                    this.letters[this.depth] = node.letters[c];
+                    Node child = node.children[c];
+                    this.nodes[++this.depth] = child;
+                    this.nextChild[this.depth] = 0;
+                    if (child.endOfWord) return new String(this.letters, 0, this.depth);
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public String next() {
+                if (this.next == null) throw new NoSuchElementException();
+                String word = this.next;
+                this.next = advance();
+                return word;
+            }
+        };
+    }
+
+    /**
+     * A prefix cursor over this version.
+     */
+    private class Cursor implements PrefixCursor {
+        private Node node = PersistentTrie.this.root;
+        private int depth = 0;
+
+        @Override
+        public boolean next(char letter) {
+            Node child = this.node.child(Character.toLowerCase(letter));
+            if (child == null) return false;
+            this.node = child;
+            this.depth++;
+            return true;
+        }
+
+        @Override
+        public boolean isWord() {
+            return this.depth > 0 && this.node.endOfWord;
+        }
+
+        @Override
+        public int countWords() {
+            return this.node.wordsBelow;
+        }
+
+        @Override
+        public int depth() {
+            return this.depth;
+        }
+
+        @Override
+        public void reset() {
+            this.node = PersistentTrie.this.root;
+            this.depth = 0;
+        }
+    }
+}
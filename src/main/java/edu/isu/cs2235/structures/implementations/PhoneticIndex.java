@@ -0,0 +1,317 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * An index of a trie's words by how they sound, using Metaphone keys("phonetic" and "fonetik" are both FNTK,
+ * "knowledge" and "nollij" are both NLJ), for suggesting words when the misspelling is too far off for the edit based
+ * suggestions.
+ * @implNote Keys are packed into an int(5 bits per key letter, up to 6 letters) while reading the word's characters in
+ * place, so encoding doesn't allocate. Once built, the index is 3 arrays: the distinct keys in sorted order, where each
+ * key's words start, and the words' ids grouped by key. A lookup is a binary search over the keys. The words aren't
+ * copied, they're decoded from the trie's word pool when returned. Words added to the trie after the index is built
+ * aren't in the index, until it's rebuilt.
+ * @implNote A snapshot(see writeTo) holds the 3 arrays, so the index can be read back instead of re-encoding every word.
+ * The words are stored by id, so the snapshot only fits a trie built from the same word list, in the same order.
+ * @author Brandon Watkins
+ */
+public class PhoneticIndex {
+
+    public static final int MAX_KEY_LENGTH = 6;
+
+    private static final int MAGIC = 0x50484e49;// "PHNI"
+    private static final int VERSION = 1;
+
+    private final Trie tree;
+    private int[] keys;
+    private int[] starts;
+    private int[] words;
+    private long[] pending;
+    private int[] pendingWords;
+    private int pendingSize;
+
+    public PhoneticIndex(Trie tree) {
+        this.tree = tree;
+        this.pending = new long[1024];
+        this.pendingWords = new int[1024];
+        this.keys = new int[0];
+        this.starts = new int[]{0};
+        this.words = new int[0];
+    }
+
+    /**
+     * Builds an index of every word in the trie.
+     * @param tree The trie to index.
+     * @return The built index.
+     */
+    public static PhoneticIndex of(Trie tree) {
+        PhoneticIndex index = new PhoneticIndex(tree);
+        for (String word : tree) index.add(word, tree.wordId(word));
+        return index.build();
+    }
+
+    /**
+     * Adds a word to the index. The word won't be found until build is called.
+     * @param word The word.
+     * @param wordId The word's id in the trie(see TrieNode.wordId).
+     */
+    public void add(CharSequence word, int wordId) {
+        if (wordId < 0) return;
+        int key = encode(word);
+        if (key == 0) return;
+        if (this.pendingSize == this.pending.length) {
+            this.pending = Arrays.copyOf(this.pending, this.pendingSize * 2);
+            this.pendingWords = Arrays.copyOf(this.pendingWords, this.pendingSize * 2);
+        }
+        // the key goes in the high bits, so sorting groups the words by key, and keeps them in the order they were added.
+        this.pending[this.pendingSize] = ((long) key << 32) | this.pendingSize;
+        this.pendingWords[this.pendingSize++] = wordId;
+    }
+
+    /**
+     * Groups the added words by key, into the index's compact arrays.
+     * @return This index.
+     */
+    public PhoneticIndex build() {
+        long[] sorted = Arrays.copyOf(this.pending, this.pendingSize);
+        Arrays.sort(sorted);
+        int[] keys = new int[sorted.length];
+        int[] starts = new int[sorted.length + 1];
+        int[] words = new int[sorted.length];
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            int key = (int) (sorted[i] >>> 32);
+            if (distinct == 0 || keys[distinct - 1] != key) {
+                keys[distinct] = key;
+                starts[distinct++] = i;
+            }
+            words[i] = this.pendingWords[(int) sorted[i]];
+        }
+        starts[distinct] = sorted.length;
+        this.keys = Arrays.copyOf(keys, distinct);
+        this.starts = Arrays.copyOf(starts, distinct + 1);
+        this.words = words;
+        this.pending = new long[16];
+        this.pendingWords = new int[16];
+        this.pendingSize = 0;
+        return this;
+    }
+
+    /**
+     * Writes a snapshot of the built index, to be read back by readFrom without rebuilding it. Words added since the
+     * last build aren't written.
+     * @param out The stream to write to. It isn't closed.
+     * @throws IOException when the stream has an issue writing.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 50000));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(this.tree.numberOfWords());
+        data.writeInt(this.keys.length);
+        data.writeInt(this.words.length);
+        for (int key : this.keys) data.writeInt(key);
+        for (int start : this.starts) data.writeInt(start);
+        for (int word : this.words) data.writeInt(word);
+        data.flush();
+    }
+
+    /**
+     * Reads a snapshot written by writeTo.
+     * @param tree The trie the index was built from(or one built the same way, so the word ids match).
+     * @param in The stream to read from. It isn't closed.
+     * @return The index.
+     * @throws IOException when the stream has an issue reading, isn't a snapshot, or was written for a trie with a
+     * different number of words.
+     */
+    public static PhoneticIndex readFrom(Trie tree, InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 50000));
+        if (data.readInt() != MAGIC) throw new IOException("Not a phonetic index snapshot.");
+        int version = data.readInt();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ".");
+        int numberOfWords = data.readInt();
+        if (numberOfWords != tree.numberOfWords()) throw new IOException("The snapshot was written for a trie with "
+                + numberOfWords + " words, not " + tree.numberOfWords() + ".");
+        PhoneticIndex index = new PhoneticIndex(tree);
+        index.keys = new int[data.readInt()];
+        index.starts = new int[index.keys.length + 1];
+        index.words = new int[data.readInt()];
+        for (int i = 0; i < index.keys.length; i++) index.keys[i] = data.readInt();
+        for (int i = 0; i < index.starts.length; i++) index.starts[i] = data.readInt();
+        for (int i = 0; i < index.words.length; i++) index.words[i] = data.readInt();
+        return index;
+    }
+
+    /**
+     * Finds words that sound like the given word, closest in length first.
+     * @param word The(probably misspelled) word.
+     * @param limit The most words to return.
+     * @return The words sharing the word's Metaphone key.
+     */
+    public ArrayList<String> soundsLike(String word, int limit) {
+        ArrayList<String> found = new ArrayList<>();
+        int key = encode(word);
+        int i = key == 0 ? -1 : Arrays.binarySearch(this.keys, key);
+        if (i < 0) return found;
+        for (int w = this.starts[i]; w < this.starts[i + 1]; w++) {
+            if (this.tree.isWord(this.words[w])) found.add(this.tree.word(this.words[w]));
+        }
+        int length = word.trim().length();
+        found.sort((a, b) -> Math.abs(a.length() - length) != Math.abs(b.length() - length)
+                ? Math.abs(a.length() - length) - Math.abs(b.length() - length) : a.compareTo(b));
+        if (found.size() > limit) found.subList(limit, found.size()).clear();
+        return found;
+    }
+
+    /**
+     * @return The number of words in the index.
+     */
+    public int size() {
+        return this.words.length;
+    }
+
+    /**
+     * @return The number of distinct keys in the index.
+     */
+    public int numberOfKeys() {
+        return this.keys.length;
+    }
+
+    /**
+     * Encodes the word's Metaphone key(up to MAX_KEY_LENGTH letters), packed 5 bits per letter, without allocating.
+     * Characters that aren't letters a-z are ignored.
+     * @param word The word to encode.
+     * @return The packed key, or 0 if the word has no letters.
+     */
+    public static int encode(CharSequence word) {
+        int n = word.length();
+        int start = 0;
+        while (start < n && at(word, start) == 0) start++;
+        int key = 0;
+        int length = 0;
+        int i = start;
+        char c0 = at(word, start);
+        char c1 = at(word, start + 1);
+        // silent first letters, and first letters with their own sound.
+        if ((c0 == 'A' && c1 == 'E') || (c0 == 'G' && c1 == 'N') || (c0 == 'K' && c1 == 'N') || (c0 == 'P' && c1 == 'N')
+                || (c0 == 'W' && c1 == 'R')) i++;
+        else if (c0 == 'X') {
+            key = push(key, 'S');
+            length++;
+            i++;
+        }
+        else if (c0 == 'W' && c1 == 'H') {
+            key = push(key, 'W');
+            length++;
+            i += 2;
+        }
+        int first = i;
+        for (; i < n && length < MAX_KEY_LENGTH; i++) {
+            char c = at(word, i);
+            if (c == 0) continue;
+            char prev = i > start ? at(word, i - 1) : 0;
+            char next = at(word, i + 1);
+            char next2 = at(word, i + 2);
+            // doubled letters sound like one, except "cc".
+            if (c == prev && c != 'C') continue;
+            char code = 0;
+            switch (c) {
+                case 'A': case 'E': case 'I': case 'O': case 'U':
+                    if (i == first) code = c;
+                    break;
+                case 'B':
+                    if (!(prev == 'M' && next == 0)) code = 'B';
+                    break;
+                case 'C':
+                    if (prev == 'S' && (next == 'I' || next == 'E' || next == 'Y')) break;
+                    if (next == 'I' && next2 == 'A') code = 'X';
+                    else if (next == 'H') code = prev == 'S' ? 'K' : 'X';
+                    else if (next == 'I' || next == 'E' || next == 'Y') code = 'S';
+                    else code = 'K';
+                    break;
+                case 'D':
+                    code = next == 'G' && (next2 == 'E' || next2 == 'Y' || next2 == 'I') ? 'J' : 'T';
+                    break;
+                case 'G':
+                    if (next == 'H' && next2 != 0 && !isVowel(next2)) break;
+                    if (next == 'N' && (next2 == 0 || (next2 == 'E' && at(word, i + 3) == 'D' && at(word, i + 4) == 0))) break;
+                    if (prev == 'D' && (next == 'E' || next == 'I' || next == 'Y')) break;
+                    code = (next == 'I' || next == 'E' || next == 'Y') && prev != 'G' ? 'J' : 'K';
+                    break;
+                case 'H':
+                    if (isVowel(prev) && !isVowel(next)) break;
+                    if (prev == 'C' || prev == 'S' || prev == 'P' || prev == 'T' || prev == 'G') break;
+                    code = 'H';
+                    break;
+                case 'K':
+                    if (prev != 'C') code = 'K';
+                    break;
+                case 'P':
+                    code = next == 'H' ? 'F' : 'P';
+                    break;
+                case 'Q':
+                    code = 'K';
+                    break;
+                case 'S':
+                    code = next == 'H' || (next == 'I' && (next2 == 'O' || next2 == 'A')) ? 'X' : 'S';
+                    break;
+                case 'T':
+                    if (next == 'I' && (next2 == 'O' || next2 == 'A')) code = 'X';
+                    else if (next == 'H') code = '0';
+                    else if (!(next == 'C' && next2 == 'H')) code = 'T';
+                    break;
+                case 'V':
+                    code = 'F';
+                    break;
+                case 'W': case 'Y':
+                    if (isVowel(next)) code = c;
+                    break;
+                case 'X':
+                    key = push(key, 'K');
+                    length++;
+                    if (length < MAX_KEY_LENGTH) code = 'S';
+                    break;
+                case 'Z':
+                    code = 'S';
+                    break;
+                default:
+                    code = c;
+            }
+            if (code != 0) {
+                key = push(key, code);
+                length++;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Appends a key letter to the packed key. '0'(the "th" sound) is stored after the letters.
+     */
+    private static int push(int key, char code) {
+        return (key << 5) | (code == '0' ? 27 : code - 'A' + 1);
+    }
+
+    /**
+     * @return The upper case letter at the index, or 0 if the index is outside of the word or isn't a letter a-z.
+     */
+    private static char at(CharSequence word, int index) {
+        if (index < 0 || index >= word.length()) return 0;
+        char c = word.charAt(index);
+        if (c >= 'a' && c <= 'z') return (char) (c - 'a' + 'A');
+        if (c >= 'A' && c <= 'Z') return c;
+        return 0;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'A' || c == 'E' || c == 'I' || c == 'O' || c == 'U';
+    }
+}
@@ -0,0 +1,538 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.Dictionary;
+import edu.isu.cs2235.structures.PrefixCursor;
+import edu.isu.cs2235.structures.WordReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A dictionary split into segments by the first 1 or 2 letters of each word, where a segment is only read into its own
+ * trie the first time a word with that prefix is looked up.
+ * @implNote The segmented format is a directory holding an index file(one "prefix, file name, word count" line per
+ * segment, after a header line with the prefix length) and one plain text word list per segment. Opening the dictionary
+ * only reads the index. If a segment cap is given, the least recently used segment is dropped when a new one is loaded
+ * past the cap, and will be read back in if it's needed again. Segments are read from disk outside the lock, so lookups
+ * in loaded segments don't wait on a load, and threads wanting the same segment share one load. Word counts come from
+ * the index, so counting words, or short prefixes, doesn't load anything. A segment changed by addWord or remove is
+ * kept loaded from then on, since the change isn't written back to its file.
+ * @author Brandon Watkins
+ */
+public class SegmentedDictionary implements Dictionary {
+
+    public static final String INDEX_FILE = "index.txt";
+
+    private final File directory;
+    private final int prefixLength;
+    private final int maxSegments;
+    private final Map<String, String> index;
+    private final TreeMap<String, Integer> counts;
+    private final LinkedHashMap<String, Trie> loaded;
+    private final HashMap<String, FutureTask<Trie>> loading;
+    private final HashSet<String> pinned;
+    private int numberOfWords;
+    private int segmentLoads;
+    private int segmentEvictions;
+
+    /**
+     * Opens a segmented dictionary, reading only its index.
+     * @param directory The directory written by writeSegments.
+     * @param maxSegments The most segments to keep loaded at once, or 0 for no limit.
+     * @throws IOException when the index can't be read.
+     */
+    public SegmentedDictionary(String directory, int maxSegments) throws IOException {
+        this.directory = new File(directory);
+        this.maxSegments = maxSegments;
+        this.index = new HashMap<>();
+        this.counts = new TreeMap<>();
+        this.loading = new HashMap<>();
+        this.pinned = new HashSet<>();
+        // access ordered, so the eldest entry is always the least recently used segment.
+        this.loaded = new LinkedHashMap<>(16, 0.75f, true);
+        BufferedReader indexReader = new BufferedReader(new FileReader(new File(this.directory, INDEX_FILE)));
+        try {
+            this.prefixLength = Integer.parseInt(indexReader.readLine().trim());
+            String line;
+            while ((line = indexReader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length < 3) continue;
+                String key = decodeKey(fields[0]);
+                int count = Integer.parseInt(fields[2].trim());
+                this.index.put(key, fields[1]);
+                this.counts.put(key, count);
+                this.numberOfWords += count;
+            }
+        }
+        finally {
+            indexReader.close();
+        }
+    }
+
+    /**
+     * Opens a segmented dictionary with no limit on loaded segments.
+     * @param directory The directory written by writeSegments.
+     * @throws IOException when the index can't be read.
+     */
+    public SegmentedDictionary(String directory) throws IOException {
+        this(directory, 0);
+    }
+
+    /**
+     * Splits a word list into segments by prefix, writing the segment files and their index into the directory.
+     * Words are filtered and formatted the same way FillTree does.
+     * @param filePath The word list to split up.
+     * @param directory The directory to write the segmented dictionary to(created if needed).
+     * @param prefixLength The number of leading letters that decide a word's segment(1 or 2).
+     * @return The number of segments written.
+     * @throws IOException when the word list can't be read, or the segments can't be written.
+     */
+    public static int writeSegments(String filePath, String directory, int prefixLength) throws IOException {
+        if (prefixLength < 1 || prefixLength > 2) throw new IllegalArgumentException("Prefix length must be 1 or 2.");
+        return writeSegments(FillTree.openWordList(filePath), directory, prefixLength);
+    }
+
+    /**
+     * Splits words into segments by prefix, writing the segment files and their index into the directory, and closing
+     * the reader when done. Words are filtered and formatted the same way FillTree does.
+     * @implNote The words are sorted first(see ExternalSorter), which also drops duplicates, so each segment's words
+     * come out together, and only one segment file is open at a time.
+     * @param wordReader The words to split up.
+     * @param directory The directory to write the segmented dictionary to(created if needed).
+     * @param prefixLength The number of leading letters that decide a word's segment(1 or 2).
+     * @return The number of segments written.
+     * @throws IOException when the words can't be read, or the segments can't be written.
+     */
+    public static int writeSegments(WordReader wordReader, String directory, int prefixLength) throws IOException {
+        if (prefixLength < 1 || prefixLength > 2) {
+            wordReader.close();
+            throw new IllegalArgumentException("Prefix length must be 1 or 2.");
+        }
+        File dir = new File(directory);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            wordReader.close();
+            throw new IOException("Unable to create " + directory + ".");
+        }
+        LinkedHashMap<String, Integer> counts = new LinkedHashMap<>();
+        WordReader sorted = new ExternalSorter().sort(FillTree.formatted(wordReader));
+        BufferedWriter writer = null;
+        try {
+            String key = null;
+            String word;
+            //For each word, in sorted order...
+            while ((word = sorted.nextWord()) != null) {
+                String wordKey = word.substring(0, Math.min(prefixLength, word.length()));
+                if (!wordKey.equals(key)) {
+                    if (writer != null) writer.close();
+                    key = wordKey;
+                    writer = new BufferedWriter(new FileWriter(new File(dir, segmentFileName(key))));
+                    counts.put(key, 0);
+                }
+                writer.write(word);
+                writer.newLine();
+                counts.merge(key, 1, Integer::sum);
+            }
+        }
+        finally {
+            sorted.close();
+            if (writer != null) writer.close();
+        }
+        BufferedWriter indexWriter = new BufferedWriter(new FileWriter(new File(dir, INDEX_FILE)));
+        try {
+            indexWriter.write(Integer.toString(prefixLength));
+            indexWriter.newLine();
+            for (Map.Entry<String, Integer> segment : counts.entrySet()) {
+                indexWriter.write(encodeKey(segment.getKey()) + "\t" + segmentFileName(segment.getKey()) + "\t" + segment.getValue());
+                indexWriter.newLine();
+            }
+        }
+        finally {
+            indexWriter.close();
+        }
+        return counts.size();
+    }
+
+    /**
+     * Get the trie for the segment the word belongs to, loading it(and evicting the least recently used segment, if
+     * over the cap) if it isn't loaded yet.
+     * @param word The word, or prefix, being looked up.
+     * @return The segment's trie, or null if no segment holds words with that prefix.
+     */
+    public Trie segment(String word) {
+        if (word == null) return null;
+        word = word.trim().toLowerCase();
+        if (word.length() == 0) return null;
+        return loadedSegment(key(word));
+    }
+
+    /**
+     * The segment a word, or prefix, belongs to.
+     * @param word The trimmed, lowercase word.
+     * @return The segment's prefix.
+     */
+    private String key(String word) {
+        return word.substring(0, Math.min(this.prefixLength, word.length()));
+    }
+
+    /**
+     * Get the segment's trie, loading it if it isn't loaded yet. Only the bookkeeping is done under the lock: the
+     * first thread to want a segment reads it from disk outside the lock, and any other thread wanting it meanwhile
+     * waits for that load, instead of reading it again.
+     * @param key The segment's prefix.
+     * @return The segment's trie, or null if there's no such segment, or it couldn't be read.
+     */
+    private Trie loadedSegment(String key) {
+        FutureTask<Trie> load;
+        boolean loader = false;
+        synchronized (this) {
+            Trie segment = this.loaded.get(key);
+            if (segment != null) return segment;
+            String fileName = this.index.get(key);
+            if (fileName == null) return null;
+            load = this.loading.get(key);
+            if (load == null) {
+                load = new FutureTask<>(() -> loadSegment(fileName));
+                this.loading.put(key, load);
+                loader = true;
+            }
+        }
+        if (loader) load.run();
+        Trie segment;
+        try {
+            segment = load.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException e) {
+            segment = null;
+        }
+        if (loader) {
+            synchronized (this) {
+                this.loading.remove(key);
+                if (segment != null) {
+                    // a changed copy(see changedSegment) may have been put in meanwhile, which wins over the file's.
+                    Trie current = this.loaded.putIfAbsent(key, segment);
+                    if (current != null) return current;
+                    this.segmentLoads++;
+                    evict();
+                }
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Drops the least recently used segments until back under the cap, skipping changed segments. Must be called
+     * under the lock.
+     */
+    private void evict() {
+        if (this.maxSegments <= 0) return;
+        Iterator<String> eldest = this.loaded.keySet().iterator();
+        while (this.loaded.size() > this.maxSegments && eldest.hasNext()) {
+            if (this.pinned.contains(eldest.next())) continue;
+            eldest.remove();
+            this.segmentEvictions++;
+        }
+    }
+
+    /**
+     * Get the segment's trie for a change, pinning it so it's never evicted(which would lose the change). Must be
+     * called under the lock.
+     * @param key The segment's prefix.
+     * @param segment The segment's trie, if it was loaded, or null.
+     * @return The segment's trie, or a new empty trie if there's no such segment yet.
+     */
+    private Trie changedSegment(String key, Trie segment) {
+        // it may have been evicted since it was loaded, or reloaded since.
+        Trie current = this.loaded.get(key);
+        if (current != null) segment = current;
+        else if (segment == null) segment = new Trie();
+        this.loaded.put(key, segment);
+        this.pinned.add(key);
+        this.counts.putIfAbsent(key, 0);
+        return segment;
+    }
+
+    /**
+     * Reads one segment file into a new trie.
+     * @param fileName The segment file, inside the dictionary's directory.
+     * @return The filled trie, or null if the segment couldn't be read.
+     */
+    private Trie loadSegment(String fileName) {
+        Trie segment = new Trie();
+        try (BufferedReader segmentReader = new BufferedReader(new FileReader(new File(this.directory, fileName)), 50000)) {
+            String word;
+            while ((word = segmentReader.readLine()) != null) {
+                if (word.length() > 0) segment.add(word);
+            }
+        }
+        catch (IOException e) {
+            System.out.println("Error trying to read segment " + fileName + ".");
+            e.printStackTrace();
+            return null;
+        }
+        segment.pointer(segment.root());
+        return segment;
+    }
+
+    /**
+     * Finds the specified string, loading its segment if needed.
+     * @param string The string to search for.
+     * @return The node containing the last character, or null if not found.
+     */
+    public TrieNode find(String string) {
+        Trie segment = this.segment(string);
+        if (segment == null) return null;
+        return segment.find(string);
+    }
+
+    /**
+     * Tries to find the specified word, loading its segment if needed.
+     * @param string The word you want to find.
+     * @return True if the word is found, and it's last letter completes a word.
+     */
+    @Override
+    public boolean findWord(String string) {
+        TrieNode n = find(string);
+        return n != null && n.isEndOfWord();
+    }
+
+    /**
+     * Adds a word to its segment, in lower case, without the white space around it. The segment is kept loaded from
+     * then on, and the word isn't written to the segment's file.
+     * @param word The word to add.
+     * @return True if the word wasn't already in the dictionary.
+     */
+    @Override
+    public boolean addWord(String word) {
+        if (word == null || word.trim().length() == 0) return false;
+        String key = key(word.trim().toLowerCase());
+        Trie segment = loadedSegment(key);
+        synchronized (this) {
+            if (!changedSegment(key, segment).addWord(word)) return false;
+            this.counts.merge(key, 1, Integer::sum);
+            this.numberOfWords++;
+            return true;
+        }
+    }
+
+    /**
+     * Removes a word from its segment. The segment is kept loaded from then on, and its file isn't changed.
+     * @param word The word to remove.
+     * @return True if the word was in the dictionary.
+     */
+    @Override
+    public boolean remove(String word) {
+        if (word == null || word.trim().length() == 0) return false;
+        String key = key(word.trim().toLowerCase());
+        Trie segment = loadedSegment(key);
+        if (segment == null) return false;
+        synchronized (this) {
+            if (!changedSegment(key, segment).remove(word)) return false;
+            this.counts.merge(key, -1, Integer::sum);
+            this.numberOfWords--;
+            return true;
+        }
+    }
+
+    /**
+     * Counts the words starting with the prefix. Prefixes no longer than the segments' prefix are counted from the
+     * index, without loading anything.
+     * @param prefix The prefix.
+     * @return The number of words starting with the prefix.
+     */
+    @Override
+    public int countPrefix(String prefix) {
+        if (prefix == null) return 0;
+        String lower = prefix.trim().toLowerCase();
+        if (lower.length() > this.prefixLength) {
+            Trie segment = loadedSegment(key(lower));
+            return segment == null ? 0 : segment.countPrefix(lower);
+        }
+        synchronized (this) {
+            int count = 0;
+            for (Map.Entry<String, Integer> segment : this.counts.tailMap(lower).entrySet()) {
+                if (!segment.getKey().startsWith(lower)) break;
+                count += segment.getValue();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Creates a cursor at the empty prefix, which only loads a segment once it's past the segments' prefix.
+     * @return A new cursor.
+     */
+    @Override
+    public PrefixCursor cursor() {
+        return new SegmentCursor();
+    }
+
+    /**
+     * Get suggestions from the word's own segment(see Trie.wordSuggestions), so a misspelling in the first letters
+     * only finds words sharing those letters.
+     * @param word The misspelled word.
+     * @return The segment's suggestions, then "Manual Entry" and "Ignore".
+     */
+    @Override
+    public ArrayList<String> wordSuggestions(String word) {
+        Trie segment = this.segment(word);
+        if (segment != null) return segment.wordSuggestions(word);
+        ArrayList<String> suggestions = new ArrayList<>();
+        suggestions.add("Manual Entry");
+        suggestions.add("Ignore");
+        return suggestions;
+    }
+
+    @Override
+    public synchronized int numberOfWords() { return this.numberOfWords; }
+
+    /**
+     * Describes the dictionary: its words, and its segments on disk and in memory.
+     * @return The stats, by name.
+     */
+    @Override
+    public synchronized Map<String, Number> stats() {
+        LinkedHashMap<String, Number> stats = new LinkedHashMap<>();
+        stats.put("words", this.numberOfWords);
+        stats.put("segments", this.index.size());
+        stats.put("loadedSegments", this.loaded.size());
+        stats.put("segmentLoads", this.segmentLoads);
+        stats.put("segmentEvictions", this.segmentEvictions);
+        return stats;
+    }
+
+    /**
+     * Lazily iterates over every word, in sorted order, loading each segment as it's reached.
+     * @return An iterator over the dictionary's words.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        ArrayList<String> keys;
+        synchronized (this) {
+            keys = new ArrayList<>(this.counts.keySet());
+        }
+        Iterator<String> segmentKeys = keys.iterator();
+        return new Iterator<String>() {
+            private Iterator<String> words = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!this.words.hasNext() && segmentKeys.hasNext()) {
+                    Trie segment = loadedSegment(segmentKeys.next());
+                    if (segment != null) this.words = segment.iterator();
+                }
+                return this.words.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return this.words.next();
+            }
+        };
+    }
+
+    public int prefixLength() { return this.prefixLength; }
+
+    public int numberOfSegments() { return this.index.size(); }
+
+    public synchronized int loadedSegments() { return this.loaded.size(); }
+
+    public synchronized int segmentLoads() { return this.segmentLoads; }
+
+    public synchronized int segmentEvictions() { return this.segmentEvictions; }
+
+    /**
+     * Buffers the letters until they reach the segments' prefix(checking them against the index), then walks the
+     * segment's own trie.
+     */
+    private class SegmentCursor implements PrefixCursor {
+        private final StringBuilder prefix = new StringBuilder();
+        private PrefixCursor inSegment;
+
+        @Override
+        public boolean next(char letter) {
+            if (this.inSegment != null) return this.inSegment.next(letter);
+            String longer = this.prefix.toString() + Character.toLowerCase(letter);
+            if (longer.length() < prefixLength) {
+                if (countPrefix(longer) == 0) return false;
+            }
+            else {
+                Trie segment = loadedSegment(longer);
+                if (segment == null) return false;
+                PrefixCursor cursor = segment.cursor();
+                for (int i = 0; i < longer.length(); i++) {
+                    if (!cursor.next(longer.charAt(i))) return false;
+                }
+                this.inSegment = cursor;
+            }
+            this.prefix.append(Character.toLowerCase(letter));
+            return true;
+        }
+
+        @Override
+        public boolean isWord() {
+            if (this.inSegment != null) return this.inSegment.isWord();
+            return this.prefix.length() > 0 && findWord(this.prefix.toString());
+        }
+
+        @Override
+        public int countWords() {
+            if (this.inSegment != null) return this.inSegment.countWords();
+            return countPrefix(this.prefix.toString());
+        }
+
+        @Override
+        public int depth() {
+            return this.inSegment != null ? this.inSegment.depth() : this.prefix.length();
+        }
+
+        @Override
+        public void reset() {
+            this.prefix.setLength(0);
+            this.inSegment = null;
+        }
+    }
+
+    /**
+     * Name of the file holding a segment. Uses the characters' hex codes, since prefixes can hold punctuation.
+     * @param key The segment's prefix.
+     * @return The segment's file name.
+     */
+    private static String segmentFileName(String key) {
+        return "segment_" + encodeKey(key) + ".txt";
+    }
+
+    private static String encodeKey(String key) {
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < key.length(); i++) {
+            if (i > 0) encoded.append('_');
+            encoded.append(Integer.toHexString(key.charAt(i)));
+        }
+        return encoded.toString();
+    }
+
+    private static String decodeKey(String encoded) {
+        StringBuilder key = new StringBuilder();
+        for (String hex : encoded.split("_")) key.append((char) Integer.parseInt(hex, 16));
+        return key.toString();
+    }
+}
@@ -1,34 +1,66 @@
 package edu.isu.cs2235.structures.implementations;
 
 
+import edu.isu.cs2235.structures.Dictionary;
+import edu.isu.cs2235.structures.PrefixCursor;
+
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Brandon Watkins
  */
-public class Trie {
+public class Trie implements Dictionary {
 
     private Integer numberOfNodes;
     private Integer numberOfLeaves;
     private TrieNode root;
     private TrieNode pointer;
+    private AnagramIndex anagramIndex;
+    private PhoneticIndex phoneticIndex;
+    private Trie reverse;
+    private TrigramIndex trigramIndex;
+    private BKTree bkTree;
+    private int bkTreeMinLength = 12;
+    private PerfectHashDictionary perfectHash;
+    private boolean adaptiveSiblingOrder;
+    private int reorderInterval = 1 << 16;
+    private int lookupsSinceReorder;
+    private boolean siblingStats;
+    private long characterLookups;
+    private long siblingHops;
+    private int packedLevels;
+    private boolean parallelSuggestions;
+    private int parallelMinLength = 8;
+    private WordPool words;
+    private BitSet removedWords;
 
     public Trie(){
         this.root = new TrieNode(' ', null, false);
         this.numberOfNodes = 0;
         this.numberOfLeaves = 0;
         this.pointer = this.root;
+        this.words = new WordPool();
+        this.removedWords = new BitSet();
     }
 
     public Trie(TrieNode node){
         this.root = node;
-        TrieNode pointer = node.firstChild();
-        for(int i = 0; i < node.numChildren() && pointer != null; i++){
-            if (pointer.isEndOfWord()) this.numberOfLeaves++;
-            this.numberOfNodes++;
-            pointer = pointer.next();
-        }
+        this.recount();
+        this.renumber();
         this.pointer = this.root;
     }
 
@@ -38,10 +70,200 @@ public class Trie {
 
     public void incNodeCount() { this.numberOfNodes++; }
 
+    public void decWordCount(){
+        if (this.numberOfLeaves > 0) this.numberOfLeaves--;
+    }
+
+    public void decNodeCount() { if (this.numberOfNodes > 0) this.numberOfNodes--; }
+
+    /**
+     * Marks the node as completing a word, counting the word only if it wasn't already marked.
+     * @param node The node holding the last letter of the word.
+     * @return True if this is a new word for the trie.
+     */
+    public boolean markWord(TrieNode node){
+        if (node == null || node == this.root || node.isEndOfWord()) return false;
+        return markWord(node, node.toString());
+    }
+
+    /**
+     * Marks the node as completing the word, counting the word and giving it the next word id, only if it wasn't
+     * already marked. A removed word being added back gets its old id back.
+     * @param node The node holding the last letter of the word.
+     * @param word The word spelled from root to the node.
+     * @return True if this is a new word for the trie.
+     */
+    public boolean markWord(TrieNode node, CharSequence word){
+        if (node == null || node == this.root || node.isEndOfWord()) return false;
+        node.endOfWord(true);
+        if (node.wordId() >= 0 && this.removedWords.get(node.wordId())) this.removedWords.clear(node.wordId());
+        else node.wordId(this.words.add(word));
+        this.incWordCount();
+        adjustWordsInSubtree(node, 1);
+        return true;
+    }
+
+    /**
+     * Adjusts the subtree word count of the node and each of its ancestors, up to root.
+     * @param node The node a word was added to, or removed from.
+     * @param change The change in the number of words.
+     */
+    private void adjustWordsInSubtree(TrieNode node, int change){
+        for (TrieNode pointer = node; pointer != null; pointer = pointer.parent()){
+            pointer.wordsInSubtree(pointer.wordsInSubtree() + change);
+        }
+    }
+
+    /**
+     * Adds (or finds the existing) child node for the character, only counting nodes that are actually created.
+     * @param parent The node to add the child to.
+     * @param character The character being stored in the child node.
+     * @return The new, or already existing, child node.
+     */
+    public TrieNode addChild(TrieNode parent, Character character){
+        int childrenBefore = parent.numChildren();
+        TrieNode child = parent.addChild(character, false);
+        if (parent.numChildren() > childrenBefore) this.incNodeCount();
+        return child;
+    }
+
     public int numberOfNodes(){ return this.numberOfNodes; }
 
+    /**
+     * The pool every word id is decoded from.
+     * @return The trie's word pool.
+     */
+    public WordPool wordPool() { return this.words; }
+
+    /**
+     * Decodes a word id, given out when the word was added(see TrieNode.wordId). Ids stay the same until compact is
+     * run, which gives the words new ids, in sorted order.
+     * @param wordId The word's id.
+     * @return The word, or null if there's no such word(or it has been removed).
+     */
+    public String word(int wordId){
+        if (!isWord(wordId)) return null;
+        return this.words.word(wordId);
+    }
+
+    /**
+     * Gets the word's id.
+     * @param word The word.
+     * @return The word's id, or -1 if it isn't in the trie.
+     */
+    public int wordId(String word){
+        TrieNode node = find(word);
+        return node != null && node.isEndOfWord() ? node.wordId() : -1;
+    }
+
+    /**
+     * Determines if the word id belongs to a word still in the trie.
+     * @param wordId The word's id.
+     * @return True if the word id is in use, and its word hasn't been removed.
+     */
+    public boolean isWord(int wordId){
+        return wordId >= 0 && wordId < this.words.size() && !this.removedWords.get(wordId);
+    }
+
     public int numberOfWords() { return this.numberOfLeaves; }
 
+    /**
+     * The trie's anagram index, if one was built(see FillTree.buildAnagramIndex, or AnagramIndex.of).
+     * @return The anagram index, or null if there isn't one.
+     */
+    public AnagramIndex anagramIndex() { return this.anagramIndex; }
+
+    /**
+     * Set the trie's anagram index, which words added to the trie will be added to.
+     * @param anagramIndex The anagram index for this trie, or null for none.
+     * @return The anagram index.
+     */
+    public AnagramIndex anagramIndex(AnagramIndex anagramIndex) { return this.anagramIndex = anagramIndex; }
+
+    /**
+     * The trie's sound-alike index, if one was built(see FillTree.buildPhoneticIndex, or PhoneticIndex.of).
+     * @return The phonetic index, or null if there isn't one.
+     */
+    public PhoneticIndex phoneticIndex() { return this.phoneticIndex; }
+
+    /**
+     * Set the trie's sound-alike index, used by wordSuggestions when the edit based searches find nothing.
+     * @param phoneticIndex The phonetic index for this trie, or null for none.
+     * @return The phonetic index.
+     */
+    public PhoneticIndex phoneticIndex(PhoneticIndex phoneticIndex) { return this.phoneticIndex = phoneticIndex; }
+
+    /**
+     * The trie's trigram index, if one was built(see FillTree.buildTrigramIndex, or TrigramIndex.of).
+     * @return The trigram index, or null if there isn't one.
+     */
+    public TrigramIndex trigramIndex() { return this.trigramIndex; }
+
+    /**
+     * Set the trie's trigram index, used by wordSuggestions for badly misspelled words, when nothing closer is found.
+     * @param trigramIndex The trigram index for this trie, or null for none.
+     * @return The trigram index.
+     */
+    public TrigramIndex trigramIndex(TrigramIndex trigramIndex) { return this.trigramIndex = trigramIndex; }
+
+    /**
+     * The trie's BK-tree, if one was built(see FillTree.buildBKTree, or BKTree.of).
+     * @return The BK-tree, or null if there isn't one.
+     */
+    public BKTree bkTree() { return this.bkTree; }
+
+    /**
+     * Set the trie's BK-tree, which words added to, or removed from, the trie will also be added to or removed from.
+     * Used by wordSuggestions, instead of the edit based searches, for words at least bkTreeMinLength long.
+     * @param bkTree The BK-tree for this trie, or null for none.
+     * @return The BK-tree.
+     */
+    public BKTree bkTree(BKTree bkTree) { return this.bkTree = bkTree; }
+
+    /**
+     * The shortest word that gets its suggestions from the BK-tree(when there is one), rather than the edit based
+     * searches.
+     * @return The shortest word length using the BK-tree.
+     */
+    public int bkTreeMinLength() { return this.bkTreeMinLength; }
+
+    /**
+     * Set the shortest word that gets its suggestions from the BK-tree(when there is one), rather than the edit based
+     * searches.
+     * @param bkTreeMinLength The shortest word length to use the BK-tree for.
+     * @return The shortest word length using the BK-tree.
+     */
+    public int bkTreeMinLength(int bkTreeMinLength) { return this.bkTreeMinLength = bkTreeMinLength; }
+
+    /**
+     * The trie's perfect hash dictionary, if one was built(see FillTree.buildPerfectHash, or PerfectHashDictionary.of).
+     * @return The perfect hash dictionary, or null if there isn't one.
+     */
+    public PerfectHashDictionary perfectHash() { return this.perfectHash; }
+
+    /**
+     * Set the trie's perfect hash dictionary, which findWord checks before walking the trie, so misspellings(most of
+     * what a spell checker looks up) are turned away without walking it. Suggestions still come from the trie. The dictionary is read-only, so it's dropped as soon as a word is added to, or removed from, the
+     * trie.
+     * @param perfectHash The perfect hash dictionary for this trie's words, or null for none.
+     * @return The perfect hash dictionary.
+     */
+    public PerfectHashDictionary perfectHash(PerfectHashDictionary perfectHash) { return this.perfectHash = perfectHash; }
+
+    /**
+     * The trie's reverse word trie(each word stored back to front), if one was built(see FillTree.buildReverseTrie).
+     * @return The reverse trie, or null if there isn't one.
+     */
+    public Trie reverse() { return this.reverse; }
+
+    /**
+     * Set the trie's reverse word trie, which words added to, or removed from, the trie will also be added to or
+     * removed from. Lets the prefix side and middle edit searches work from the end of the word.
+     * @param reverse The reverse trie for this trie(holding the same words, reversed), or null for none.
+     * @return The reverse trie.
+     */
+    public Trie reverse(Trie reverse) { return this.reverse = reverse; }
+
     /**
      * Current node being searched through(looking for matching children)
      * @return Current node being searched through(looking for matching children)
@@ -119,6 +341,32 @@ public class Trie {
         return this.pointer(this.pointer().prev());
     }
 
+    /**
+     * Lazily iterates over every word in the trie, in sorted order.
+     * @return An iterator over the trie's words.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new TrieWordIterator(this);
+    }
+
+    /**
+     * Splits the trie's words, at nodes with several children, for parallel streams.
+     * @return A spliterator over the trie's words, in sorted order.
+     */
+    @Override
+    public Spliterator<String> spliterator() {
+        return new TrieWordSpliterator(this);
+    }
+
+    /**
+     * Streams every word in the trie, in sorted order. Use words().parallel() to spread the work across cores.
+     * @return A stream of the trie's words.
+     */
+    public Stream<String> words() {
+        return StreamSupport.stream(this.spliterator(), false);
+    }
+
     /**
      * Add a word to the trie. Intentionally does not add the word to the word file.
      * @param wordToAdd The word you want to add to the trie.
@@ -128,19 +376,267 @@ public class Trie {
         this.pointer(this.root());
         // for each new letter...
         for (int currentIndex = 0; currentIndex < wordToAdd.length(); currentIndex++) {
-            boolean endOfWord = false;
-            if (currentIndex == wordToAdd.length() - 1) endOfWord = true;
-            // Create a new child TrieNode with the new letter
-            TrieNode newNode = this.pointer().addChild(wordToAdd.charAt(currentIndex), endOfWord);
-            this.incNodeCount();
-            //mark the letter completes the word, increase the word count.
-            if (endOfWord) this.incWordCount();
+            // Create a new child TrieNode with the new letter(or reuse the existing one)
+            TrieNode newNode = this.addChild(this.pointer(), wordToAdd.charAt(currentIndex));
             // set pointer to the new node
             this.pointer(newNode);
         }
+        //mark the last letter as completing the word, increase the word count if it's new.
+        if (this.markWord(this.pointer(), wordToAdd)) {
+            if (this.anagramIndex != null) this.anagramIndex.add(wordToAdd, this.pointer().wordId());
+            if (this.reverse != null) this.reverse.add(reversed(wordToAdd));
+            if (this.bkTree != null) this.bkTree.add(wordToAdd);
+            this.perfectHash = null;
+        }
         return this.pointer();
     }
 
+    /**
+     * Adds a word to the trie, in lower case, without the white space around it.
+     * @param wordToAdd The word to add.
+     * @return True if the word wasn't already in the trie.
+     */
+    public boolean addWord(String wordToAdd){
+        if (wordToAdd == null || wordToAdd.trim().length() == 0) return false;
+        int wordsBefore = this.numberOfWords();
+        this.add(wordToAdd.trim().toLowerCase());
+        return this.numberOfWords() > wordsBefore;
+    }
+
+    /**
+     * Creates a cursor at the empty prefix(see TrieCursor).
+     * @return A new cursor.
+     */
+    public PrefixCursor cursor(){
+        return new TrieCursor(this);
+    }
+
+    /**
+     * Describes the trie: its words and nodes, and the size of each index it has.
+     * @return Each statistic's value, by name.
+     */
+    public Map<String, Number> stats(){
+        LinkedHashMap<String, Number> stats = new LinkedHashMap<>();
+        stats.put("words", this.numberOfWords());
+        stats.put("nodes", this.numberOfNodes());
+        stats.put("wordPoolBytes", this.words.memoryBytes());
+        if (this.reverse != null) stats.put("reverseNodes", this.reverse.numberOfNodes());
+        if (this.trigramIndex != null) stats.put("trigramPostingBytes", this.trigramIndex.postingBytes());
+        if (this.bkTree != null) stats.put("bkTreeHeight", this.bkTree.height());
+        if (this.perfectHash != null) stats.put("perfectHashBitsPerWord", this.perfectHash.bitsPerWord());
+        return stats;
+    }
+
+    /**
+     * Removes a word from the trie, pruning any nodes that no longer lead to a word. Intentionally does not remove the
+     * word from the word file.
+     * @param wordToRemove The word you want to remove from the trie.
+     * @return True if the word was in the trie, and has been removed.
+     */
+    public boolean remove(String wordToRemove){
+        TrieNode node = find(wordToRemove);
+        if (node == null || !node.isEndOfWord()) return false;
+        node.endOfWord(false);
+        // the node keeps its word id, in case the word is added back.
+        if (node.wordId() >= 0) this.removedWords.set(node.wordId());
+        this.decWordCount();
+        adjustWordsInSubtree(node, -1);
+        // walk back up the parent chain, dropping each node that is no longer part of any word.
+        while (node != this.root && node.numChildren() == 0 && !node.isEndOfWord()){
+            TrieNode parent = node.parent();
+            parent.removeChild(node);
+            this.decNodeCount();
+            node = parent;
+        }
+        // the pointer may have been left on a pruned node.
+        this.pointer(this.root());
+        if (this.reverse != null) this.reverse.remove(reversed(wordToRemove.trim().toLowerCase()));
+        if (this.bkTree != null) this.bkTree.remove(wordToRemove);
+        this.perfectHash = null;
+        return true;
+    }
+
+    /**
+     * Rebuilds the trie into freshly allocated nodes, dropping any branch that doesn't lead to a word, so the memory
+     * held by the trie matches the words still in it. Meant to be run after a large number of removals.
+     * @return The number of nodes reclaimed.
+     */
+    public int compact(){
+        int nodesBefore = this.numberOfNodes;
+        TrieNode newRoot = new TrieNode(this.root.value(), null, false);
+        copyLiveChildren(this.root, newRoot);
+        this.root = newRoot;
+        this.pointer = this.root;
+        this.recount();
+        this.renumber();
+        if (this.packedLevels > 0) this.packChildLabels(this.packedLevels);
+        // the indexes point at the old word ids.
+        if (this.anagramIndex != null) this.anagramIndex = AnagramIndex.of(this);
+        if (this.phoneticIndex != null) this.phoneticIndex = PhoneticIndex.of(this);
+        if (this.trigramIndex != null) this.trigramIndex = TrigramIndex.of(this);
+        if (this.reverse != null) this.reverse.compact();
+        return nodesBefore - this.numberOfNodes;
+    }
+
+    /**
+     * Copies each child of the old node that still leads to a word, in order, under the new node.
+     * @param oldNode The node being copied from.
+     * @param newNode The node being copied to.
+     * @return True if anything under the old node completes a word.
+     */
+    private boolean copyLiveChildren(TrieNode oldNode, TrieNode newNode){
+        boolean live = false;
+        TrieNode pointer = oldNode.firstChild();
+        while (pointer != null){
+            TrieNode copy = newNode.addChild(pointer.value(), pointer.isEndOfWord());
+            if (copyLiveChildren(pointer, copy) || pointer.isEndOfWord()) live = true;
+            else newNode.removeChild(copy);
+            pointer = pointer.next();
+        }
+        return live;
+    }
+
+    /**
+     * Recounts the nodes(excluding root) and words in the trie, and the number of words in each node's subtree.
+     */
+    private void recount(){
+        this.numberOfNodes = 0;
+        this.numberOfLeaves = 0;
+        if (this.root == null) return;
+        ArrayList<TrieNode> preOrder = new ArrayList<>();
+        ArrayDeque<TrieNode> stack = new ArrayDeque<>();
+        stack.push(this.root);
+        while (!stack.isEmpty()){
+            TrieNode node = stack.pop();
+            preOrder.add(node);
+            for (TrieNode child = node.firstChild(); child != null; child = child.next()){
+                this.numberOfNodes++;
+                if (child.isEndOfWord()) this.numberOfLeaves++;
+                stack.push(child);
+            }
+        }
+        // children always come after their parent in pre-order, so going backwards counts each child before its parent.
+        for (int i = preOrder.size() - 1; i >= 0; i--){
+            TrieNode node = preOrder.get(i);
+            int words = node.isEndOfWord() && node != this.root ? 1 : 0;
+            for (TrieNode child = node.firstChild(); child != null; child = child.next()) words += child.wordsInSubtree();
+            node.wordsInSubtree(words);
+        }
+    }
+
+    /**
+     * Gives each word a new id, in sorted order, and rebuilds the word pool with only the words still in the trie.
+     */
+    private void renumber(){
+        this.words = new WordPool();
+        this.removedWords = new BitSet();
+        renumber(this.root, new char[16], 0);
+    }
+
+    private char[] renumber(TrieNode node, char[] path, int depth){
+        for (TrieNode child = node.firstChild(); child != null; child = child.next()){
+            if (depth == path.length) path = Arrays.copyOf(path, depth * 2);
+            path[depth] = child.value();
+            child.wordId(child.isEndOfWord() ? this.words.add(new String(path, 0, depth + 1)) : -1);
+            path = renumber(child, path, depth + 1);
+        }
+        return path;
+    }
+
+    /**
+     * Counts the words starting with the prefix(including the prefix itself, if it's a word), in O(prefix length).
+     * @param prefix The prefix to count words for.
+     * @return The number of words starting with the prefix.
+     */
+    public int countPrefix(String prefix){
+        if (prefix == null) return 0;
+        if (prefix.trim().length() == 0) return this.root.wordsInSubtree();
+        TrieNode n = find(prefix);
+        if (n == null) return 0;
+        return n.wordsInSubtree();
+    }
+
+    /**
+     * Determines the word's position in the sorted word list, which is the number of words that sort before it. The
+     * word doesn't need to be in the trie.
+     * @param word The word to rank.
+     * @return The number of words in the trie that come before the word.
+     */
+    public int rank(String word){
+        if (word == null) return 0;
+        word = word.trim().toLowerCase();
+        int rank = 0;
+        TrieNode node = this.root;
+        for (int i = 0; i < word.length(); i++){
+            // a word ending here is a prefix of the word, so it comes first.
+            if (node != this.root && node.isEndOfWord()) rank++;
+            char character = word.charAt(i);
+            TrieNode child = node.firstChild();
+            while (child != null && child.value() < character){
+                rank += child.wordsInSubtree();
+                child = child.next();
+            }
+            if (child == null || child.value() != character) return rank;
+            node = child;
+        }
+        return rank;
+    }
+
+    /**
+     * Finds the word at the given position in the sorted word list.
+     * @param rank The word's position, starting at 0.
+     * @return The word, or null if rank is outside of the word list.
+     */
+    public String select(int rank){
+        StringBuilder word = new StringBuilder();
+        return select(rank, word) == null ? null : word.toString();
+    }
+
+    /**
+     * Finds the node completing the word at the given position in the sorted word list.
+     * @param rank The word's position, starting at 0.
+     * @param word Gets the word's letters.
+     * @return The node, or null if rank is outside of the word list.
+     */
+    private TrieNode select(int rank, StringBuilder word){
+        if (rank < 0 || rank >= this.root.wordsInSubtree()) return null;
+        TrieNode node = this.root;
+        while (node != null){
+            if (node != this.root && node.isEndOfWord()){
+                if (rank == 0) return node;
+                rank--;
+            }
+            TrieNode child = node.firstChild();
+            while (child != null && rank >= child.wordsInSubtree()){
+                rank -= child.wordsInSubtree();
+                child = child.next();
+            }
+            if (child != null) word.append(child.value());
+            node = child;
+        }
+        return null;
+    }
+
+    /**
+     * Gets a page of the sorted word list.
+     * @implNote The first word is found by rank, walking down from root once, then the rest of the page is iterated
+     * over in sorted order from there(see TrieWordIterator).
+     * @param fromRank The position of the first word to get, starting at 0.
+     * @param count The most words to get.
+     * @return The words, in sorted order.
+     */
+    public ArrayList<String> wordsInRange(int fromRank, int count){
+        ArrayList<String> words = new ArrayList<>();
+        int start = Math.max(0, fromRank);
+        int limit = fromRank + count - start;
+        StringBuilder path = new StringBuilder();
+        TrieNode first = limit > 0 ? select(start, path) : null;
+        if (first == null) return words;
+        Iterator<String> iterator = new TrieWordIterator(path.substring(0, path.length() - 1).toCharArray(), first);
+        while (words.size() < limit && iterator.hasNext()) words.add(iterator.next());
+        return words;
+    }
+
     /**
      * Finds the specified character, within current node's children, or null if not found.
      * @param character The character to search for.
@@ -149,16 +645,204 @@ public class Trie {
     public TrieNode find(Character character, TrieNode pointer){
         if (character == null) return null;
         character = Character.toLowerCase(character);
+        if (this.adaptiveSiblingOrder && pointer.byFrequency() != null) return findByFrequency(character, pointer.byFrequency());
+        if (pointer.packedLabels() != null) return findPacked(character, pointer.packedLabels());
         int numChildren = pointer.numChildren();
         pointer = pointer.firstChild();
         for (int i = 0; i < numChildren && pointer != null; i++){
-            if (character == pointer.value()) return pointer;
-            else if (character < pointer.value()) return null;
+            if (character == pointer.value()) {
+                if (this.siblingStats) countLookup(i + 1);
+                if (this.adaptiveSiblingOrder) accessed(pointer);
+                return pointer;
+            }
+            else if (character < pointer.value()) {
+                if (this.siblingStats) countLookup(i + 1);
+                return null;
+            }
             else pointer = pointer.next();
         }
+        if (this.siblingStats) countLookup(numChildren);
+        return null;
+    }
+
+    /**
+     * Finds the character among the children, most often found first. They aren't in letter order, so every child has
+     * to be checked before giving up.
+     * @param character The(lower case) character to search for.
+     * @param children The children, by frequency.
+     * @return The node containing the character, or null if not found.
+     */
+    private TrieNode findByFrequency(char character, TrieNode[] children){
+        for (int i = 0; i < children.length; i++){
+            if (children[i].value() == character) {
+                if (this.siblingStats) countLookup(i + 1);
+                accessed(children[i]);
+                return children[i];
+            }
+        }
+        if (this.siblingStats) countLookup(children.length);
         return null;
     }
 
+    /**
+     * Finds the character among the packed children(see PackedLabels), comparing it against 4 children at a time.
+     * @param character The(lower case) character to search for.
+     * @param children The packed children.
+     * @return The node containing the character, or null if not found.
+     */
+    private TrieNode findPacked(char character, PackedLabels children){
+        int index = children.indexOf(character);
+        if (this.siblingStats) countLookup(index < 0 ? children.size() : index + 1);
+        if (index < 0) return null;
+        TrieNode child = children.child(index);
+        if (this.adaptiveSiblingOrder) accessed(child);
+        return child;
+    }
+
+    /**
+     * Packs the letters of the children of every node in the top levels that has at least PackedLabels.MIN_CHILDREN
+     * children(see PackedLabels), so finding a child there compares several letters at once. Packed nodes are kept
+     * up to date as words are added and removed, and compact packs the same levels again. Only the top levels are
+     * packed, since every lookup goes through them, and the nodes below rarely have enough children to be worth it.
+     * @param levels The number of levels to pack, starting with root. 0 unpacks every node.
+     * @return The number of nodes packed.
+     */
+    public int packChildLabels(int levels){
+        int before = this.packedLevels;
+        this.packedLevels = Math.max(0, levels);
+        return packChildLabels(this.root, 0, Math.max(before, this.packedLevels));
+    }
+
+    /**
+     * Packs(or unpacks) the node, and the nodes below it, down to the given depth.
+     */
+    private int packChildLabels(TrieNode node, int depth, int maxDepth){
+        if (depth >= maxDepth) return 0;
+        int packed = 0;
+        if (depth < this.packedLevels && node.numChildren() >= PackedLabels.MIN_CHILDREN){
+            node.packedLabels(PackedLabels.of(node));
+            packed++;
+        }
+        else node.packedLabels(null);
+        for (TrieNode child = node.firstChild(); child != null; child = child.next()) packed += packChildLabels(child, depth + 1, maxDepth);
+        return packed;
+    }
+
+    /**
+     * Get the number of levels whose nodes have their children packed(see packChildLabels).
+     * @return The number of packed levels, 0 for none.
+     */
+    public int packedLevels(){ return this.packedLevels; }
+
+    /**
+     * Counts an access to the node, and reorders the siblings every reorderInterval lookups. The reorder runs on the
+     * lookup's own thread, so no word can be added or removed part way through it, leaving a node with an out of date
+     * frequency order. While parallelSuggestions is on, lookups aren't counted(and nothing is reordered), since the
+     * searches' threads would race to update the counts, and to reorder the nodes they're reading. The last frequency
+     * order is still searched.
+     */
+    private void accessed(TrieNode node){
+        if (this.parallelSuggestions) return;
+        node.accessCount(node.accessCount() + 1);
+        if (++this.lookupsSinceReorder < this.reorderInterval) return;
+        this.lookupsSinceReorder = 0;
+        this.reorderSiblings();
+    }
+
+    private void countLookup(int hops){
+        this.characterLookups++;
+        this.siblingHops += hops;
+    }
+
+    /**
+     * Orders each node's children by how often they've been found(see TrieNode.byFrequency), for lookups while
+     * adaptiveSiblingOrder is on, then halves every count, so older lookups matter less than newer ones. Run every
+     * reorderInterval lookups, on the lookup's thread, or call it directly. Nodes with fewer than 2 children, or whose
+     * children haven't been found since the last reorder, keep the sorted order.
+     * @return The number of nodes given a frequency order.
+     */
+    public int reorderSiblings(){
+        int reordered = 0;
+        ArrayDeque<TrieNode> stack = new ArrayDeque<>();
+        stack.push(this.root);
+        while (!stack.isEmpty()){
+            TrieNode node = stack.pop();
+            int count = node.numChildren();
+            TrieNode[] children = new TrieNode[count];
+            int i = 0;
+            boolean accessed = false;
+            for (TrieNode child = node.firstChild(); child != null && i < count; child = child.next()){
+                children[i++] = child;
+                if (child.accessCount() > 0) accessed = true;
+                stack.push(child);
+            }
+            if (i < 2 || !accessed) {
+                node.byFrequency(null);
+                continue;
+            }
+            TrieNode[] ordered = i == count ? children : Arrays.copyOf(children, i);
+            // a stable sort, so children found equally often stay in letter order.
+            Arrays.sort(ordered, (a, b) -> Integer.compare(b.accessCount(), a.accessCount()));
+            for (TrieNode child : ordered) child.accessCount(child.accessCount() / 2);
+            // published with a single volatile write, so lookups on other threads see the old order or the whole new one.
+            node.byFrequency(ordered);
+            reordered++;
+        }
+        return reordered;
+    }
+
+    /**
+     * Get whether lookups search each node's children most often found first(see reorderSiblings), instead of in
+     * letter order. Off by default.
+     * @return True if siblings are searched by frequency.
+     */
+    public boolean adaptiveSiblingOrder() { return this.adaptiveSiblingOrder; }
+
+    /**
+     * Set whether lookups count how often each child is found, and search each node's children most often found
+     * first, once they've been reordered. The sorted sibling list itself never changes, so iteration and the edit
+     * searches are unaffected.
+     * @param adaptiveSiblingOrder True to search siblings by frequency.
+     * @return True if siblings are searched by frequency.
+     */
+    public boolean adaptiveSiblingOrder(boolean adaptiveSiblingOrder) { return this.adaptiveSiblingOrder = adaptiveSiblingOrder; }
+
+    /**
+     * Get the number of counted lookups between reorders.
+     * @return The number of lookups between reorders.
+     */
+    public int reorderInterval() { return this.reorderInterval; }
+
+    /**
+     * Set the number of counted lookups between reorders.
+     * @param reorderInterval The number of lookups between reorders.
+     * @return The number of lookups between reorders.
+     */
+    public int reorderInterval(int reorderInterval) { return this.reorderInterval = Math.max(1, reorderInterval); }
+
+    /**
+     * Set whether character lookups count the siblings they check(see averageSiblingHops). Off by default.
+     * @param siblingStats True to count sibling hops.
+     * @return True if sibling hops are being counted.
+     */
+    public boolean siblingStats(boolean siblingStats) { return this.siblingStats = siblingStats; }
+
+    /**
+     * Get the average number of siblings checked per character lookup, since the stats were last reset.
+     * @return The average sibling hops per lookup, or 0 if there haven't been any.
+     */
+    public double averageSiblingHops() {
+        return this.characterLookups == 0 ? 0 : (double) this.siblingHops / this.characterLookups;
+    }
+
+    /**
+     * Resets the sibling hop counts.
+     */
+    public void resetSiblingStats() {
+        this.characterLookups = 0;
+        this.siblingHops = 0;
+    }
+
     /**
      * Finds the specified character, within current pointer node's children, or null if not found.
      * @param character The character to search for.
@@ -193,149 +877,329 @@ public class Trie {
 
     /**
      * Tries to find the specified string
+     * @implNote With a perfect hash dictionary(see perfectHash), a word it doesn't contain can't be in the trie. A word
+     * it does contain is still confirmed by the trie, since its fingerprints wrongly accept about 1 in 65536 non-words.
      * @param string The string you want to find.
      * @return True if the word is found, and it's last letter completes a word.
      */
     public boolean findWord(String string){
+        if (this.perfectHash != null && !this.perfectHash.contains(string)) return false;
         TrieNode n = find(string);
         if (n != null && n.isEndOfWord()) return true;
         return false;
     }
 
+    /**
+     * Follows the string's characters(from start, up to end) down from the node, without making any substrings.
+     * @param node The node to start from.
+     * @param string The(lower case) string to follow.
+     * @param start The index of the first character to follow.
+     * @param end The index after the last character to follow.
+     * @return The node holding the last character, the starting node if there are no characters, or null if the trie
+     * doesn't continue with the characters.
+     */
+    private TrieNode walk(TrieNode node, String string, int start, int end){
+        for (int i = start; i < end && node != null; i++) node = find(string.charAt(i), node);
+        return node;
+    }
+
+    /**
+     * Follows the string's characters backwards(from end - 1, down to start) down from the node, for walking the
+     * reverse trie.
+     * @return The node holding the character at start, the starting node if there are no characters, or null if the
+     * trie doesn't continue with the characters.
+     */
+    private TrieNode walkBackwards(TrieNode node, String string, int start, int end){
+        for (int i = end - 1; i >= start && node != null; i--) node = find(string.charAt(i), node);
+        return node;
+    }
+
+    /**
+     * Reverses the word, for the reverse trie.
+     */
+    private static String reversed(String word){
+        return new StringBuilder(word).reverse().toString();
+    }
+
+    /**
+     * Determines if the missing letter searches try inserting the character: '"' through '@', or 'a' through the last
+     * letter.
+     */
+    private static boolean insertable(char character, char lastLetter){
+        return (character >= '"' && character <= '@') || (character >= 'a' && character <= lastLetter);
+    }
+
+    /**
+     * Finds the words matching a wildcard pattern('?', '*', "[a-z]", "[!aeiou]"), in sorted order. See PatternQuery.
+     * @param pattern The wildcard pattern.
+     * @param limit The most words to find, or 0 for no limit.
+     * @return The matching words.
+     */
+    public ArrayList<String> match(String pattern, int limit){
+        ArrayList<String> words = new ArrayList<>();
+        new PatternQuery(pattern).run(this, limit, words::add);
+        return words;
+    }
+
     /**
      * Searches for words matching a 1-3 letter prefix + search string.
+     * @implNote Rather than trying every possible prefix, only prefixes the trie actually holds are looked at. With a
+     * reverse trie, the search string is walked backwards once, and the words ending in it are found by following the
+     * reverse trie 1-3 letters further. Without one, the 1-3 letter paths from root are each followed by the search
+     * string. Either way the first prefix(in character order) completing a word is returned, with the same letters
+     * tried as before('"' through '@', and 'a' through 'z'). find(String) skips any whitespace, so the string is
+     * searched for without it.
      * @param string the string you want to find word suggestions for.
      * @return A string with 1-3 letters prepended to the search term.
      */
     public String findMissingPrefix(String string){
         if(string.length() == 0) return null;
-        //For up to 1 missing letter...
-        for(int i = '"'; i <= 'z'; i ++){
-            if (i == 'A') i = 'a';
-            String temp = Character.toString(i) + string;
-            TrieNode n;
-            if ((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
-        }
-        //For up to 2 missing letters...
-        for(int i = '"'; i <= 'z'; i ++){
-            if (i == 'A') i = 'a';
-            for(int j = '"'; j <= 'z'; j++){
-                if (j == 'A') j = 'a';
-                String temp = Character.toString(i) + Character.toString(j) + string;
-                TrieNode n;
-                if ((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
-            }
+        String lower = withoutWhitespace(string.toLowerCase());
+        TrieNode wordEnd = null;
+        if (this.reverse != null){
+            wordEnd = walkBackwards(this.reverse.root(), lower, 0, lower.length());
+            if (wordEnd == null) return null;
         }
         //For up to 3 missing letters...
-        for(int i = '"'; i <= 'z'; i ++){
-            if (i == 'A') i = 'a';
-            for(int j = '"'; j <= 'z'; j++){
-                if (j == 'A') j = 'a';
-                for(int k = '"'; k <= 'z'; k++){
-                    if (k == 'A') k = 'a';
-                    String temp = Character.toString(i) + Character.toString(j) + Character.toString(k) + string;
-                    TrieNode n;
-                    if ((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
-                }
-            }
+        for (int missing = 1; missing <= 3; missing++){
+            char[] prefix = new char[missing];
+            char[] found = wordEnd != null ? smallestReversedPrefix(wordEnd, prefix, 0, null)
+                    : firstPrefix(this.root, lower, prefix, 0) ? prefix : null;
+            if (found != null) return new String(found) + string;
         }
         return null;
     }
 
+    /**
+     * Follows the reverse trie the prefix's length further down from the node, keeping the smallest prefix that
+     * completes a word.
+     * @param node The reverse trie node to continue from.
+     * @param prefix Holds the prefix being built, filled in from its end.
+     * @param depth The number of the prefix's letters already filled in.
+     * @param smallest The smallest prefix found so far, or null.
+     * @return The smallest prefix found, or null if none.
+     */
+    private static char[] smallestReversedPrefix(TrieNode node, char[] prefix, int depth, char[] smallest){
+        if (depth == prefix.length){
+            if (node.isEndOfWord() && (smallest == null || Arrays.compare(prefix, smallest) < 0)) smallest = prefix.clone();
+            return smallest;
+        }
+        for (TrieNode child = node.firstChild(); child != null; child = child.next()){
+            if (!insertable(child.value(), 'z')) continue;
+            prefix[prefix.length - 1 - depth] = child.value();
+            smallest = smallestReversedPrefix(child, prefix, depth + 1, smallest);
+        }
+        return smallest;
+    }
+
+    /**
+     * Follows each path of the prefix's length down from the node, in sorted order, until one is followed by the
+     * string to complete a word.
+     * @param node The node to continue from.
+     * @param string The(lower case) string that has to follow the prefix.
+     * @param prefix Holds the prefix being built.
+     * @param depth The number of the prefix's letters already filled in.
+     * @return True if a prefix was found, and left in prefix.
+     */
+    private boolean firstPrefix(TrieNode node, String string, char[] prefix, int depth){
+        if (depth == prefix.length){
+            TrieNode n = walk(node, string, 0, string.length());
+            return n != null && n.isEndOfWord();
+        }
+        for (TrieNode child = node.firstChild(); child != null; child = child.next()){
+            if (!insertable(child.value(), 'z')) continue;
+            prefix[depth] = child.value();
+            if (firstPrefix(child, string, prefix, depth + 1)) return true;
+        }
+        return false;
+    }
+
     /**
      * Searches for words matching the search string + 1-3 letter suffix.
+     * @implNote The string is followed down the trie once, and only the trie's own 1-3 letter paths from there are
+     * tried as the missing letters, in sorted order, with the same letters tried as before('"' through '@', and 'a'
+     * through 'z'), giving the same first match.
      * @param string the string you want to find word suggestions for.
      * @return A string with 1-3 letters appended to the search term.
      */
     public String findMissingSuffix(String string){
         if(string.length() == 0) return null;
-        //For up to 1 missing letter...
-        for(int i = '"'; i <= 'z'; i++){
-            if (i == 'A') i = 'a';
-            String temp = string + Character.toString(i);
-            TrieNode n;
-            if ((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
-        }
-        //For up to 2 missing letters...
-        for(int i = '"'; i <= 'z'; i++){
-            if (i == 'A') i = 'a';
-            for(int j = '"'; j <= 'z'; j++){
-                if (j == 'A') j = 'a';
-                String temp = string + Character.toString(i) + Character.toString(j);
-                TrieNode n;
-                if ((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
-            }
-        }
+        //find(String) trims what's left of the string at every letter, skipping any whitespace, and the missing letters
+        //aren't whitespace, so the string is followed without it.
+        String lower = withoutWhitespace(string.toLowerCase());
+        TrieNode node = walk(this.root, lower, 0, lower.length());
+        if (node == null) return null;
         //For up to 3 missing letters...
-        for(int i = '"'; i <= 'z'; i++){
-            if (i == 'A') i = 'a';
-            for(int j = '"'; j <= 'z'; j++){
-                if (j == 'A') j = 'a';
-                for(int k = '"'; k <= 'z'; k++){
-                    if (k == 'A') k = 'a';
-                    String temp = string + Character.toString(i) + Character.toString(j) + Character.toString(k);
-                    TrieNode n;
-                    if ((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
-                }
-            }
+        for (int missing = 1; missing <= 3; missing++){
+            char[] suffix = new char[missing];
+            if (firstPrefix(node, "", suffix, 0)) return string + new String(suffix);
         }
         return null;
     }
 
     /**
      * Searches for words matching the search string, minus 1-3 letters(in a row) inside of the word.
+     * @implNote The left side of each split is followed down the trie once, a letter further each split, and only the
+     * trie's own 1-3 letter paths from there are tried as the missing letters. With a reverse trie, the right side must
+     * also end a word, so splits it doesn't end any word for are skipped, and the missing letters must also lead into
+     * the right side in the reverse trie, before the word is checked. The same letters are tried as before('"' through
+     * '@', and 'a' through 'y'), giving the same first match.
+     * @implNote find(String) skips any whitespace, so the sides are followed without it, and splits next to whitespace
+     * that give the same sides are only tried once, at the first of them. Strings that change length in lower case are
+     * still tried a candidate at a time.
      * @param string the string you want to find word suggestions for.
      * @return A string with 1-3 letters removed from the interior of the search term.
      */
     public String findMissingMiddle(String string){
         int stringLength = string.length();
         if(stringLength == 0) return null;
-        //for each letter in the given string...
-        for(int u = 1; u < stringLength; u++) {
-            String leftString = string.substring(0, u);
-            String rightString = string.substring(u, string.length());
-            //For up to 1 missing letter...
-            for (int i = '"'; i < 'z'; i++) {
-                if (i == 'A') i = 'a';
-                String temp = leftString + Character.toString(i) + rightString;
-                TrieNode n;
-                if ((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
+        String original = string.toLowerCase();
+        if (original.length() != stringLength) return missingMiddle(string);
+        String lower = withoutWhitespace(original);
+        //the first split of the string giving each split of the string without whitespace, in order.
+        int[] splits = new int[stringLength];
+        int[] lowerSplits = new int[stringLength];
+        int count = 0;
+        for (int u = 1, kept = original.charAt(0) > ' ' ? 1 : 0; u < stringLength; u++){
+            if (count == 0 || lowerSplits[count - 1] != kept){
+                splits[count] = u;
+                lowerSplits[count++] = kept;
             }
-            //For up to 2 missing letters...
-            for (int i = '"'; i < 'z'; i++) {
-                if (i == 'A') i = 'a';
-                for (int j = '"'; j < 'z'; j++) {
-                    if (j == 'A') j = 'a';
-                    String temp = leftString + Character.toString(i) + Character.toString(j) + rightString;
-                    TrieNode n;
-                    if ((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
+            if (original.charAt(u) > ' ') kept++;
+        }
+        //the reverse trie node for each right side, built up from the end of the string.
+        TrieNode[] rightSides = null;
+        if (this.reverse != null){
+            rightSides = new TrieNode[lower.length() + 1];
+            TrieNode node = rightSides[lower.length()] = this.reverse.root();
+            for (int k = lower.length() - 1; k >= 0 && node != null; k--) rightSides[k] = node = find(lower.charAt(k), node);
+        }
+        TrieNode[] leftSides = leftSides(lower);
+        TrieNode[] reverseSides = rightSides;
+        //while a word starts with the left side.
+        while (count > 0 && lowerSplits[count - 1] >= leftSides.length) count--;
+        //for each split...
+        return firstInOrder(string, count, (split, beaten) -> {
+            int u = splits[split];
+            int k = lowerSplits[split];
+            if (reverseSides != null && reverseSides[k] == null) return null;
+            //For up to 3 missing letters...
+            for (int missing = 1; missing <= 3 && !beaten.getAsBoolean(); missing++){
+                char[] middle = new char[missing];
+                if (firstMiddle(leftSides[k], reverseSides != null ? reverseSides[k] : null, lower, k, middle, 0, beaten)){
+                    return string.substring(0, u) + new String(middle) + string.substring(u);
                 }
             }
+            return null;
+        });
+    }
+
+    /**
+     * Searches for words matching the search string, minus 1-3 letters(in a row) inside of the word, looking up each
+     * candidate from root.
+     * @param string the string you want to find word suggestions for.
+     * @return A string with 1-3 letters removed from the interior of the search term.
+     */
+    private String missingMiddle(String string){
+        for (int u = 1; u < string.length(); u++){
             //For up to 3 missing letters...
-            for (int i = '"'; i < 'z'; i++) {
-                if (i == 'A') i = 'a';
-                for (int j = '"'; j < 'z'; j++) {
-                    if (j == 'A') j = 'a';
-                    for (int k = '"'; k < 'z'; k++) {
-                        if (k == 'A') k = 'a';
-                        String temp = leftString + Character.toString(i) + Character.toString(j) + Character.toString(k) + rightString;
-                        TrieNode n;
-                        if ((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
-                    }
-                }
+            for (int missing = 1; missing <= 3; missing++){
+                String found = missingMiddle(string, u, new char[missing], 0);
+                if (found != null) return found;
             }
         }
         return null;
     }
 
+    /**
+     * Tries each of the middle's letters, in order, looking up the string with them inserted at the split.
+     * @return The first word found, or null if none.
+     */
+    private String missingMiddle(String string, int split, char[] middle, int depth){
+        for (char character = '"'; character < 'z'; character++){
+            if (!insertable(character, 'y')) continue;
+            middle[depth] = character;
+            if (depth + 1 < middle.length){
+                String found = missingMiddle(string, split, middle, depth + 1);
+                if (found != null) return found;
+                continue;
+            }
+            String temp = string.substring(0, split) + new String(middle) + string.substring(split);
+            TrieNode n;
+            if ((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
+        }
+        return null;
+    }
+
+    /**
+     * Follows the string down the trie, a letter at a time, for the searches splitting the string into a left and
+     * right side.
+     * @param string The(lower case) string.
+     * @return The node holding each left side(string.substring(0, u) at index u, root at 0), up to the last left side
+     * the trie holds.
+     */
+    private TrieNode[] leftSides(String string){
+        TrieNode[] leftSides = new TrieNode[string.length() + 1];
+        leftSides[0] = this.root;
+        int u = 1;
+        for (; u <= string.length() && (leftSides[u] = find(string.charAt(u - 1), leftSides[u - 1])) != null; u++);
+        return Arrays.copyOf(leftSides, u);
+    }
+
+    /**
+     * Follows each path of the middle's length down from the node, in sorted order, until one is followed by the
+     * right side of the string to complete a word.
+     * @param node The node to continue from.
+     * @param rightSide The reverse trie node holding the right side of the string(walked backwards), or null if there's
+     * no reverse trie.
+     * @param string The(lower case) string.
+     * @param split The index the right side of the string starts at.
+     * @param middle Holds the missing letters being built.
+     * @param depth The number of missing letters already filled in.
+     * @param beaten Whether an earlier split has already found a word(see firstInOrder), to give up early.
+     * @return True if the missing letters were found, and left in middle.
+     */
+    private boolean firstMiddle(TrieNode node, TrieNode rightSide, String string, int split, char[] middle, int depth,
+                                BooleanSupplier beaten){
+        if (depth == middle.length){
+            //the missing letters have to lead into the right side from its end, too.
+            TrieNode reverseNode = rightSide;
+            for (int i = middle.length - 1; i >= 0 && reverseNode != null; i--) reverseNode = find(middle[i], reverseNode);
+            if (rightSide != null && reverseNode == null) return false;
+            TrieNode n = walk(node, string, split, string.length());
+            return n != null && n.isEndOfWord();
+        }
+        for (TrieNode child = node.firstChild(); child != null && !beaten.getAsBoolean(); child = child.next()){
+            if (!insertable(child.value(), 'y')) continue;
+            middle[depth] = child.value();
+            if (firstMiddle(child, rightSide, string, split, middle, depth + 1, beaten)) return true;
+        }
+        return false;
+    }
+
     /**
      * Searches for words matching the string, minus a 1-3 letter prefix.
+     * @implNote With a reverse trie, the string is walked backwards once, checking for a word where each of the
+     * shortened strings would start, instead of looking each one up from root. Strings with whitespace(which
+     * find(String) skips, though it still counts as a removed letter), or that change length in lower case, are still
+     * looked up from root.
      * @param string the string you want to find word suggestions for.
      * @return A string with 1-3 letters removed from the front of the search term.
      */
     public String findExtraPrefix(String string){
         int stringLength = string.length();
         if(stringLength == 0) return null;
+        String lower = string.toLowerCase();
+        if (this.reverse != null && lower.length() == stringLength && !hasWhitespace(string)){
+            TrieNode node = walkBackwards(this.reverse.root(), lower, Math.min(4, stringLength), stringLength);
+            //the words ending with fewer letters removed are found after walking further, so keep the last one.
+            int extra = -1;
+            for (int o = Math.min(3, stringLength - 1); o >= 1 && node != null; o--){
+                node = find(lower.charAt(o), node);
+                if (node != null && node.isEndOfWord()) extra = o;
+            }
+            return extra == -1 ? null : string.substring(extra);
+        }
         //For up to 3 additional letters...
         for (int o = 1; o < 4 && o < stringLength; o++){
             String temp = string.substring(o);
@@ -364,62 +1228,224 @@ public class Trie {
 
     /**
      * Searches for words matching the string, minus 1-3 letters(in a row) on the interior of the string.
+     * @implNote The left side of each split is followed down the trie once, a letter further each split, and only the
+     * right side is followed from there. Any word starting with the shortened string is a match, so the reverse trie
+     * doesn't help here. Strings with whitespace(which find(String) skips, though it still counts as a removed letter),
+     * or that change length in lower case, are still looked up whole.
      * @param string the string you want to find word suggestions for.
      * @return A string with 1-3 letters removed from the interior of the search term.
      */
     public String findExtraMiddle(String string){
         int stringLength = string.length();
         if(stringLength == 0) return null;
-        //for each letter in the given string...
-        for(int h = 1; h < stringLength - 1; h++){
-            String leftString = string.substring(0, h);
-            String rightString = string.substring(h, stringLength);
+        String lower = string.toLowerCase();
+        if (lower.length() != stringLength || hasWhitespace(string)){
+            return firstInOrder(string, stringLength - 2, (split, beaten) -> {
+                int h = split + 1;
+                //For up to 3 additional letters...
+                for (int o = 1; o < 4 && h + o < stringLength && !beaten.getAsBoolean(); o++){
+                    String temp = string.substring(0, h) + string.substring(h + o);
+                    if (find(temp, this.root()) != null) return temp;
+                }
+                return null;
+            });
+        }
+        TrieNode[] leftSides = leftSides(lower);
+        //for each split before the last letter, while a word starts with the left side...
+        return firstInOrder(string, Math.min(leftSides.length - 1, stringLength - 2), (split, beaten) -> {
+            int h = split + 1;
             //For up to 3 additional letters...
-            for (int o = 1; o < 4 && h + o < stringLength; o++){
-                String leftString2 = string.substring(0, h);
-                String rightString2 = string.substring(h + o, stringLength);
-                String temp = leftString2 + rightString2;
-                if(leftString2.compareTo("Bran") == 0)
-                    System.out.print("");
-                TrieNode n;
-                n = find((temp), this.root());
-                if (n != null)
-                //if((n = find((temp), this.root())) != null && n.isEndOfWord())
-                    return temp;
+            for (int o = 1; o < 4 && h + o < stringLength && !beaten.getAsBoolean(); o++){
+                if (walk(leftSides[h], lower, h + o, stringLength) != null) return string.substring(0, h) + string.substring(h + o);
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     /**
      * Looks for a possible miss typing of a single character. preference given to last char>first char>middle.
+     * @implNote The string is followed down the trie once, keeping the node for each left side, and for each position
+     * only the left side's children('a' through 'z', in sorted order) are tried, each followed by the rest of the
+     * string, rather than looking up all 26 replacements from root. Strings with whitespace(which find(String) skips)
+     * are still looked up whole.
      * @param string The string you want to find a typing suggestion for.
      * @return The adjusted string, or null if none found.
      */
     public String findMissTypedCharacter(String string){
         int stringLength = string.length();
         if(stringLength == 0) return null;
+        String lower = string.toLowerCase();
+        TrieNode[] leftSides = lower.length() == stringLength && !hasWhitespace(string) ? leftSides(lower) : null;
+        //check for last character, first, as is probably most common, then the first character, then each middle one.
+        return firstInOrder(string, stringLength, (position, beaten) -> {
+            int j = position == 0 ? stringLength - 1 : position - 1;
+            return leftSides != null ? missTypedCharacter(string, lower, leftSides, j, beaten) : missTypedCharacter(string, j, beaten);
+        });
+    }
+
+    /**
+     * Looks for a miss typing of the character at the position, trying only the letters the trie continues the left
+     * side with.
+     * @param string The string you want to find a typing suggestion for.
+     * @param lower The string, in lower case.
+     * @param leftSides The nodes holding the string's left sides(see leftSides).
+     * @param j The position of the miss typed character.
+     * @param beaten Whether an earlier position has already found a word(see firstInOrder), to give up early.
+     * @return The adjusted string, or null if none found.
+     */
+    private String missTypedCharacter(String string, String lower, TrieNode[] leftSides, int j, BooleanSupplier beaten){
+        //no word starts with the left side.
+        if (j >= leftSides.length) return null;
+        for (TrieNode child = leftSides[j].firstChild(); child != null && !beaten.getAsBoolean(); child = child.next()){
+            char i = child.value();
+            if (i < 'a' || i > 'z') continue;
+            TrieNode n = walk(child, lower, j + 1, lower.length());
+            if (n != null && n.isEndOfWord()) return string.substring(0, j) + i + string.substring(j + 1);
+        }
+        return null;
+    }
+
+    private static boolean hasWhitespace(String string){
+        for (int i = 0; i < string.length(); i++) if (string.charAt(i) <= ' ') return true;
+        return false;
+    }
+
+    /**
+     * Removes the whitespace(any character up to ' ', like trim) from the string, which find(String) skips.
+     */
+    private static String withoutWhitespace(String string){
+        if (!hasWhitespace(string)) return string;
+        StringBuilder builder = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); i++) if (string.charAt(i) > ' ') builder.append(string.charAt(i));
+        return builder.toString();
+    }
+
+    /**
+     * Looks for a miss typing of the character at the position, looking up each replacement from root.
+     * @param string The string you want to find a typing suggestion for.
+     * @param j The position of the miss typed character.
+     * @param beaten Whether an earlier position has already found a word(see firstInOrder), to give up early.
+     * @return The adjusted string, or null if none found.
+     */
+    private String missTypedCharacter(String string, int j, BooleanSupplier beaten){
         TrieNode n;
-        //check for last character, first, as is probably most common.
-        for(int i = 'a'; i <= 'z'; i++){
-            String temp = string.substring(0, stringLength - 1) + (char)i;
+        for(int i = 'a'; i <= 'z' && !beaten.getAsBoolean(); i++){
+            String temp = string.substring(0, j) + (char)i + string.substring(j + 1);
             if((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
         }
-        //check for first character
-        for(int i = 'a'; i <= 'z'; i++){
-            String temp = (char)i + string.substring(1, stringLength);
-            if((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
+        return null;
+    }
+
+    /**
+     * Runs the numbered searches, returning the result of the first(lowest numbered) one to find anything, the same
+     * as running them in order and stopping at the first result. While parallelSuggestions is on, and the string is at
+     * least parallelMinLength long, they run on the common ForkJoinPool instead(see FirstInOrder).
+     * @param string The string being searched for, to decide whether to run in parallel.
+     * @param count The number of searches.
+     * @param search Runs the numbered search, returning its result, or null if it found nothing.
+     * @return The first search's result, or null if none found anything.
+     */
+    private String firstInOrder(String string, int count, NumberedSearch search){
+        if (count <= 0) return null;
+        if (!this.parallelSuggestions || string.length() < this.parallelMinLength || count == 1){
+            String result;
+            for (int i = 0; i < count; i++) if ((result = search.apply(i, NEVER_BEATEN)) != null) return result;
+            return null;
         }
-        //check for miss typed middle char
-        for (int j = 1; j < stringLength - 1; j++){
-            for(int i = 'a'; i <= 'z'; i++){
-                String temp = string.substring(0, j) + (char)i + string.substring(j + 1);
-                if((n = find((temp), this.root())) != null && n.isEndOfWord()) return temp;
+        FirstInOrder task = new FirstInOrder(search, 0, count, new AtomicInteger(count), new String[count]);
+        ForkJoinPool.commonPool().invoke(task);
+        int first = task.first.get();
+        return first < count ? task.results[first] : null;
+    }
+
+    private static final BooleanSupplier NEVER_BEATEN = () -> false;
+
+    /**
+     * A numbered search, run by firstInOrder.
+     */
+    private interface NumberedSearch {
+
+        /**
+         * @param number The search's number.
+         * @param beaten Whether a lower numbered search has already found something, so this one's result won't be
+         * used. Checked in the search's loops, to give up early.
+         * @return The search's result, or null if it found nothing.
+         */
+        String apply(int number, BooleanSupplier beaten);
+    }
+
+    /**
+     * Runs a range of numbered searches, splitting it in half until each task runs a single search, so idle threads
+     * steal the halves nobody has started. Once a search finds something, no search numbered after it is started, and
+     * ones already running give up at their next check(see NumberedSearch). The lowest numbered search to find
+     * something wins, however the threads were scheduled.
+     */
+    private static class FirstInOrder extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final NumberedSearch search;
+        private final int from;
+        private final int to;
+        private final AtomicInteger first;
+        private final String[] results;
+
+        private FirstInOrder(NumberedSearch search, int from, int to, AtomicInteger first, String[] results) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+            this.first = first;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            // an earlier search already found something.
+            if (this.from > this.first.get()) return;
+            if (this.to - this.from == 1) {
+                String result = this.search.apply(this.from, () -> this.first.get() < this.from);
+                if (result == null) return;
+                // each search has its own slot, and joining the tasks makes it visible to the caller.
+                this.results[this.from] = result;
+                this.first.accumulateAndGet(this.from, Math::min);
+                return;
             }
+            int middle = (this.from + this.to) >>> 1;
+            // the lower half runs on this thread, the upper half can be stolen.
+            invokeAll(new FirstInOrder(this.search, this.from, middle, this.first, this.results),
+                    new FirstInOrder(this.search, middle, this.to, this.first, this.results));
         }
-        return null;
     }
 
+    /**
+     * Get whether findMissTypedCharacter, findMissingMiddle, and findExtraMiddle try their split positions in parallel
+     * (see firstInOrder), for strings at least parallelMinLength long. Off by default.
+     * @return True if the searches run in parallel.
+     */
+    public boolean parallelSuggestions() { return this.parallelSuggestions; }
+
+    /**
+     * Set whether findMissTypedCharacter, findMissingMiddle, and findExtraMiddle try their split positions in parallel,
+     * on the common ForkJoinPool. They return the same suggestions either way. While on, lookups don't count towards
+     * adaptiveSiblingOrder's reorders.
+     * @param parallelSuggestions True to run the searches in parallel.
+     * @return True if the searches run in parallel.
+     */
+    public boolean parallelSuggestions(boolean parallelSuggestions) { return this.parallelSuggestions = parallelSuggestions; }
+
+    /**
+     * Get the shortest string whose searches run in parallel, since shorter ones finish before the work is handed out.
+     * @return The shortest string length run in parallel.
+     */
+    public int parallelMinLength() { return this.parallelMinLength; }
+
+    /**
+     * Set the shortest string whose searches run in parallel.
+     * @param parallelMinLength The shortest string length run in parallel.
+     * @return The shortest string length run in parallel.
+     */
+    public int parallelMinLength(int parallelMinLength) { return this.parallelMinLength = parallelMinLength; }
+
     /**
      * Get an array list of suggestions(up to 5 words), using the different word searches.
      * @param word the word you want to find spelling suggestions for.
@@ -428,13 +1454,25 @@ public class Trie {
     public ArrayList<String> wordSuggestions(String word){
         ArrayList<String> suggestions = new ArrayList<>();
         String suggestion;
-        if((suggestion = this.findMissTypedCharacter(word)) != null) suggestions.add(suggestion);
-        if((suggestion = this.findExtraPrefix(word)) != null) suggestions.add(suggestion);
-        if((suggestion = this.findMissingPrefix(word)) != null) suggestions.add(suggestion);
-        if((suggestion = this.findExtraSuffix(word)) != null) suggestions.add(suggestion);
-        if((suggestion = this.findMissingMiddle(word)) != null) suggestions.add(suggestion);
-        if(suggestions.size() < 5 && (suggestion = this.findMissingSuffix(word)) != null) suggestions.add(suggestion);
-        if(suggestions.size() < 5 && (suggestion = this.findExtraMiddle(word)) != null) suggestions.add(suggestion);
+        //longer words go to the BK-tree(the nearest words, up to 2 edits away), which is faster for them than the edit
+        //based searches.
+        if(this.bkTree != null && word.length() >= this.bkTreeMinLength) suggestions.addAll(this.bkTree.nearest(word, 5, 2));
+        else {
+            if((suggestion = this.findMissTypedCharacter(word)) != null) suggestions.add(suggestion);
+            if((suggestion = this.findExtraPrefix(word)) != null) suggestions.add(suggestion);
+            if((suggestion = this.findMissingPrefix(word)) != null) suggestions.add(suggestion);
+            if((suggestion = this.findExtraSuffix(word)) != null) suggestions.add(suggestion);
+            if((suggestion = this.findMissingMiddle(word)) != null) suggestions.add(suggestion);
+            if(suggestions.size() < 5 && (suggestion = this.findMissingSuffix(word)) != null) suggestions.add(suggestion);
+            if(suggestions.size() < 5 && (suggestion = this.findExtraMiddle(word)) != null) suggestions.add(suggestion);
+            //closest first(a swapped pair of letters counting as one edit), equally close ones keep the searches' order.
+            EditDistance distance = new EditDistance(word);
+            suggestions.sort(Comparator.comparingInt(distance::damerau));
+        }
+        //too far off for the edit based searches, try words that sound like it.
+        if(suggestions.isEmpty() && this.phoneticIndex != null) suggestions.addAll(this.phoneticIndex.soundsLike(word, 5));
+        //still nothing, so it may be badly damaged(OCR errors, etc.), try the closest words sharing some of its trigrams.
+        if(suggestions.isEmpty() && this.trigramIndex != null) suggestions.addAll(this.trigramIndex.closest(word, 6, 5));
 
         suggestions.add("Manual Entry");
         suggestions.add("Ignore");
@@ -0,0 +1,59 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.PrefixCursor;
+
+/**
+ * A prefix cursor over a trie, holding the node of the current prefix's last letter.
+ * @author Brandon Watkins
+ */
+public class TrieCursor implements PrefixCursor {
+
+    private final Trie tree;
+    private TrieNode node;
+    private int depth;
+
+    /**
+     * @param tree The trie to walk.
+     */
+    public TrieCursor(Trie tree) {
+        this.tree = tree;
+        this.node = tree.root();
+    }
+
+    @Override
+    public boolean next(char letter) {
+        TrieNode child = this.tree.find(letter, this.node);
+        if (child == null) return false;
+        this.node = child;
+        this.depth++;
+        return true;
+    }
+
+    @Override
+    public boolean isWord() {
+        return this.node != this.tree.root() && this.node.isEndOfWord();
+    }
+
+    @Override
+    public int countWords() {
+        return this.node.wordsInSubtree();
+    }
+
+    @Override
+    public int depth() {
+        return this.depth;
+    }
+
+    @Override
+    public void reset() {
+        this.node = this.tree.root();
+        this.depth = 0;
+    }
+
+    /**
+     * @return The node holding the prefix's last letter(the trie's root for the empty prefix).
+     */
+    public TrieNode node() {
+        return this.node;
+    }
+}
@@ -21,12 +21,18 @@ public class TrieNode {
     private TrieNode lastChild;
     private Integer numChildren;
     private boolean endOfWord;
+    private int wordsInSubtree;
+    private int wordId;
+    private int accessCount;
+    private volatile TrieNode[] byFrequency;
+    private PackedLabels packedLabels;
 
     public TrieNode(Character value, TrieNode parent, boolean endOfWord) {
         this.value = value;
         this.parent = parent;
         this.endOfWord = endOfWord;
         this.numChildren = 0;
+        this.wordId = -1;
     }
 
     public TrieNode(Character value) {
@@ -35,18 +41,28 @@ public class TrieNode {
 
     /**
      * Get the string containing the values along the path from root to current node.
+     * @implNote Counts the nodes up to root first, then fills in the word's characters from the end, so it's linear in
+     * the word's length.
      * @return The word spelled by the nodes along the path from root to this node.
      */
     public String toString(){
-        if (this == null || this.value() == null) return null;
-        TrieNode pathPointer = this;
-        String word = "";
-        while (pathPointer.parent() != null){
-            word = pathPointer.value() + word;
-            pathPointer = pathPointer.parent();
+        if (this.value() == null) return null;
+        int length = this.length();
+        if (length == 0) return null;
+        return new String(this.spell(new char[length], length));
+    }
+
+    /**
+     * Fills in the characters along the path from root to this node.
+     * @param buffer Receives the characters, and must be at least length long.
+     * @param length This node's length.
+     * @return The buffer.
+     */
+    char[] spell(char[] buffer, int length){
+        for (TrieNode pathPointer = this; pathPointer.parent() != null; pathPointer = pathPointer.parent()){
+            buffer[--length] = pathPointer.value();
         }
-        if (word.equals("")) return null;
-        return word;
+        return buffer;
     }
 
     /**
@@ -54,15 +70,114 @@ public class TrieNode {
      * @return Number of letters in the word spelled by the nodes from root to current node.
      */
     public int length(){
-        String word =  this.toString();
-        if (word != null) return word.length();
-        return 0;
+        if (this.value() == null) return 0;
+        int length = 0;
+        for (TrieNode pathPointer = this; pathPointer.parent() != null; pathPointer = pathPointer.parent()) length++;
+        return length;
+    }
+
+    /**
+     * Get the dictionary's id for the word this node completes(see Trie.word).
+     * @return The word's id, or -1 if this node has never completed a word.
+     */
+    public int wordId(){
+        return this.wordId;
+    }
+
+    /**
+     * Set the dictionary's id for the word this node completes.
+     * @param wordId The word's id, or -1 for none.
+     * @return The word's id.
+     */
+    public int wordId(int wordId){
+        return this.wordId = wordId;
     }
 
     public boolean isEndOfWord(){
         return this.endOfWord;
     }
 
+    /**
+     * Set whether this node's character completes a word.
+     * @param endOfWord True if the path from root to this node spells a word.
+     * @return Whether this node now completes a word.
+     */
+    public boolean endOfWord(boolean endOfWord){
+        this.endOfWord = endOfWord;
+        return this.endOfWord;
+    }
+
+    /**
+     * Get the number of words that end at this node, or below it. Kept up to date by Trie's add/remove/markWord.
+     * @return The number of words spelled through this node.
+     */
+    public int wordsInSubtree(){
+        return this.wordsInSubtree;
+    }
+
+    /**
+     * Set the number of words that end at this node, or below it.
+     * @param wordsInSubtree The number of words spelled through this node.
+     * @return The number of words spelled through this node.
+     */
+    public int wordsInSubtree(int wordsInSubtree){
+        this.wordsInSubtree = wordsInSubtree;
+        return this.wordsInSubtree;
+    }
+
+    /**
+     * Get how often this node has been found by Trie.find(Character, TrieNode), while the trie is ordering siblings by
+     * frequency(see Trie.adaptiveSiblingOrder). Halved each time the siblings are reordered.
+     * @return The node's decayed access count.
+     */
+    public int accessCount(){
+        return this.accessCount;
+    }
+
+    /**
+     * Set how often this node has been found.
+     * @param accessCount The node's decayed access count.
+     * @return The node's decayed access count.
+     */
+    public int accessCount(int accessCount){
+        return this.accessCount = accessCount;
+    }
+
+    /**
+     * Get this node's children, most often found first(see Trie.reorderSiblings). The sorted sibling list isn't
+     * changed, this is only a lookup order.
+     * @return The children by frequency, or null if they haven't been ordered(or have changed since).
+     */
+    public TrieNode[] byFrequency(){
+        return this.byFrequency;
+    }
+
+    /**
+     * Set this node's children, most often found first. Dropped whenever a child is added or removed.
+     * @param byFrequency The children by frequency, or null for none.
+     * @return The children by frequency.
+     */
+    public TrieNode[] byFrequency(TrieNode[] byFrequency){
+        return this.byFrequency = byFrequency;
+    }
+
+    /**
+     * Get this node's children, with their letters packed for faster lookups(see Trie.packChildLabels).
+     * @return The packed children, or null if they aren't packed.
+     */
+    public PackedLabels packedLabels(){
+        return this.packedLabels;
+    }
+
+    /**
+     * Set this node's packed children. Once set, they're repacked whenever a child is added or removed.
+     * @param packedLabels The packed children, or null for none.
+     * @return The packed children.
+     */
+    public PackedLabels packedLabels(PackedLabels packedLabels){
+        return this.packedLabels = packedLabels;
+    }
+
     /**
      * Get or Set the current node's previous node. No param = get.
      * @return The node before the current node.
@@ -125,19 +240,18 @@ public class TrieNode {
      * @return If node 1 is > 2, returns a value greater than 1 (>1). If 1 < 2, returns < 1. If equal, =.
      */
     public int compareTo(TrieNode node) {
-        String str1 = this.toString();
-        String str2 = node.toString();
-        if (str1 == null){
-            if (str2 == null ) return 0;
-            else return str2.length();
-        }
-        else if (str2 == null) return str1.length();
-
-        for (int i = 0; i < str1.length() && i < str2.length(); i++){
-            int val = ((Character)str1.charAt(i)).compareTo(str2.charAt(i));
+        int length1 = this.length();
+        int length2 = node.length();
+        if (length1 == 0) return length2;
+        else if (length2 == 0) return length1;
+
+        char[] str1 = this.spell(new char[length1], length1);
+        char[] str2 = node.spell(new char[length2], length2);
+        for (int i = 0; i < length1 && i < length2; i++){
+            int val = ((Character)str1[i]).compareTo(str2[i]);
             if (val != 0) return val;
         }
-        int len = str1.length() - str2.length();
+        int len = length1 - length2;
         return len;
     }
 
@@ -261,6 +375,8 @@ public class TrieNode {
         else {
             TrieNode pointer = findCorrectPosition(newChild, this);
             if (pointer == null) {
+                // the old first child becomes the last child, if it was the only one.
+                if (this.lastChild == null) this.lastChild = this.firstChild;
                 newChild.next(this.firstChild());
                 this.firstChild().prev(newChild);
                 this.firstChild(newChild);
@@ -278,10 +394,34 @@ public class TrieNode {
         }
 
         // increase number of children for parent node
+        this.byFrequency = null;
         numChildren("++");
+        if (this.packedLabels != null) this.packedLabels = PackedLabels.of(this);
         return newChild;
     }
 
+    /**
+     * Unlinks a direct child (and, with it, that child's whole subtree) from this node.
+     * @param child The child node to remove.
+     * @return True if the child was found under this node and removed.
+     */
+    public boolean removeChild(TrieNode child){
+        if (child == null || child.parent != this) return false;
+        TrieNode last = this.lastChild();
+        if (child.prev != null) child.prev.next = child.next;
+        else this.firstChild = child.next;
+        if (child.next != null) child.next.prev = child.prev;
+        if (child == last) this.lastChild = child.prev;
+        if (this.firstChild == null) this.lastChild = null;
+        child.next = null;
+        child.prev = null;
+        child.parent = null;
+        this.byFrequency = null;
+        numChildren("--");
+        if (this.packedLabels != null) this.packedLabels = PackedLabels.of(this);
+        return true;
+    }
+
     /**
      * Get or Set the number of this node's direct children. No param = get.
      * @param operator The math operator(In String format) to adjust the numChildren value.
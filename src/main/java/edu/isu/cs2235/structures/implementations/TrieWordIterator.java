@@ -0,0 +1,117 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates over the words in a trie(or in a run of sibling subtrees), in sorted order.
+ * @implNote Walks the nodes depth first, keeping the letters of the current path in a single reused char buffer, so the
+ * only allocation per word is the returned String. Siblings are stored in sorted order, so visiting a node before its
+ * children gives the words in sorted order. The trie shouldn't be changed while it's being iterated over.
+ * @author Brandon Watkins
+ */
+public class TrieWordIterator implements Iterator<String> {
+
+    private char[] buffer;
+    private final int baseDepth;
+    private int remainingSiblings;
+    private TrieNode node;
+    private int depth;
+    private String nextWord;
+
+    /**
+     * Iterates over the words in count sibling subtrees, starting at first.
+     * @param prefix The letters on the path from root down to(not including) first.
+     * @param first The first sibling subtree to iterate over.
+     * @param count The number of sibling subtrees to iterate over.
+     */
+    public TrieWordIterator(char[] prefix, TrieNode first, int count) {
+        this.baseDepth = prefix.length;
+        this.buffer = Arrays.copyOf(prefix, Math.max(16, prefix.length * 2));
+        this.remainingSiblings = count;
+        this.node = count > 0 ? first : null;
+        this.depth = this.baseDepth;
+    }
+
+    /**
+     * Iterates over the words from the node on, to the end of the trie, in sorted order.
+     * @param prefix The letters on the path from root down to(not including) from.
+     * @param from The node to start at.
+     */
+    public TrieWordIterator(char[] prefix, TrieNode from) {
+        this.baseDepth = 0;
+        this.buffer = Arrays.copyOf(prefix, Math.max(16, prefix.length * 2));
+        // the run of siblings being iterated over is all of root's children, ending at the last one.
+        this.remainingSiblings = Integer.MAX_VALUE;
+        this.node = from;
+        this.depth = prefix.length;
+    }
+
+    /**
+     * Iterates over every word in the trie.
+     * @param tree The trie to iterate over.
+     */
+    public TrieWordIterator(Trie tree) {
+        this(new char[0], tree.root().firstChild(), tree.root().numChildren());
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.nextWord == null) this.nextWord = advance();
+        return this.nextWord != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        String word = this.nextWord;
+        this.nextWord = null;
+        return word;
+    }
+
+    /**
+     * Visits nodes until one completes a word.
+     * @return The word, or null when there are no more words.
+     */
+    private String advance() {
+        while (this.node != null) {
+            TrieNode visiting = this.node;
+            int visitingDepth = this.depth;
+            if (visitingDepth >= this.buffer.length) this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+            this.buffer[visitingDepth] = visiting.value();
+            // move on to the next node, depth first.
+            if (visiting.firstChild() != null) {
+                this.node = visiting.firstChild();
+                this.depth = visitingDepth + 1;
+            }
+            else moveToNextSibling(visiting, visitingDepth);
+            if (visiting.isEndOfWord()) return new String(this.buffer, 0, visitingDepth + 1);
+        }
+        return null;
+    }
+
+    /**
+     * Moves to the node's next sibling, or the next sibling of the closest ancestor that has one, without leaving the
+     * run of sibling subtrees being iterated over.
+     * @param leaving The node whose subtree has been completely visited.
+     * @param leavingDepth The node's depth.
+     */
+    private void moveToNextSibling(TrieNode leaving, int leavingDepth) {
+        while (true) {
+            if (leavingDepth == this.baseDepth) {
+                this.remainingSiblings--;
+                this.node = this.remainingSiblings > 0 ? leaving.next() : null;
+                this.depth = leavingDepth;
+                return;
+            }
+            if (leaving.next() != null) {
+                this.node = leaving.next();
+                this.depth = leavingDepth;
+                return;
+            }
+            leaving = leaving.parent();
+            leavingDepth--;
+        }
+    }
+}
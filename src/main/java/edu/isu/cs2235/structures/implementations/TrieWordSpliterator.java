@@ -0,0 +1,122 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Splits the words of a trie into sorted runs of sibling subtrees, so the words can be streamed in parallel.
+ * @implNote A split hands off the first half of the remaining sibling subtrees. When only one subtree is left, it
+ * descends into that subtree, so single child chains are skipped and work is divided at the first node with several
+ * children. Once iteration has started, it no longer splits. The trie shouldn't be changed while being streamed.
+ * @author Brandon Watkins
+ */
+public class TrieWordSpliterator implements Spliterator<String> {
+
+    private char[] prefix;
+    private TrieNode first;
+    private int count;
+    private String pendingWord;
+    private long estimatedSize;
+    private TrieWordIterator iterator;
+
+    /**
+     * @param prefix The letters on the path from root down to(not including) first.
+     * @param first The first sibling subtree.
+     * @param count The number of sibling subtrees.
+     * @param pendingWord A word to give before the subtrees' words(the word ending at their parent), or null.
+     * @param estimatedSize An estimate of the number of words.
+     */
+    public TrieWordSpliterator(char[] prefix, TrieNode first, int count, String pendingWord, long estimatedSize) {
+        this.prefix = prefix;
+        this.first = first;
+        this.count = count;
+        this.pendingWord = pendingWord;
+        this.estimatedSize = estimatedSize;
+    }
+
+    /**
+     * Splits every word in the trie.
+     * @param tree The trie to split.
+     */
+    public TrieWordSpliterator(Trie tree) {
+        this(new char[0], tree.root().firstChild(), tree.root().numChildren(), null, tree.numberOfWords());
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (this.pendingWord != null) {
+            String word = this.pendingWord;
+            this.pendingWord = null;
+            action.accept(word);
+            return true;
+        }
+        if (this.iterator == null) this.iterator = new TrieWordIterator(this.prefix, this.first, this.count);
+        if (!this.iterator.hasNext()) return false;
+        action.accept(this.iterator.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        if (this.pendingWord != null) {
+            action.accept(this.pendingWord);
+            this.pendingWord = null;
+        }
+        if (this.iterator == null) this.iterator = new TrieWordIterator(this.prefix, this.first, this.count);
+        while (this.iterator.hasNext()) action.accept(this.iterator.next());
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        if (this.iterator != null) return null;
+        if (this.count >= 2) {
+            // hand off the first half of the siblings(and the pending word, which comes before them).
+            int half = this.count / 2;
+            TrieNode splitAt = this.first;
+            for (int i = 0; i < half; i++) splitAt = splitAt.next();
+            long handOffSize = this.estimatedSize / 2;
+            TrieWordSpliterator handOff = new TrieWordSpliterator(this.prefix, this.first, half, this.pendingWord, handOffSize);
+            this.pendingWord = null;
+            this.first = splitAt;
+            this.count -= half;
+            this.estimatedSize -= handOffSize;
+            return handOff;
+        }
+        if (this.count == 1 && this.first.firstChild() != null) {
+            if (this.pendingWord != null) {
+                // hand off the pending word alone, so this can descend next time.
+                TrieWordSpliterator handOff = new TrieWordSpliterator(this.prefix, null, 0, this.pendingWord, 1);
+                this.pendingWord = null;
+                this.estimatedSize = Math.max(0, this.estimatedSize - 1);
+                return handOff;
+            }
+            // descend into the only subtree, and split its children.
+            TrieNode only = this.first;
+            char[] childPrefix = Arrays.copyOf(this.prefix, this.prefix.length + 1);
+            childPrefix[this.prefix.length] = only.value();
+            if (only.isEndOfWord()) this.pendingWord = new String(childPrefix);
+            this.prefix = childPrefix;
+            this.first = only.firstChild();
+            this.count = only.numChildren();
+            return trySplit();
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.estimatedSize;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SORTED | NONNULL;
+    }
+
+    @Override
+    public Comparator<? super String> getComparator() {
+        return null;
+    }
+}
@@ -0,0 +1,259 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * An inverted index from each character trigram("$ca", "cat", "at$") to the words containing it, for finding
+ * suggestions for badly damaged words(OCR errors, 4 or more edits off), where the edit based searches would have to
+ * try far too many strings.
+ * @implNote Words are kept by their dictionary word ids(see TrieNode.wordId), which are in sorted order when given out
+ * by FillTree or Trie.compact. Each trigram's posting list is its words' ids in increasing order, stored as the gaps
+ * between ids in a varint byte encoding(7 bits a byte), all in one byte array. Trigrams are packed into 18 bits(6 per
+ * character), so a trigram's postings are found by indexing straight into the starts array, no hashing or searching.
+ * Characters other than a-z and 0-9 share codes, which can only add candidates, never lose one.
+ * @implNote A lookup counts, for every word, how many of the word's trigrams it shares(merging the posting lists), and
+ * only words sharing at least the q-gram bound(each edit can only break 3 trigrams) are checked by edit distance. Like
+ * the phonetic index, the words are only decoded(from the trie's word pool) when checked.
+ * @author Brandon Watkins
+ */
+public class TrigramIndex {
+
+    private static final int BOUNDARY = 63;
+    private static final int TRIGRAMS = 1 << 18;
+
+    private final Trie tree;
+    private int[] starts;
+    private byte[] postings;
+    private byte[] lengths;
+    private int size;
+    private long[] pending;
+    private int pendingSize;
+    private byte[] pendingLengths;
+    private int pendingWordCount;
+
+    public TrigramIndex(Trie tree) {
+        this.tree = tree;
+        this.pending = new long[1024];
+        this.pendingLengths = new byte[1024];
+        this.starts = new int[TRIGRAMS + 1];
+        this.postings = new byte[0];
+        this.lengths = new byte[0];
+    }
+
+    /**
+     * Builds an index of every word in the trie.
+     * @param tree The trie to index.
+     * @return The built index.
+     */
+    public static TrigramIndex of(Trie tree) {
+        TrigramIndex index = new TrigramIndex(tree);
+        for (String word : tree) index.add(word, tree.wordId(word));
+        return index.build();
+    }
+
+    /**
+     * Adds a word to the index. The word won't be found until build is called.
+     * @param word The word.
+     * @param wordId The word's id in the trie(see TrieNode.wordId).
+     */
+    public void add(CharSequence word, int wordId) {
+        if (wordId < 0 || word.length() == 0) return;
+        if (wordId >= this.pendingLengths.length) {
+            this.pendingLengths = Arrays.copyOf(this.pendingLengths, Math.max(wordId + 1, this.pendingLengths.length * 2));
+        }
+        int id = wordId;
+        this.pendingLengths[id] = (byte) Math.min(255, word.length());
+        this.pendingWordCount = Math.max(this.pendingWordCount, id + 1);
+        this.size++;
+        int[] trigrams = trigrams(word);
+        if (this.pendingSize + trigrams.length > this.pending.length) {
+            this.pending = Arrays.copyOf(this.pending, Math.max(this.pending.length * 2, this.pendingSize + trigrams.length));
+        }
+        // the trigram goes in the high bits, so sorting groups the ids by trigram, in increasing order.
+        for (int trigram : trigrams) this.pending[this.pendingSize++] = ((long) trigram << 32) | id;
+    }
+
+    /**
+     * Groups the added words' ids by trigram, into the compressed posting lists.
+     * @return This index.
+     */
+    public TrigramIndex build() {
+        long[] sorted = Arrays.copyOf(this.pending, this.pendingSize);
+        Arrays.sort(sorted);
+        byte[] postings = new byte[sorted.length * 2 + 16];
+        int size = 0;
+        int[] starts = new int[TRIGRAMS + 1];
+        int trigram = 0;
+        int previousId = 0;
+        for (long pair : sorted) {
+            int pairTrigram = (int) (pair >>> 32);
+            int id = (int) pair;
+            // starting a new posting list, the first gap is from 0.
+            while (trigram < pairTrigram) {
+                starts[++trigram] = size;
+                previousId = 0;
+            }
+            if (size + 5 > postings.length) postings = Arrays.copyOf(postings, postings.length * 2);
+            int gap = id - previousId;
+            while ((gap & ~0x7f) != 0) {
+                postings[size++] = (byte) ((gap & 0x7f) | 0x80);
+                gap >>>= 7;
+            }
+            postings[size++] = (byte) gap;
+            previousId = id;
+        }
+        while (trigram < TRIGRAMS) starts[++trigram] = size;
+        this.starts = starts;
+        this.postings = Arrays.copyOf(postings, size);
+        this.lengths = Arrays.copyOf(this.pendingLengths, this.pendingWordCount);
+        this.pending = new long[16];
+        this.pendingSize = 0;
+        this.pendingLengths = new byte[16];
+        this.pendingWordCount = 0;
+        return this;
+    }
+
+    /**
+     * Finds the ids of the words sharing at least minShared of the word's trigrams, by merging their posting lists.
+     * @param word The(probably misspelled) word.
+     * @param minShared The fewest trigrams a candidate has to share with the word.
+     * @return The candidates' word ids, in increasing order.
+     */
+    public int[] candidates(CharSequence word, int minShared) {
+        int[] shared = sharedCounts(trigrams(word));
+        int[] found = new int[16];
+        int size = 0;
+        for (int id = 0; id < shared.length; id++) {
+            if (shared[id] < Math.max(1, minShared)) continue;
+            if (size == found.length) found = Arrays.copyOf(found, size * 2);
+            found[size++] = id;
+        }
+        return Arrays.copyOf(found, size);
+    }
+
+    /**
+     * Finds the closest words to the given word, checking the trigram candidates by edit distance.
+     * @param word The(probably misspelled) word.
+     * @param maxDistance The most edits a suggestion can be away from the word.
+     * @param limit The most words to return.
+     * @return The closest words, by edit distance, then by the most shared trigrams, then alphabetically.
+     */
+    public ArrayList<String> closest(String word, int maxDistance, int limit) {
+        ArrayList<String> found = new ArrayList<>();
+        String lower = word.trim().toLowerCase();
+        if (lower.length() == 0 || limit <= 0) return found;
+        int[] trigrams = trigrams(lower);
+        int[] shared = sharedCounts(trigrams);
+        // each edit breaks at most 3 trigrams. Past that, a candidate still has to share 2 trigrams to be worth a look.
+        int minShared = Math.max(Math.min(2, trigrams.length), trigrams.length - 3 * maxDistance);
+        EditDistance query = new EditDistance(lower);
+        WordPool pool = this.tree.wordPool();
+        char[] buffer = new char[pool.maxLength()];
+        int[] bestIds = new int[limit];
+        int[] bestDistances = new int[limit];
+        int size = 0;
+        int bound = maxDistance;
+        for (int id = 0; id < shared.length; id++) {
+            if (shared[id] < minShared || Math.abs((this.lengths[id] & 0xff) - query.length()) > bound) continue;
+            if (!this.tree.isWord(id)) continue;
+            int length = pool.word(id, buffer);
+            int distance = query.levenshtein(buffer, length, bound);
+            if (distance > bound) continue;
+            // a full list only takes words ranking above its last word.
+            if (size == limit && !worse(bestDistances[limit - 1], shared[bestIds[limit - 1]], distance, shared[id])) continue;
+            // insertion sort into the best so far, closest first, then most shared trigrams(ids are in sorted order).
+            int at = size < limit ? size++ : limit - 1;
+            while (at > 0 && worse(bestDistances[at - 1], shared[bestIds[at - 1]], distance, shared[id])) {
+                bestIds[at] = bestIds[at - 1];
+                bestDistances[at] = bestDistances[at - 1];
+                at--;
+            }
+            bestIds[at] = id;
+            bestDistances[at] = distance;
+            // once there are enough suggestions, only closer words can get in.
+            if (size == limit) bound = bestDistances[limit - 1];
+        }
+        for (int i = 0; i < size; i++) found.add(pool.word(bestIds[i]));
+        return found;
+    }
+
+    /**
+     * Determines if a candidate(distance, shared) ranks below another.
+     */
+    private static boolean worse(int distance, int shared, int otherDistance, int otherShared) {
+        return distance > otherDistance || (distance == otherDistance && shared < otherShared);
+    }
+
+    /**
+     * Counts how many of the trigrams each word has, by decoding each trigram's posting list.
+     * @return The number of shared trigrams, for each word id.
+     */
+    private int[] sharedCounts(int[] trigrams) {
+        int[] shared = new int[this.lengths.length];
+        for (int trigram : trigrams) {
+            int id = 0;
+            int end = this.starts[trigram + 1];
+            for (int i = this.starts[trigram]; i < end; ) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = this.postings[i++];
+                    gap |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += gap;
+                shared[id]++;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Gets the word's distinct trigrams, with a boundary marker before and after the word("cat" has "$ca", "cat",
+     * and "at$").
+     * @param word The word.
+     * @return The word's distinct packed trigrams, in increasing order.
+     */
+    static int[] trigrams(CharSequence word) {
+        int n = word.length();
+        int[] trigrams = new int[n];
+        int a = BOUNDARY;
+        int b = n > 0 ? code(word.charAt(0)) : BOUNDARY;
+        for (int i = 0; i < n; i++) {
+            int c = i + 1 < n ? code(word.charAt(i + 1)) : BOUNDARY;
+            trigrams[i] = (a << 12) | (b << 6) | c;
+            a = b;
+            b = c;
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) if (distinct == 0 || trigrams[distinct - 1] != trigrams[i]) trigrams[distinct++] = trigrams[i];
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /**
+     * @return The character's 6 bit code: 1-26 for letters, 27-36 for digits, and 37-62 for anything else.
+     */
+    private static int code(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a' + 1;
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 1;
+        if (c >= '0' && c <= '9') return c - '0' + 27;
+        return 37 + c % 26;
+    }
+
+    /**
+     * @return The number of words in the index.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The number of bytes used by the compressed posting lists.
+     */
+    public int postingBytes() {
+        return this.postings.length;
+    }
+}
@@ -0,0 +1,109 @@
+package edu.isu.cs2235.structures.implementations;
+
+import edu.isu.cs2235.structures.Dictionary;
+import edu.isu.cs2235.structures.PrefixCursor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A dictionary that takes word additions and removals while it's being read, by publishing a new PersistentTrie version
+ * for each change. Readers pin a version(snapshot) for their whole request, and are never blocked or shown a half made
+ * change.
+ * @implNote The current version is held in an AtomicReference. A writer makes the next version from the current one,
+ * then swaps it in with compareAndSet, trying again from the newer version if another writer got there first, so no
+ * locks are taken by readers or writers. Versions nobody holds anymore are garbage collected.
+ * @author Brandon Watkins
+ */
+public class VersionedDictionary implements Dictionary {
+
+    private final AtomicReference<PersistentTrie> current;
+
+    /**
+     * @param first The first version to serve.
+     */
+    public VersionedDictionary(PersistentTrie first) {
+        this.current = new AtomicReference<>(first);
+    }
+
+    /**
+     * Copies a trie into the first version.
+     * @param tree The trie to copy.
+     * @return The versioned dictionary.
+     */
+    public static VersionedDictionary of(Trie tree) {
+        return new VersionedDictionary(PersistentTrie.of(tree));
+    }
+
+    /**
+     * The current version, which never changes. Hold on to it for a whole request.
+     * @return The current version.
+     */
+    public PersistentTrie snapshot() {
+        return this.current.get();
+    }
+
+    /**
+     * Publishes a new version with the word added.
+     * @param word The word to add.
+     * @return True if the word wasn't already in the dictionary.
+     */
+    public boolean addWord(String word) {
+        while (true) {
+            PersistentTrie version = this.current.get();
+            PersistentTrie next = version.with(word);
+            if (next == version) return false;
+            if (this.current.compareAndSet(version, next)) return true;
+        }
+    }
+
+    /**
+     * Publishes a new version with the word removed.
+     * @param word The word to remove.
+     * @return True if the word was in the dictionary, and has been removed.
+     */
+    public boolean remove(String word) {
+        while (true) {
+            PersistentTrie version = this.current.get();
+            PersistentTrie next = version.without(word);
+            if (next == version) return false;
+            if (this.current.compareAndSet(version, next)) return true;
+        }
+    }
+
+    public boolean findWord(String word) {
+        return this.snapshot().findWord(word);
+    }
+
+    /**
+     * Creates a cursor over the current version, which it keeps using even if newer versions are published.
+     */
+    public PrefixCursor cursor() {
+        return this.snapshot().cursor();
+    }
+
+    public int countPrefix(String prefix) {
+        return this.snapshot().countPrefix(prefix);
+    }
+
+    public ArrayList<String> wordSuggestions(String word) {
+        return this.snapshot().wordSuggestions(word);
+    }
+
+    public int numberOfWords() {
+        return this.snapshot().numberOfWords();
+    }
+
+    public Map<String, Number> stats() {
+        return this.snapshot().stats();
+    }
+
+    /**
+     * Iterates over the current version's words.
+     */
+    public Iterator<String> iterator() {
+        return this.snapshot().iterator();
+    }
+}
@@ -0,0 +1,121 @@
+package edu.isu.cs2235.structures.implementations;
+
+import java.util.Arrays;
+
+/**
+ * The dictionary's words, by word id, so the rest of the code can pass word ids around, and only turn them back into
+ * Strings when they're shown to the user.
+ * @implNote The words are front coded: words are stored in buckets of 16, the first word of each bucket in full, and
+ * each word after it as the number of leading characters it shares with the word before it, plus the rest of the
+ * word. Words are added in sorted order(by FillTree, and by Trie.compact), so neighbouring words share most of their
+ * letters. Everything is kept in one char array, with the lengths stored as chars, plus the start of each bucket.
+ * Getting a word decodes at most 16 words from the start of its bucket.
+ * @author Brandon Watkins
+ */
+public class WordPool {
+
+    private static final int BUCKET_SIZE = 16;
+
+    private char[] data;
+    private int dataSize;
+    private int[] bucketStarts;
+    private int size;
+    private char[] last;
+    private int lastLength;
+    private int maxLength;
+
+    public WordPool() {
+        this.data = new char[4096];
+        this.bucketStarts = new int[64];
+        this.last = new char[64];
+    }
+
+    /**
+     * Adds a word to the end of the pool.
+     * @param word The word to add.
+     * @return The word's id(the number of words added before it).
+     */
+    public int add(CharSequence word) {
+        int length = word.length();
+        int shared = 0;
+        if (this.size % BUCKET_SIZE == 0) {
+            if (this.size / BUCKET_SIZE == this.bucketStarts.length) {
+                this.bucketStarts = Arrays.copyOf(this.bucketStarts, this.bucketStarts.length * 2);
+            }
+            this.bucketStarts[this.size / BUCKET_SIZE] = this.dataSize;
+        }
+        else {
+            int most = Math.min(Math.min(length, this.lastLength), Character.MAX_VALUE);
+            while (shared < most && this.last[shared] == word.charAt(shared)) shared++;
+        }
+        int suffix = Math.min(length - shared, Character.MAX_VALUE);
+        if (this.dataSize + suffix + 2 > this.data.length) {
+            this.data = Arrays.copyOf(this.data, Math.max(this.data.length * 2, this.dataSize + suffix + 2));
+        }
+        // the first word of a bucket always shares 0 letters, so only its length is stored.
+        if (this.size % BUCKET_SIZE != 0) this.data[this.dataSize++] = (char) shared;
+        this.data[this.dataSize++] = (char) suffix;
+        for (int i = 0; i < suffix; i++) this.data[this.dataSize++] = word.charAt(shared + i);
+        if (length > this.last.length) this.last = Arrays.copyOf(this.last, length * 2);
+        for (int i = shared; i < shared + suffix; i++) this.last[i] = word.charAt(i);
+        this.lastLength = shared + suffix;
+        this.maxLength = Math.max(this.maxLength, this.lastLength);
+        return this.size++;
+    }
+
+    /**
+     * Decodes a word into the buffer, without allocating.
+     * @param id The word's id.
+     * @param buffer Receives the word's characters, and must be at least maxLength long.
+     * @return The word's length.
+     * @throws IndexOutOfBoundsException when there's no word with that id.
+     */
+    public int word(int id, char[] buffer) throws IndexOutOfBoundsException {
+        if (id < 0 || id >= this.size) throw new IndexOutOfBoundsException("No word with id " + id + ".");
+        int position = this.bucketStarts[id / BUCKET_SIZE];
+        int length = this.data[position++];
+        System.arraycopy(this.data, position, buffer, 0, length);
+        position += length;
+        //For each word after the first in the bucket, up to the one wanted...
+        for (int i = id - id % BUCKET_SIZE + 1; i <= id; i++) {
+            int shared = this.data[position++];
+            int suffix = this.data[position++];
+            System.arraycopy(this.data, position, buffer, shared, suffix);
+            position += suffix;
+            length = shared + suffix;
+        }
+        return length;
+    }
+
+    /**
+     * Decodes a word.
+     * @param id The word's id.
+     * @return The word.
+     * @throws IndexOutOfBoundsException when there's no word with that id.
+     */
+    public String word(int id) throws IndexOutOfBoundsException {
+        char[] buffer = new char[this.maxLength];
+        return new String(buffer, 0, word(id, buffer));
+    }
+
+    /**
+     * @return The number of words in the pool(the next word id).
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The length of the longest word in the pool, for sizing buffers.
+     */
+    public int maxLength() {
+        return this.maxLength;
+    }
+
+    /**
+     * @return About how many bytes the pool's arrays use.
+     */
+    public long memoryBytes() {
+        return (long) this.data.length * 2 + (long) this.bucketStarts.length * 4 + this.last.length * 2;
+    }
+}
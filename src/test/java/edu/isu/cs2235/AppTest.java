@@ -3,13 +3,40 @@
  */
 package edu.isu.cs2235;
 
+import edu.isu.cs2235.structures.Dictionary;
+import edu.isu.cs2235.structures.DictionaryView;
+import edu.isu.cs2235.structures.PrefixCursor;
+import edu.isu.cs2235.structures.WordReader;
+import edu.isu.cs2235.structures.implementations.AnagramIndex;
+import edu.isu.cs2235.structures.implementations.ArenaTrie;
+import edu.isu.cs2235.structures.implementations.BKTree;
+import edu.isu.cs2235.structures.implementations.DictionaryFactory;
+import edu.isu.cs2235.structures.implementations.DifferentialHarness;
+import edu.isu.cs2235.structures.implementations.EditDistance;
+import edu.isu.cs2235.structures.implementations.ExternalSorter;
 import edu.isu.cs2235.structures.implementations.FillTree;
+import edu.isu.cs2235.structures.implementations.LineWordReader;
+import edu.isu.cs2235.structures.implementations.NGramModel;
+import edu.isu.cs2235.structures.implementations.PackedLabels;
+import edu.isu.cs2235.structures.implementations.PatternQuery;
+import edu.isu.cs2235.structures.implementations.PerfectHashDictionary;
+import edu.isu.cs2235.structures.implementations.PersistentTrie;
+import edu.isu.cs2235.structures.implementations.PhoneticIndex;
+import edu.isu.cs2235.structures.implementations.SegmentedDictionary;
 import edu.isu.cs2235.structures.implementations.Trie;
 import edu.isu.cs2235.structures.implementations.TrieNode;
+import edu.isu.cs2235.structures.implementations.TrigramIndex;
+import edu.isu.cs2235.structures.implementations.VersionedDictionary;
+import edu.isu.cs2235.structures.implementations.WordPool;
 import org.junit.Test;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.Assert.*;
 
@@ -20,6 +47,13 @@ public class AppTest {
 
     boolean out = false;// Turn on/off the print statements, to more easily see what's going on.
 
+    // A small word list every backend is read from, for the backend tests.
+    private static final String SAMPLE_WORDS = "a\napple\napply\nbanana\nband\nbandana\ncat\ncatalog\ndog\nteam\nstrand\n";
+
+    // Words, and the text looked up in them, for the adaptive sibling order tests.
+    private static final String SIBLING_WORDS = "apple\nbanana\ncherry\ndate\nsalt\nsauce\nsea\nsun\ntea\nten\nthe\nthis\nto\nwas\nwe\nwith\n";
+    private static final String[] SIBLING_TEXT = {"the", "was", "to", "with", "the", "this", "we", "the", "to", "tea"};
+
     @Test public void testReadingAFile() throws IOException {
         BufferedReader fileReader = new BufferedReader(new FileReader(System.getProperty("user.dir") + "\\data\\words.txt"), 50000);
         String[] words = new String[3];
@@ -74,62 +108,62 @@ public class AppTest {
         pointer = tree.find("b");
         if (out) System.out.print("find(b): ");
         if (out) System.out.println(pointer);
-        assert(pointer != null);
-        assert(pointer.value() == 'b');
+        assertNotNull(pointer);
+        assertEquals((Character) 'b', pointer.value());
         //find a single-letter string with a pointer
         pointer = tree.find("r", pointer);
         if (out) System.out.print("find(r), path(b): ");
         if (out) System.out.println(pointer);
-        assert(pointer != null);
-        assert(pointer.value() == 'r');
+        assertNotNull(pointer);
+        assertEquals((Character) 'r', pointer.value());
         //find a character with a pointer
         pointer = tree.find('a', pointer);
         if (out) System.out.print("find(a), path(br): ");
         if (out) System.out.println(pointer);
-        assert(pointer != null);
-        assert(pointer.value() == 'a');
+        assertNotNull(pointer);
+        assertEquals((Character) 'a', pointer.value());
         //make sure the legit pointer works
         tree.pointer(pointer);
         pointer = tree.find('n', tree.pointer());
         if (out) System.out.print("find(n), path(bra): ");
         if (out) System.out.println(pointer);
-        assert(pointer != null);
-        assert(pointer.value() == 'n');
+        assertNotNull(pointer);
+        assertEquals((Character) 'n', pointer.value());
         //find a multi-letter string with a pointer. tests TrieNode's toString() and compareTo().
         pointer = tree.find("don", pointer);
         if (out) System.out.print("find(don), path(bran): ");
         if (out) System.out.println(pointer);
-        assert(pointer != null);
-        assert((pointer.toString()).compareTo("brandon") == 0);
+        assertNotNull(pointer);
+        assertEquals("brandon", pointer.toString());
         //handles weird caps
         pointer = tree.find("BraNdon");
         if (out) System.out.print("find(braNdon): ");
         if (out) System.out.println(pointer);
-        assert(pointer != null);
-        assert((pointer.toString()).compareTo("brandon") == 0);
+        assertNotNull(pointer);
+        assertEquals("brandon", pointer.toString());
         //handles extra spaces
         pointer = tree.find("  Brandon");
         if (out) System.out.print("find(  Brandon): ");
         if (out) System.out.println(pointer);
-        assert(pointer != null);
-        assert((pointer.toString()).compareTo("brandon") == 0);
+        assertNotNull(pointer);
+        assertEquals("brandon", pointer.toString());
         //handles extra spaces mid word, if desired... Should only be searching for 1 word at a time, anyway.
         pointer = tree.find("Bra ndon");
         if (out) System.out.print("find(Bra ndon): ");
         if (out) System.out.println(pointer);
-        assert(pointer != null);
-        assert((pointer.toString()).compareTo("brandon") == 0);
+        assertNotNull(pointer);
+        assertEquals("brandon", pointer.toString());
         //handles searching for a non-existent word ("zbrandon")
         pointer = tree.root().lastChild();
         pointer = tree.find("brandon", pointer);
         if (out) System.out.print("find(brandon), path(z): ");
         if (out) System.out.println(pointer);
-        assert(pointer == null);
+        assertNull(pointer);
         //handles misc symbols that might(but shouldn't) pop up. Can't read these in from a file, though.
         pointer = tree.find("α");
         if (out) System.out.print("find(α): ");
         if (out) System.out.println(pointer);
-        assert(pointer == null);
+        assertNull(pointer);
         if (out) System.out.println("");
     }
 
@@ -140,19 +174,19 @@ public class AppTest {
         String word = tree.findExtraMiddle("branrotdon");
         if (out) System.out.print("findExtraMiddle(branrotdon): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("brandon") == 0);
+        assertNotNull(word);
+        assertEquals("brandon", word);
         //find 1 extra letter
         word = tree.findExtraMiddle("branrdon");
         if (out) System.out.print("findExtraMiddle(branrdon): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("brandon") == 0);
+        assertNotNull(word);
+        assertEquals("brandon", word);
         //shouldnt find 4 extra letters
         word = tree.findExtraMiddle("branrotydon");
         if (out) System.out.print("findExtraMiddle(branrotydon): ");
         if (out) System.out.println(word);
-        assert(word == null);
+        assertNull(word);
         if (out) System.out.println("");
     }
 
@@ -163,19 +197,19 @@ public class AppTest {
         String word = tree.findMissingMiddle("missisippi");
         if (out) System.out.print("findMissingMiddle(missisippi): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("mississippi") == 0);
+        assertNotNull(word);
+        assertEquals("mississippi", word);
         //find 3 extra letters
         word = tree.findMissingMiddle("missippi");
         if (out) System.out.print("findMissingMiddle(missippi): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("mississippi") == 0);
+        assertNotNull(word);
+        assertEquals("mississippi", word);
         //should return null if no other words can be found
         word = tree.findMissingMiddle("mississippi");
         if (out) System.out.print("findMissingMiddle(mississippi): ");
         if (out) System.out.println(word);
-        assert(word == null);
+        assertNull(word);
         if (out) System.out.println("");
     }
 
@@ -186,24 +220,24 @@ public class AppTest {
         String word = tree.findExtraPrefix("poybrandon");
         if (out) System.out.print("findExtraPrefix(poybrandon): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("brandon") == 0);
+        assertNotNull(word);
+        assertEquals("brandon", word);
         //find 1 extra letter
         word = tree.findExtraPrefix("pbrandon");
         if (out) System.out.print("findExtraPrefix(pbrandon): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("brandon") == 0);
+        assertNotNull(word);
+        assertEquals("brandon", word);
         //shouldnt find a word
         word = tree.findExtraPrefix("branrotdon");
         if (out) System.out.print("findExtraPrefix(branrotdon): ");
         if (out) System.out.println(word);
-        assert(word == null);
+        assertNull(word);
         //shouldnt find a word
         word = tree.findExtraPrefix("poytbrandon");
         if (out) System.out.print("findExtraPrefix(poytbrandon): ");
         if (out) System.out.println(word);
-        assert(word == null);
+        assertNull(word);
         if (out) System.out.println("");
     }
 
@@ -214,24 +248,24 @@ public class AppTest {
         String word = tree.findMissingPrefix("randon");
         if (out) System.out.print("findMissingPrefix(randon): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("brandon") == 0);
+        assertNotNull(word);
+        assertEquals("brandon", word);
         //find 3 missing letters
         word = tree.findMissingPrefix("sissippi");
         if (out) System.out.print("findMissingPrefix(sissippi): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("mississippi") == 0);
+        assertNotNull(word);
+        assertEquals("mississippi", word);
         //shouldnt find a word
         word = tree.findMissingPrefix("branrotdon");
         if (out) System.out.print("findMissingPrefix(branrotdon): ");
         if (out) System.out.println(word);
-        assert(word == null);
+        assertNull(word);
         //shouldnt find a word
         word = tree.findMissingPrefix("mississippi");
         if (out) System.out.print("findMissingPrefix(mississippi): ");
         if (out) System.out.println(word);
-        assert(word == null);
+        assertNull(word);
         if (out) System.out.println("");
     }
 
@@ -242,24 +276,24 @@ public class AppTest {
         String word = tree.findExtraSuffix("brandonpoy");
         if (out) System.out.print("findExtraSuffix(brandonpoy): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("brandon") == 0);
+        assertNotNull(word);
+        assertEquals("brandon", word);
         //find 1 extra letter
         word = tree.findExtraSuffix("brandonp");
         if (out) System.out.print("findExtraSuffix(brandonp): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("brandon") == 0);
+        assertNotNull(word);
+        assertEquals("brandon", word);
         //shouldnt find a word
         word = tree.findExtraSuffix("branrotdon");
         if (out) System.out.print("findExtraSuffix(branrotdon): ");
         if (out) System.out.println(word);
-        assert(word == null);
+        assertNull(word);
         //shouldnt find a word
         word = tree.findExtraSuffix("poytbrandon");
         if (out) System.out.print("findExtraSuffix(poytbrandon): ");
         if (out) System.out.println(word);
-        assert(word == null);
+        assertNull(word);
         if (out) System.out.println("");
     }
 
@@ -270,24 +304,24 @@ public class AppTest {
         String word = tree.findMissingSuffix("mississipp");
         if (out) System.out.print("findMissingSuffix(mississipp): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("mississippi") == 0);
+        assertNotNull(word);
+        assertEquals("mississippi", word);
         //find 3 missing letters
         word = tree.findMissingSuffix("mississi");
         if (out) System.out.print("findMissingSuffix(mississi): ");
         if (out) System.out.println(word);
-        assert(word != null);
-        assert(word.compareTo("mississippi") == 0);
+        assertNotNull(word);
+        assertEquals("mississippi", word);
         //shouldnt find a word
         word = tree.findMissingSuffix("branrotdon");
         if (out) System.out.print("findMissingSuffix(branrotdon): ");
         if (out) System.out.println(word);
-        assert(word == null);
+        assertNull(word);
         //shouldnt find a word
         word = tree.findMissingSuffix("poytbrandon");
         if (out) System.out.print("findMissingSuffix(poytbrandon): ");
         if (out) System.out.println(word);
-        assert(word == null);
+        assertNull(word);
         if (out) System.out.println("");
     }
 
@@ -295,17 +329,17 @@ public class AppTest {
         FillTree fillTree = new FillTree();
         Trie tree = fillTree.readInFile(System.getProperty("user.dir") + "\\data\\words.txt");
         boolean found = tree.findWord("brandon");
-        assert(found == true);
+        assertTrue(found);
         found = tree.findWord("Brandon");
-        assert(found == true);
+        assertTrue(found);
         found = tree.findWord("Bra ndon");
-        assert(found == true);
+        assertTrue(found);
         found = tree.findWord("branon");
-        assert(found == false);
+        assertFalse(found);
         found = tree.findWord("");
-        assert(found == false);
+        assertFalse(found);
         found = tree.findWord(" ");
-        assert(found == false);
+        assertFalse(found);
     }
 
     @Test public void testSuggestionsOutput() throws IOException {
@@ -320,7 +354,7 @@ public class AppTest {
         if((suggestion = tree.findMissingSuffix(word)) != null) suggestions.add(suggestion);
         if((suggestion = tree.findMissingMiddle(word)) != null) suggestions.add(suggestion);
         if(suggestions.size() < 5 && (suggestion = tree.findExtraMiddle(word)) != null) suggestions.add(suggestion);
-        for(int i = 0; i < suggestions.size(); i++) assert(suggestions.get(i) instanceof String);
+        for(int i = 0; i < suggestions.size(); i++) assertTrue(suggestions.get(i) instanceof String);
 
         if (out) System.out.println("Suggestions for " + word + ": ");
         if (out) for(int i = 0; i < suggestions.size();i++) System.out.println(suggestions.get(i));
@@ -331,11 +365,1003 @@ public class AppTest {
         FillTree fillTree = new FillTree();
         Trie tree = fillTree.readInFile(System.getProperty("user.dir") + "\\data\\words.txt");
         String word = "gibber-freaking-ish";
-        assert(tree.findWord(word) == false);
+        assertFalse(tree.findWord(word));
         tree.add(word);
-        assert(tree.findWord(word) == true);
+        assertTrue(tree.findWord(word));
         if (out) System.out.println("");
     }
 
+    @Test public void testRemovingWordsFromTree() {
+        Trie tree = new Trie();
+        tree.add("car");
+        tree.add("cart");
+        tree.add("cat");
+        tree.add("car");// duplicate, shouldn't change the counts.
+        assertEquals(3, tree.numberOfWords());
+        assertEquals(5, tree.numberOfNodes());
+        //removing a word that's a prefix of another only unmarks it
+        assertTrue(tree.remove("car"));
+        assertFalse(tree.findWord("car"));
+        assertTrue(tree.findWord("cart"));
+        assertEquals(2, tree.numberOfWords());
+        assertEquals(5, tree.numberOfNodes());
+        //removing a leaf word prunes the dead branch back to the shared node
+        assertTrue(tree.remove("cart"));
+        assertEquals(1, tree.numberOfWords());
+        assertEquals(3, tree.numberOfNodes());
+        assertNull(tree.find("car"));
+        assertTrue(tree.findWord("cat"));
+        //can't remove what isn't there
+        assertFalse(tree.remove("ca"));
+        assertFalse(tree.remove("dog"));
+        assertTrue(tree.remove("cat"));
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.numberOfWords());
+        assertNull(tree.root().firstChild());
+    }
+
+    @Test public void testCompactingTree() {
+        Trie tree = new Trie();
+        String[] words = {"zebra", "apple", "apply", "banana", "band", "ban"};
+        for (String word : words) tree.add(word);
+        tree.remove("banana");
+        tree.remove("apply");
+        int nodesBefore = tree.numberOfNodes();
+        assertEquals(0, tree.compact());
+        assertEquals(nodesBefore, tree.numberOfNodes());
+        assertEquals(4, tree.numberOfWords());
+        for (String word : new String[]{"zebra", "apple", "band", "ban"}) assertTrue(tree.findWord(word));
+        assertFalse(tree.findWord("banana"));
+        assertFalse(tree.findWord("apply"));
+        //siblings stay sorted after the rebuild
+        assertEquals('a', (char)tree.root().firstChild().value());
+        assertEquals('z', (char)tree.root().lastChild().value());
+    }
+
+    @Test public void testReloadingDictionary() throws IOException {
+        File wordList = tempWordList("apple", "banana");
+        DictionaryReloader reloader = new DictionaryReloader(wordList.getPath());
+        Dictionary first = reloader.current();
+        assertEquals(1, reloader.version());
+        assertTrue(first.findWord("apple"));
+        try (PrintWriter writer = new PrintWriter(new FileWriter(wordList))) {
+            writer.println("cherry");
+        }
+        assertTrue(reloader.reload());
+        assertEquals(2, reloader.version());
+        assertTrue(reloader.current().findWord("cherry"));
+        assertFalse(reloader.current().findWord("apple"));
+        //anyone still holding the old dictionary keeps a complete, unchanged trie.
+        assertTrue(first.findWord("apple"));
+        assertFalse(first.findWord("cherry"));
+        //a missing word list keeps the current dictionary.
+        wordList.delete();
+        assertFalse(reloader.reload());
+        assertEquals(2, reloader.version());
+        assertTrue(reloader.current().findWord("cherry"));
+        reloader.close();
+    }
+
+    @Test public void testReloadingOffHeapDictionary() throws IOException {
+        File wordList = tempWordList("apple");
+        //off-heap dictionaries are closed once they're replaced, and the last request holding one lets go.
+        DictionaryReloader offHeap = new DictionaryReloader(wordList.getPath(), DictionaryFactory.OFF_HEAP_BACKEND);
+        ArenaTrie replaced = (ArenaTrie) offHeap.current();
+        try (DictionaryReloader.Lease lease = offHeap.acquire()) {
+            assertTrue(offHeap.reload());
+            assertTrue(lease.dictionary().findWord("apple"));
+            assertTrue(replaced.offHeapBytes() > 0);
+        }
+        assertEquals(0, replaced.offHeapBytes());
+        ArenaTrie last = (ArenaTrie) offHeap.current();
+        assertTrue(last.findWord("apple"));
+        offHeap.close();
+        assertEquals(0, last.offHeapBytes());
+        assertFalse(offHeap.reload());
+        try {
+            offHeap.acquire();
+            fail("A closed reloader shouldn't hand out dictionaries.");
+        }
+        catch (IllegalStateException e) {
+            // expected.
+        }
+    }
+
+    @Test public void testSegmentedDictionary() throws IOException {
+        SegmentedDictionary dictionary = new SegmentedDictionary(tempSegments(), 2);
+        assertEquals(4, dictionary.numberOfSegments());
+        assertEquals(0, dictionary.loadedSegments());
+        assertTrue(dictionary.findWord("apply"));
+        assertTrue(dictionary.findWord("a"));
+        assertEquals(1, dictionary.loadedSegments());
+        assertTrue(dictionary.findWord("band"));
+        assertFalse(dictionary.findWord("ban"));
+        assertFalse(dictionary.findWord("dog"));
+        assertEquals(2, dictionary.loadedSegments());
+        //loading a 3rd segment evicts the least recently used one("a"), which is read back in when needed.
+        assertTrue(dictionary.findWord("Zebra"));
+        assertEquals(2, dictionary.loadedSegments());
+        assertEquals(1, dictionary.segmentEvictions());
+        assertTrue(dictionary.findWord("apple"));
+        assertEquals(4, dictionary.segmentLoads());
+    }
+
+    @Test public void testSegmentedDictionaryCounts() throws IOException {
+        SegmentedDictionary dictionary = new SegmentedDictionary(tempSegments(), 2);
+        //word counts come from the index, so counting words, or prefixes no longer than a segment's, loads nothing.
+        assertEquals(7, dictionary.numberOfWords());
+        assertEquals(3, dictionary.countPrefix("a"));
+        assertEquals(7, dictionary.countPrefix(""));
+        assertEquals(0, dictionary.loadedSegments());
+        assertEquals(2, dictionary.countPrefix("ban"));
+        assertEquals(1, dictionary.loadedSegments());
+    }
+
+    @Test public void testChangingSegmentedDictionary() throws IOException {
+        SegmentedDictionary dictionary = new SegmentedDictionary(tempSegments(), 2);
+        //changed segments stay loaded, past the cap, since the change isn't written to their file.
+        assertTrue(dictionary.addWord("Dog"));
+        assertFalse(dictionary.addWord("dog"));
+        assertTrue(dictionary.remove("apple"));
+        assertFalse(dictionary.remove("apple"));
+        assertTrue(dictionary.findWord("zebra"));
+        assertTrue(dictionary.findWord("cat"));
+        assertTrue(dictionary.findWord("dog"));
+        assertFalse(dictionary.findWord("apple"));
+        assertEquals(7, dictionary.numberOfWords());
+        assertEquals(2, dictionary.countPrefix("a"));
+        ArrayList<String> listed = new ArrayList<>();
+        for (String word : dictionary) listed.add(word);
+        assertEquals(Arrays.asList("a", "apply", "banana", "band", "cat", "dog", "zebra"), listed);
+    }
+
+    @Test public void testSegmentedDictionaryCursor() throws IOException {
+        SegmentedDictionary dictionary = new SegmentedDictionary(tempSegments(), 2);
+        //walks into the segment's own trie once the letters reach the segment's prefix.
+        PrefixCursor cursor = dictionary.cursor();
+        assertTrue(cursor.next('B'));
+        assertTrue(cursor.next('a'));
+        assertEquals(2, cursor.countWords());
+        assertTrue(cursor.next('n'));
+        assertTrue(cursor.next('d'));
+        assertTrue(cursor.isWord());
+        assertEquals(4, cursor.depth());
+        assertFalse(cursor.next('x'));
+        cursor.reset();
+        assertFalse(cursor.next('q'));
+    }
+
+    @Test public void testSegmentedBackend() throws IOException {
+        //as a backend(2 letter segments, so cursors and prefix counts start out on the index), its lookups, prefixes,
+        //cursors, and word list match the trie's.
+        Dictionary segmented = DictionaryFactory.open(DictionaryFactory.SEGMENTED_BACKEND, new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        assertTrue(segmented instanceof SegmentedDictionary);
+        DifferentialHarness.Report report = new DifferentialHarness()
+                .backend("trie", DictionaryFactory.open("trie", new LineWordReader(new StringReader(SAMPLE_WORDS))))
+                .backend("segmented", segmented)
+                .lookups(Arrays.asList("apple", "APPLE ", "appl", "bandana", "zebra", "", "b"))
+                .prefixes(Arrays.asList("ban", "appx", "c", "ca", "dog", "", "x"))
+                .additions(Arrays.asList("zebra", "apple", "Banner", "ban")).run();
+        assertTrue(report.toString(), report.matches());
+    }
+
+    @Test public void testReadingOtherWordListFormats() throws IOException {
+        //json object, keyed by word
+        File json = File.createTempFile("words_dictionary", ".json");
+        json.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(json))) {
+            writer.println("{\"a\": 1, \"apple\": {\"nested\": [1, \"x\"]},\n \"b\\u0061nd\": 1, \"Zebra\" : true}");
+        }
+        Trie tree = new FillTree().readInFile(json.getPath());
+        assertEquals(4, tree.numberOfWords());
+        assertTrue(tree.findWord("band") && tree.findWord("zebra") && tree.findWord("apple"));
+        assertFalse(tree.findWord("nested"));
+        //gzipped json array, whatever the file is named
+        File gzip = File.createTempFile("wordList", ".json");
+        gzip.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(gzip))))) {
+            writer.print("[\"cat\", 7, \"dog\", null, \"b-\"]");
+        }
+        tree = new FillTree().readInFile(gzip.getPath());
+        assertEquals(2, tree.numberOfWords());
+        assertTrue(tree.findWord("cat") && tree.findWord("dog"));
+        //deflated word/frequency list
+        File tsv = File.createTempFile("frequencies", ".tsv.deflate");
+        tsv.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new DeflaterOutputStream(new FileOutputStream(tsv))))) {
+            writer.print("# word\tcount\nthe\t500\nof\t250\n\nspell\n");
+        }
+        tree = new FillTree().readInFile(tsv.getPath());
+        assertEquals(3, tree.numberOfWords());
+        assertTrue(tree.findWord("the") && tree.findWord("of") && tree.findWord("spell"));
+        assertFalse(tree.findWord("500"));
+    }
+
+    @Test public void testSortingWordLists() throws IOException {
+        File unsorted = File.createTempFile("unsorted", ".txt");
+        unsorted.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(unsorted))) {
+            for (String word : new String[]{"pear", "apple", "Pear", "banana", "app", "cherry", "apple", "a", "band"}) writer.println(word);
+        }
+        //3 words per run, so the sort has to merge several runs back together.
+        ExternalSorter sorter = new ExternalSorter(3, null);
+        WordReader sorted = sorter.sort(FillTree.formatted(FillTree.openWordList(unsorted.getPath())));
+        ArrayList<String> words = new ArrayList<>();
+        String word;
+        while ((word = sorted.nextWord()) != null) words.add(word);
+        sorted.close();
+        assertEquals(Arrays.asList("a", "app", "apple", "banana", "band", "cherry", "pear"), words);
+        //unsorted words that are prefixes of the word before them still get marked.
+        Trie tree = new FillTree().readInFile(unsorted.getPath());
+        assertTrue(tree.findWord("app"));
+        assertEquals(7, tree.numberOfWords());
+        //merging an already sorted glossary with the unsorted list's sorted output
+        File glossary = File.createTempFile("glossary", ".txt");
+        glossary.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(glossary))) {
+            for (String glossaryWord : new String[]{"apple", "bandwidth", "zettabyte"}) writer.println(glossaryWord);
+        }
+        tree = new FillTree().readInMerged(glossary.getPath(), glossary.getPath());
+        assertEquals(3, tree.numberOfWords());
+        tree = new FillTree().readInUnsorted(unsorted.getPath(), glossary.getPath());
+        assertEquals(9, tree.numberOfWords());
+        assertEquals(tree.numberOfNodes(), new Trie(tree.root()).numberOfNodes());
+        assertTrue(tree.findWord("bandwidth") && tree.findWord("zettabyte") && tree.findWord("app"));
+    }
+
+    @Test public void testIteratingOverWords() {
+        Trie tree = new Trie();
+        String[] words = {"zebra", "a", "apple", "app", "apply", "banana", "band", "ban", "b-and", "zoo"};
+        for (String word : words) tree.add(word);
+        String[] sorted = words.clone();
+        Arrays.sort(sorted);
+        ArrayList<String> iterated = new ArrayList<>();
+        for (String word : tree) iterated.add(word);
+        assertEquals(Arrays.asList(sorted), iterated);
+        //parallel streams split the words, but still come back in order.
+        assertEquals(Arrays.asList(sorted), tree.words().parallel().collect(Collectors.toList()));
+        Spliterator<String> spliterator = tree.spliterator();
+        Spliterator<String> firstHalf = spliterator.trySplit();
+        assertNotNull(firstHalf);
+        ArrayList<String> split = new ArrayList<>();
+        firstHalf.forEachRemaining(split::add);
+        spliterator.forEachRemaining(split::add);
+        assertEquals(Arrays.asList(sorted), split);
+        assertFalse(new Trie().iterator().hasNext());
+    }
+
+    @Test public void testCountingAndRankingWords() {
+        Trie tree = new Trie();
+        String[] words = {"a", "app", "apple", "apply", "ban", "banana", "band", "zebra"};
+        for (String word : words) tree.add(word);
+        assertEquals(3, tree.countPrefix("ap"));
+        assertEquals(4, tree.countPrefix("a"));
+        assertEquals(3, tree.countPrefix("Ban"));
+        assertEquals(0, tree.countPrefix("c"));
+        assertEquals(8, tree.countPrefix(""));
+        //ranks and selects agree with the sorted word list
+        for (int i = 0; i < words.length; i++) {
+            assertEquals(i, tree.rank(words[i]));
+            assertEquals(words[i], tree.select(i));
+        }
+        assertEquals(2, tree.rank("apparent"));// not a word, but would come after "app"
+        assertEquals(8, tree.rank("zoo"));
+        assertNull(tree.select(8));
+        assertEquals(Arrays.asList("apply", "ban", "banana"), tree.wordsInRange(3, 3));
+        //pages run on across subtrees, and stop at either end of the word list.
+        assertEquals(Arrays.asList(words).subList(1, 8), tree.wordsInRange(1, 20));
+        assertEquals(Arrays.asList(words).subList(0, 2), tree.wordsInRange(-1, 3));
+        assertEquals(0, tree.wordsInRange(8, 3).size());
+        assertEquals(0, tree.wordsInRange(2, 0).size());
+        //counts stay exact through removals and compaction
+        tree.remove("apple");
+        tree.add("apply");
+        assertEquals(2, tree.countPrefix("ap"));
+        assertEquals("apply", tree.select(2));
+        tree.compact();
+        assertEquals(2, tree.countPrefix("ap"));
+        assertEquals(6, tree.rank("zebra"));
+    }
+
+    @Test public void testPatternQueries() {
+        Trie tree = new Trie();
+        for (String word : new String[]{"cat", "cot", "cut", "coat", "cart", "ct", "dog", "intention", "interaction",
+                "internation", "intersection", "inter", "a-ha", "aha"}) tree.add(word);
+        assertEquals(Arrays.asList("cat", "cot", "cut"), tree.match("c?t", 0));
+        assertEquals(Arrays.asList("cart", "cat", "coat", "cot", "ct", "cut"), tree.match("c*t", 0));
+        assertEquals(Arrays.asList("interaction", "internation", "intersection"), tree.match("inter*tion", 0));
+        assertEquals(Arrays.asList("cat", "cot"), tree.match("C[ao]T", 0));
+        assertEquals(Arrays.asList("cut"), tree.match("c[!a-o]t", 0));
+        assertEquals(Arrays.asList("a-ha"), tree.match("a\\-*", 0));
+        assertEquals(Arrays.asList("cart", "cat"), tree.match("c*t", 2));
+        assertEquals(14, tree.match("*", 0).size());
+        assertEquals(0, tree.match("x*", 0).size());
+        //streaming output, stopping at the limit
+        ArrayList<String> streamed = new ArrayList<>();
+        assertEquals(1, new PatternQuery("in*").run(tree, 1, streamed::add));
+        assertEquals(Arrays.asList("intention"), streamed);
+    }
+
+    @Test public void testAnagramIndex() throws IOException {
+        File wordList = File.createTempFile("wordList", ".txt");
+        wordList.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(wordList))) {
+            for (String word : new String[]{"a", "enlist", "inlets", "listen", "silent", "tinsel", "lit", "nil", "tin", "tint"}) writer.println(word);
+        }
+        Trie tree = new FillTree().buildAnagramIndex(true).readInFile(wordList.getPath());
+        AnagramIndex anagrams = tree.anagramIndex();
+        assertEquals(10, anagrams.size());
+        assertEquals(Arrays.asList("enlist", "inlets", "listen", "silent", "tinsel"), anagrams.anagrams("Listen"));
+        assertTrue(anagrams.anagrams("xyz").isEmpty());
+        //words using some of the letters, each letter at most once
+        assertEquals(Arrays.asList("lit", "nil", "tin"), anagrams.subAnagrams("tinl", 2, 0));
+        assertEquals(Arrays.asList("lit", "nil", "tin", "tint"), anagrams.subAnagrams("tintl", 3, 0));
+        //the index follows additions and removals
+        tree.add("elints");
+        tree.remove("tinsel");
+        assertEquals(Arrays.asList("elints", "enlist", "inlets", "listen", "silent"), anagrams.anagrams("listen"));
+        tree.compact();
+        assertEquals(5, tree.anagramIndex().anagrams("listen").size());
+    }
+
+    @Test public void testPhoneticSuggestions() throws IOException {
+        assertEquals(PhoneticIndex.encode("phonetic"), PhoneticIndex.encode("fonetik"));
+        assertEquals(PhoneticIndex.encode("knowledge"), PhoneticIndex.encode("nollij"));
+        assertEquals(PhoneticIndex.encode("Thumb"), PhoneticIndex.encode("thum"));
+        assertTrue(PhoneticIndex.encode("phonetic") != PhoneticIndex.encode("genetic"));
+        assertEquals(0, PhoneticIndex.encode("--"));
+        File wordList = File.createTempFile("wordList", ".txt");
+        wordList.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(wordList))) {
+            for (String word : new String[]{"fanatic", "genetic", "knowledge", "phonetic", "phonetics"}) writer.println(word);
+        }
+        Trie tree = new FillTree().buildPhoneticIndex(true).readInFile(wordList.getPath());
+        assertEquals(5, tree.phoneticIndex().size());
+        //too far off for the edit based suggestions, closest length first
+        ArrayList<String> suggestions = tree.wordSuggestions("fonetik");
+        assertEquals(Arrays.asList("fanatic", "phonetic", "Manual Entry", "Ignore"), suggestions);
+        suggestions = tree.wordSuggestions("nollij");
+        assertEquals("knowledge", suggestions.get(0));
+        //removed words aren't suggested
+        tree.remove("phonetic");
+        assertEquals(Arrays.asList("fanatic"), tree.phoneticIndex().soundsLike("fonetik", 5));
+    }
+
+    @Test public void testPhoneticIndexSnapshot() throws IOException {
+        Trie tree = new FillTree().readIn(new LineWordReader(new StringReader("fanatic\ngenetic\nknowledge\nphonetic\n")));
+        PhoneticIndex index = PhoneticIndex.of(tree);
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        index.writeTo(snapshot);
+        PhoneticIndex readBack = PhoneticIndex.readFrom(tree, new ByteArrayInputStream(snapshot.toByteArray()));
+        assertEquals(index.size(), readBack.size());
+        assertEquals(index.numberOfKeys(), readBack.numberOfKeys());
+        assertEquals(index.soundsLike("fonetik", 5), readBack.soundsLike("fonetik", 5));
+        assertEquals(Arrays.asList("knowledge"), readBack.soundsLike("nollij", 5));
+        //a snapshot of another word list doesn't fit the trie
+        Trie other = new FillTree().readIn(new LineWordReader(new StringReader("cat\n")));
+        try {
+            PhoneticIndex.readFrom(other, new ByteArrayInputStream(snapshot.toByteArray()));
+            fail("The snapshot was read into the wrong trie.");
+        } catch (IOException expected) {}
+    }
+
+    @Test public void testRankingSuggestionsByContext() throws IOException {
+        NGramModel model = new NGramModel(16);
+        model.addText(new StringReader("The cat sat on the mat. The cat ate. A cot is a bed! The cat sat down."));
+        model.build();
+        assertEquals(31, model.size());
+        assertTrue(model.score("the", "cat", "sat") > model.score("the", "cot", "sat"));
+        assertTrue(model.score("a", "cot", null) > model.score("a", "cat", null));
+        assertEquals(0, model.score("the", "dog", "sat"));
+        //case and trailing punctuation don't matter
+        assertEquals(model.score("the", "cat", "sat"), model.score("The", "CAT", "sat,"));
+        ArrayList<String> candidates = new ArrayList<>(Arrays.asList("cot", "cut", "cat"));
+        model.rerank(candidates, "the", "sat");
+        assertEquals(Arrays.asList("cat", "cot", "cut"), candidates);
+    }
+
+    @Test public void testReverseTrieSearches() throws IOException {
+        String words = "brandon\nmississippi\nrandom\nstrand\nstranded\ntea\nteam\nsteam\nsteamer\n";
+        Trie tree = new FillTree().buildReverseTrie(true).readIn(new LineWordReader(new StringReader(words)));
+        Trie plain = new FillTree().readIn(new LineWordReader(new StringReader(words)));
+        assertEquals(tree.numberOfWords(), tree.reverse().numberOfWords());
+        assertTrue(tree.reverse().findWord("nodnarb"));
+        for (Trie t : new Trie[]{tree, plain}) {
+            assertEquals("brandon", t.findMissingPrefix("randon"));
+            assertEquals("strand", t.findMissingPrefix("rand"));
+            assertEquals("team", t.findMissingPrefix("eam"));
+            assertEquals(null, t.findMissingPrefix("xyz"));
+            assertEquals("mississippi", t.findMissingMiddle("missippi"));
+            assertEquals("strand", t.findMissingMiddle("strad"));
+            assertEquals(null, t.findMissingMiddle("brandin"));
+            assertEquals("brandon", t.findExtraPrefix("poybrandon"));
+            assertEquals("team", t.findExtraPrefix("steam"));
+            assertEquals(null, t.findExtraPrefix("brandon"));
+            assertEquals("steam", t.findExtraMiddle("stxxeam"));
+            //whitespace is still skipped, like lookups do.
+            assertEquals("st rand", t.findMissingPrefix(" rand"));
+            assertEquals("stran d", t.findMissingMiddle("stra d"));
+            assertEquals("mississ ippi", t.findMissingMiddle("miss ippi"));
+            assertEquals("steam", t.findExtraPrefix(" steam"));
+            assertEquals(" team", t.findExtraPrefix("s team"));
+            assertEquals("st eam", t.findExtraMiddle("stx eam"));
+        }
+        //words added or removed later are kept in the reverse trie too.
+        tree.add("seam");
+        assertEquals("steam", tree.findMissingMiddle("seam"));
+        assertEquals("seam", tree.findMissingMiddle("sam"));
+        tree.remove("brandon");
+        assertEquals(null, tree.findMissingPrefix("randon"));
+        assertEquals(tree.numberOfWords(), tree.reverse().numberOfWords());
+    }
+
+    @Test public void testTrigramIndex() throws IOException {
+        assertEquals(3, EditDistance.levenshtein("kitten", "sitting"));
+        assertEquals(0, EditDistance.levenshtein("same", "same"));
+        assertEquals(4, EditDistance.levenshtein("", "four"));
+        assertEquals(3, EditDistance.levenshtein("kitten", "sitting", 2));
+        String words = "constellation\nconsternation\nconstitution\nexclamation\nexclamations\ntenacious\n";
+        Trie tree = new FillTree().buildTrigramIndex(true).readIn(new LineWordReader(new StringReader(words)));
+        TrigramIndex index = tree.trigramIndex();
+        assertEquals(6, index.size());
+        //the words are given ids in the order they're read in.
+        assertArrayEquals(new int[]{0, 1, 2}, index.candidates("constxxxxion", 3));
+        //4 and 5 edits away.
+        assertEquals("constellation", index.closest("conjteqtotion", 6, 1).get(0));
+        assertEquals(Arrays.asList("exclamations", "exclamation"), index.closest("hbclamaoiops", 6, 5));
+        assertEquals(0, index.closest("conjteqtotion", 3, 5).size());
+        //used by wordSuggestions once the edit based searches find nothing.
+        assertEquals("constellation", tree.wordSuggestions("cxnstelxxtiox").get(0));
+        tree.remove("constellation");
+        assertEquals("consternation", index.closest("cxnstelxxtiox", 6, 1).get(0));
+    }
+
+    @Test public void testBKTree() throws IOException {
+        String words = "book\nbooks\ncake\ncape\ncart\nboo\nbook\nconstellation\nconsternation\n";
+        Trie tree = new FillTree().buildBKTree(true).readIn(new LineWordReader(new StringReader(words)));
+        BKTree bkTree = tree.bkTree();
+        assertEquals(8, bkTree.size());
+        assertTrue(bkTree.contains("cape"));
+        assertFalse(bkTree.contains("cap"));
+        assertEquals(Arrays.asList("book", "boo", "books"), bkTree.nearest("boook", 5, 2));
+        assertEquals(Arrays.asList("cake", "cape"), bkTree.nearest("cace", 2, 1));
+        assertEquals(Arrays.asList("cake", "cape", "cart"), bkTree.nearest("capt", 3, 2).stream().sorted().collect(Collectors.toList()));
+        assertEquals(0, bkTree.nearest("zzzzzz", 5, 2).size());
+        //words added to, or removed from, the trie are added to, or removed from, the BK-tree.
+        tree.remove("book");
+        tree.add("brook");
+        assertEquals(Arrays.asList("brook", "boo", "books"), bkTree.nearest("boook", 5, 2));
+        //longer words get their suggestions from the BK-tree.
+        tree.bkTreeMinLength(10);
+        assertEquals(Arrays.asList("constellation", "consternation", "Manual Entry", "Ignore"), tree.wordSuggestions("constelation"));
+    }
+
+    @Test public void testEditDistanceKernel() {
+        EditDistance distance = new EditDistance("kitten");
+        assertEquals(3, distance.levenshtein("sitting"));
+        assertEquals(3, distance.damerau("sitting"));
+        assertEquals(6, distance.levenshtein(""));
+        //swapped neighbours are one edit for Damerau, two for Levenshtein.
+        assertEquals(2, EditDistance.levenshtein("recieve", "receive"));
+        assertEquals(1, EditDistance.damerau("recieve", "receive"));
+        //bounded, giving up past max.
+        char[] text = "sitting".toCharArray();
+        assertEquals(3, distance.levenshtein(text, text.length, 2));
+        assertEquals(3, distance.levenshtein(text, text.length, 3));
+        assertEquals(2, distance.levenshtein("kitten!!".toCharArray(), 8, 2));
+        //patterns over 64 characters are split into blocks.
+        StringBuilder longWord = new StringBuilder();
+        for (int i = 0; i < 150; i++) longWord.append((char) ('a' + i % 26));
+        String damaged = longWord.substring(0, 40) + "xx" + longWord.substring(41, 100) + longWord.substring(101);
+        assertEquals(3, EditDistance.levenshtein(longWord, damaged));
+        assertEquals(3, EditDistance.damerau(longWord, damaged));
+        assertEquals(3, EditDistance.levenshtein(damaged, longWord));
+        //edit based suggestions come back closest first.
+        Trie tree = new Trie();
+        tree.add("abcart");
+        tree.add("car");
+        assertEquals(Arrays.asList("car", "abcart", "Manual Entry", "Ignore"), tree.wordSuggestions("cart"));
+    }
+
+    @Test public void testWordIds() throws IOException {
+        String words = "cat\ncatalog\ncatalogs\ncatch\ndog\ndogs\n";
+        Trie tree = new FillTree().buildTrigramIndex(true).buildPhoneticIndex(true).readIn(new LineWordReader(new StringReader(words)));
+        //words are given dense ids, in the order they're read in(sorted).
+        for (int id = 0; id < 6; id++) assertEquals(id, tree.wordId(tree.word(id)));
+        assertEquals("catalogs", tree.word(2));
+        assertEquals(2, tree.find("catalogs").wordId());
+        assertEquals(-1, tree.find("catal").wordId());
+        assertEquals(-1, tree.wordId("catal"));
+        //the indexes decode their results from the pool.
+        assertEquals(Arrays.asList("catalog", "catalogs"), tree.trigramIndex().closest("catalogz", 1, 5));
+        assertTrue(tree.phoneticIndex().soundsLike("dawg", 5).contains("dog"));
+        //removed words keep their id, and get it back when added again.
+        assertTrue(tree.remove("catalog"));
+        assertNull(tree.word(1));
+        assertFalse(tree.isWord(1));
+        assertEquals(1, tree.add("catalog").wordId());
+        assertEquals("catalog", tree.word(1));
+        //words added out of order get the next id, until compact renumbers them in sorted order.
+        assertEquals(6, tree.add("cab").wordId());
+        tree.remove("catch");
+        tree.compact();
+        assertEquals(Arrays.asList("cab", "cat", "catalog", "catalogs", "dog", "dogs"), Arrays.asList(tree.word(0), tree.word(1), tree.word(2), tree.word(3), tree.word(4), tree.word(5)));
+        assertNull(tree.word(6));
+        assertEquals(Arrays.asList("catalog", "catalogs"), tree.trigramIndex().closest("catalogz", 1, 5));
+    }
+
+    @Test public void testWordPool() {
+        //front coding shares each word's leading letters with the word before it.
+        WordPool pool = new WordPool();
+        for (int i = 0; i < 5000; i++) pool.add("constellation" + (char) ('a' + i % 26));
+        char[] buffer = new char[pool.maxLength()];
+        assertEquals(14, pool.word(57, buffer));
+        assertEquals("constellationf", new String(buffer, 0, 14));
+        assertTrue(pool.memoryBytes() < 5000 * 14);
+    }
+
+    @Test public void testNodesSpellingWords() throws IOException {
+        Trie tree = new FillTree().readIn(new LineWordReader(new StringReader("cat\ncatalog\ncatalogs\ncatch\ndog\ndogs\n")));
+        //nodes spell their words without building the path from each ancestor.
+        TrieNode node = tree.find("catalogs");
+        assertEquals("catalogs", node.toString());
+        assertEquals(8, node.length());
+        assertTrue(node.compareTo(tree.find("dog")) < 0);
+        assertTrue(tree.find("cat").compareTo(node) < 0);
+    }
+
+    @Test public void testPerfectHashDictionary() throws IOException {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < 5000; i++) words.append("word").append(Integer.toString(i, 26).replace('0', 'z')).append('\n');
+        Trie tree = new FillTree().buildPerfectHash(true).readIn(new LineWordReader(new StringReader(words.toString())));
+        PerfectHashDictionary dictionary = tree.perfectHash();
+        assertEquals(tree.numberOfWords(), dictionary.size());
+        assertTrue(dictionary.bitsPerWord() < 24);
+        //every word is found, and the trie's findWord goes through the dictionary.
+        for (String word : tree) assertTrue(dictionary.contains(word));
+        assertTrue(dictionary.contains("  WORD1 "));
+        assertTrue(tree.findWord("word1"));
+        //white space inside the word is skipped, the same as the trie's lookups do.
+        assertTrue(dictionary.contains("wo rd1"));
+        assertEquals(new FillTree().readIn(new LineWordReader(new StringReader(words.toString()))).findWord("wo rd1"), tree.findWord("wo rd1"));
+        int falsePositives = 0;
+        for (int i = 0; i < 5000; i++) if (dictionary.contains("nonword" + i)) falsePositives++;
+        assertTrue(falsePositives < 5);
+        //a non-word the fingerprints wrongly accept is still turned down by findWord, which checks the trie.
+        String falsePositive = null;
+        for (int i = 0; falsePositive == null && i < 5000000; i++) if (dictionary.contains("nonword" + i)) falsePositive = "nonword" + i;
+        assertNotNull(falsePositive);
+        assertFalse(tree.findWord(falsePositive));
+    }
+
+    @Test public void testPerfectHashSnapshot() throws IOException {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < 5000; i++) words.append("word").append(Integer.toString(i, 26).replace('0', 'z')).append('\n');
+        Trie tree = new FillTree().buildPerfectHash(true).readIn(new LineWordReader(new StringReader(words.toString())));
+        PerfectHashDictionary dictionary = tree.perfectHash();
+        //snapshots read back the same dictionary.
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        dictionary.writeTo(snapshot);
+        PerfectHashDictionary readBack = PerfectHashDictionary.readFrom(new ByteArrayInputStream(snapshot.toByteArray()));
+        assertEquals(dictionary.size(), readBack.size());
+        for (String word : tree) assertTrue(readBack.contains(word));
+        //the dictionary is read-only, so changing the trie drops it.
+        tree.add("brandnew");
+        assertNull(tree.perfectHash());
+        assertTrue(tree.findWord("brandnew"));
+        assertEquals(tree.numberOfWords(), PerfectHashDictionary.of(tree).size());
+    }
+
+    @Test public void testDictionaryBackends() throws IOException {
+        DifferentialHarness harness = new DifferentialHarness();
+        for (String backend : DictionaryFactory.BACKENDS) {
+            harness.backend(backend, DictionaryFactory.open(backend, new LineWordReader(new StringReader(SAMPLE_WORDS))));
+        }
+        harness.lookups(Arrays.asList("apple", "APPLE ", "appl", "bandana", "zebra", ""))
+                .prefixes(Arrays.asList("ban", "appx", "c", "dog", ""))
+                .misspellings(Arrays.asList("aple", "bnad", "catt", "eam", "strad", "xyzzy"))
+                .additions(Arrays.asList("zebra", "apple", "Banner"));
+        DifferentialHarness.Report report = harness.run();
+        assertTrue(report.toString(), report.matches());
+        assertEquals(0, report.numberOfMismatches());
+        assertTrue(report.nanos("perfect-hash", "findWord") >= 0);
+        assertEquals(-1, report.nanos("perfect-hash", "nope"));
+    }
+
+    @Test public void testReportingMismatchedBackends() throws IOException {
+        //a backend that disagrees is reported.
+        Dictionary missingWord = DictionaryFactory.open("trie", new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        missingWord.remove("band");
+        DifferentialHarness.Report mismatched = new DifferentialHarness().backend("trie", DictionaryFactory.open("trie", new LineWordReader(new StringReader(SAMPLE_WORDS))))
+                .backend("missing", missingWord).lookups(Arrays.asList("band", "cat")).run();
+        assertFalse(mismatched.matches());
+        assertEquals(3, mismatched.numberOfMismatches());
+    }
+
+    @Test public void testPrefixCursor() throws IOException {
+        Dictionary dictionary = DictionaryFactory.open("trie", new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        dictionary.remove("band");
+        //the cursor walks a prefix a letter at a time.
+        PrefixCursor cursor = dictionary.cursor();
+        assertTrue(cursor.next('B') && cursor.next('a') && cursor.next('n'));
+        assertEquals(2, cursor.countWords());
+        assertFalse(cursor.isWord());
+        assertFalse(cursor.next('q'));
+        assertEquals(3, cursor.depth());
+        cursor.reset();
+        assertEquals(dictionary.numberOfWords(), cursor.countWords());
+        assertEquals("10", dictionary.stats().get("words").toString());
+    }
+
+    @Test public void testConfiguringBackend() throws IOException {
+        //the backend is picked by configuration.
+        System.setProperty(DictionaryFactory.BACKEND_PROPERTY, "perfect-hash");
+        try {
+            assertEquals("perfect-hash", DictionaryFactory.backend());
+        }
+        finally {
+            System.clearProperty(DictionaryFactory.BACKEND_PROPERTY);
+        }
+        assertEquals(DictionaryFactory.DEFAULT_BACKEND, DictionaryFactory.backend());
+        try {
+            DictionaryFactory.open("nope", new LineWordReader(new StringReader(SAMPLE_WORDS)));
+            fail("Unknown backends should be rejected.");
+        }
+        catch (IllegalArgumentException e) {
+            // expected.
+        }
+    }
+
+    @Test public void testOffHeapTrie() throws IOException {
+        ArenaTrie arena = new FillTree().readInOffHeap(new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        assertEquals(11, arena.numberOfWords());
+        assertTrue(arena.findWord(" Apple "));
+        assertFalse(arena.findWord("appl"));
+        assertEquals(3, arena.countPrefix("ban"));
+        assertEquals((long) 1 << 20, arena.offHeapBytes());
+        //lookups, prefixes, cursors, and the word list match the trie's.
+        Dictionary tree = DictionaryFactory.open("trie", new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        DifferentialHarness.Report report = new DifferentialHarness().backend("trie", tree).backend("off-heap", arena)
+                .lookups(Arrays.asList("apple", "APPLE ", "appl", "bandana", "zebra", ""))
+                .prefixes(Arrays.asList("ban", "appx", "c", "dog", ""))
+                .additions(Arrays.asList("zebra", "apple", "Banner", "ban")).run();
+        assertTrue(report.toString(), report.matches());
+        assertTrue(arena.remove("band"));
+        assertFalse(arena.remove("band"));
+        assertFalse(arena.findWord("band"));
+        //ban, banana, bandana, and banner.
+        assertEquals(4, arena.countPrefix("ban"));
+        arena.close();
+        assertTrue(DictionaryFactory.open(DictionaryFactory.OFF_HEAP_BACKEND, new LineWordReader(new StringReader(SAMPLE_WORDS))) instanceof ArenaTrie);
+    }
+
+    @Test public void testOffHeapSuggestions() throws IOException {
+        ArenaTrie arena = new FillTree().readInOffHeap(new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        arena.remove("band");
+        arena.addWord("ban");
+        //suggestions are every word within 2 edits, closest first.
+        assertEquals(Arrays.asList("bandana", "banana", "Manual Entry", "Ignore"), arena.wordSuggestions("bandanna"));
+        assertEquals(Arrays.asList("a", "cat", "ban", "Manual Entry", "Ignore"), arena.wordSuggestions("ca"));
+        arena.close();
+        //at most 7 suggestions, so App's choices stay 1-9.
+        ArenaTrie rhymes = new ArenaTrie();
+        for (String word : "bat\ncat\nfat\nhat\nmat\npat\nrat\nsat\nvat".split("\n")) rhymes.addWord(word);
+        assertEquals(Arrays.asList("bat", "cat", "fat", "hat", "mat", "pat", "rat", "Manual Entry", "Ignore"), rhymes.wordSuggestions("xat"));
+        rhymes.close();
+    }
+
+    @Test public void testClosingOffHeapTrie() throws IOException {
+        ArenaTrie arena = new FillTree().readInOffHeap(new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        //closing frees the arena, and the dictionary can't be used after.
+        arena.close();
+        assertEquals(0, arena.offHeapBytes());
+        try {
+            arena.findWord("apple");
+            fail("A closed arena shouldn't be usable.");
+        }
+        catch (IllegalStateException e) {
+            // expected.
+        }
+    }
+
+    @Test public void testPersistentTrie() throws IOException {
+        VersionedDictionary dictionary = (VersionedDictionary) DictionaryFactory.open(DictionaryFactory.PERSISTENT_BACKEND, new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        PersistentTrie first = dictionary.snapshot();
+        assertEquals(11, first.numberOfWords());
+        assertEquals(0, first.version());
+        //lookups, prefixes, cursors, and the word list match the trie's.
+        Dictionary tree = DictionaryFactory.open("trie", new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        DifferentialHarness.Report report = new DifferentialHarness().backend("trie", tree).backend("persistent", dictionary)
+                .lookups(Arrays.asList("apple", "APPLE ", "appl", "bandana", "zebra", ""))
+                .prefixes(Arrays.asList("ban", "appx", "c", "dog", ""))
+                .additions(Arrays.asList("zebra", "apple", "Banner", "ban")).run();
+        assertTrue(report.toString(), report.matches());
+        //a version is only a view, so it can't be changed in place, only the versioned dictionary can.
+        PersistentTrie latest = dictionary.snapshot();
+        assertFalse(latest instanceof Dictionary);
+        DictionaryView view = dictionary.snapshot();
+        assertSame(latest, view);
+    }
+
+    @Test public void testPersistentTrieVersions() throws IOException {
+        VersionedDictionary dictionary = (VersionedDictionary) DictionaryFactory.open(DictionaryFactory.PERSISTENT_BACKEND, new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        PersistentTrie first = dictionary.snapshot();
+        //each change is a new version, and versions already handed out never change.
+        assertTrue(dictionary.addWord("zebra"));
+        assertFalse(dictionary.addWord("apple"));
+        assertTrue(dictionary.addWord("Banner"));
+        assertEquals(2, dictionary.snapshot().version());
+        assertTrue(dictionary.findWord("banner"));
+        assertFalse(first.findWord("banner"));
+        assertEquals(11, first.numberOfWords());
+        assertTrue(dictionary.remove("band"));
+        assertFalse(dictionary.remove("band"));
+        assertFalse(dictionary.findWord("band"));
+        assertEquals(1, dictionary.countPrefix("band"));
+        assertTrue(first.findWord("band"));
+        //unchanged versions are reused, and removing the last word below a node drops the node.
+        PersistentTrie latest = dictionary.snapshot();
+        assertSame(latest, latest.with("apple"));
+        assertSame(latest, latest.without("applesauce"));
+        assertEquals(0, latest.without("strand").countPrefix("st"));
+    }
+
+    @Test public void testPersistentTrieSuggestions() throws IOException {
+        VersionedDictionary dictionary = (VersionedDictionary) DictionaryFactory.open(DictionaryFactory.PERSISTENT_BACKEND, new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        dictionary.remove("band");
+        assertEquals(Arrays.asList("bandana", "banana", "Manual Entry", "Ignore"), dictionary.wordSuggestions("bandanna"));
+        //at most 7 suggestions, so App's choices stay 1-9.
+        PersistentTrie rhymes = PersistentTrie.of(new Trie());
+        for (String word : "bat\ncat\nfat\nhat\nmat\npat\nrat\nsat\nvat".split("\n")) rhymes = rhymes.with(word);
+        assertEquals(Arrays.asList("bat", "cat", "fat", "hat", "mat", "pat", "rat", "Manual Entry", "Ignore"), rhymes.wordSuggestions("xat"));
+    }
 
+    @Test public void testConcurrentPersistentTrie() throws Exception {
+        VersionedDictionary dictionary = (VersionedDictionary) DictionaryFactory.open(DictionaryFactory.PERSISTENT_BACKEND, new LineWordReader(new StringReader(SAMPLE_WORDS)));
+        //writers on several threads never lose each other's words, and readers always see a whole version.
+        int before = dictionary.numberOfWords();
+        Thread[] threads = new Thread[6];
+        boolean[] consistent = {true};
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 300; i++) {
+                    if (thread < 4) dictionary.addWord("word" + thread + "x" + Integer.toString(i, 26).replace('0', 'z'));
+                    else {
+                        PersistentTrie pinned = dictionary.snapshot();
+                        int count = 0;
+                        for (String word : pinned) count++;
+                        if (count != pinned.numberOfWords() || count != pinned.countPrefix("")) consistent[0] = false;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertTrue(consistent[0]);
+        assertEquals(before + 1200, dictionary.numberOfWords());
+    }
+
+    @Test public void testAdaptiveSiblingOrder() throws Exception {
+        Trie tree = new FillTree().readIn(new LineWordReader(new StringReader(SIBLING_WORDS)));
+        tree.siblingStats(true);
+        for (String word : SIBLING_TEXT) assertTrue(tree.findWord(word));
+        double sorted = tree.averageSiblingHops();
+        //words late in the alphabet are found sooner once the siblings are searched most often found first.
+        tree.adaptiveSiblingOrder(true);
+        for (String word : SIBLING_TEXT) tree.findWord(word);
+        assertTrue(tree.reorderSiblings() > 0);
+        assertEquals('t', (char) tree.root().byFrequency()[0].value());
+        tree.resetSiblingStats();
+        for (String word : SIBLING_TEXT) assertTrue(tree.findWord(word));
+        assertTrue(tree.averageSiblingHops() < sorted);
+        if (out) System.out.println("Sibling hops per lookup: " + sorted + " sorted, " + tree.averageSiblingHops() + " by frequency.");
+    }
+
+    @Test public void testLookupsAfterSiblingReorder() throws Exception {
+        Trie tree = reorderedSiblingTree();
+        //lookups check every child, not stopping at a later letter, and misses are still misses.
+        assertFalse(tree.findWord("tex"));
+        assertFalse(tree.findWord("zebra"));
+        assertTrue(tree.findWord("apple"));
+        //the sorted sibling list is untouched, so the words still come out sorted.
+        ArrayList<String> all = new ArrayList<>();
+        for (String word : tree) all.add(word);
+        assertEquals(Arrays.asList(SIBLING_WORDS.split("\n")), all);
+    }
+
+    @Test public void testAddingAfterSiblingReorder() throws Exception {
+        Trie tree = reorderedSiblingTree();
+        //adding a child drops the node's frequency order, until the next reorder.
+        tree.add("tab");
+        assertNull(tree.find("t").byFrequency());
+        assertTrue(tree.findWord("tab") && tree.findWord("the"));
+        //every reorderInterval lookups, the siblings are reordered on the lookup's thread.
+        tree.reorderInterval(5);
+        for (int i = 0; i < 5; i++) tree.findWord("tab");
+        assertNotNull(tree.find("t").byFrequency());
+        //a word added after the reorder is found.
+        tree.add("toe");
+        assertTrue(tree.findWord("toe") && tree.findWord("tab"));
+    }
+
+    @Test public void testSiblingOrderDuringParallelSuggestions() throws Exception {
+        Trie tree = reorderedSiblingTree();
+        tree.reorderInterval(5);
+        //while the suggestion searches run in parallel, lookups aren't counted, so nothing is reordered under them.
+        tree.parallelSuggestions(true);
+        TrieNode t = tree.find("t");
+        int accesses = t.accessCount();
+        for (int i = 0; i < 10; i++) assertTrue(tree.findWord("tea"));
+        assertEquals(accesses, t.accessCount());
+        assertEquals(t, tree.root().byFrequency()[0]);
+    }
+
+    @Test public void testArenaRelayout() {
+        String[] words = {"ban", "banana", "band", "bandana", "can", "cat", "catalog", "dog", "a"};
+        ArenaTrie arena = new ArenaTrie();
+        for (String word : words) arena.addWord(word);
+        int nodes = arena.numberOfNodes();
+        //every node is moved, and the words, prefixes, and cursors stay the same.
+        assertEquals(nodes, arena.relayout());
+        assertEquals(nodes, arena.numberOfNodes());
+        for (String word : words) assertTrue(arena.findWord(word));
+        assertFalse(arena.findWord("banan"));
+        assertEquals(4, arena.countPrefix("ban"));
+        PrefixCursor cursor = arena.cursor();
+        assertTrue(cursor.next('c') && cursor.next('a') && cursor.next('t'));
+        assertTrue(cursor.isWord());
+        assertEquals(2, cursor.countWords());
+        ArrayList<String> listed = new ArrayList<>();
+        for (String word : arena) listed.add(word);
+        assertEquals(Arrays.asList("a", "ban", "banana", "band", "bandana", "can", "cat", "catalog", "dog"), listed);
+        //words can still be added after, and the old ones are still found.
+        assertTrue(arena.addWord("bat"));
+        assertTrue(arena.addWord("ant"));
+        assertTrue(arena.findWord("bat") && arena.findWord("ant") && arena.findWord("bandana"));
+        assertEquals(words.length + 2, arena.numberOfWords());
+        //laying out fewer levels breadth first gives the same dictionary.
+        assertEquals(arena.numberOfNodes(), arena.relayout(0));
+        assertEquals(5, arena.countPrefix("ba"));
+        arena.close();
+    }
+
+    @Test public void testArenaRelayoutAfterRemovals() {
+        String[] words = {"ban", "banana", "band", "bandana", "can", "cat", "catalog", "dog", "a"};
+        ArenaTrie arena = new ArenaTrie();
+        for (String word : words) arena.addWord(word);
+        //relaying out leaves out the nodes of removed words that no longer lead to any word.
+        int before = arena.numberOfNodes();
+        assertTrue(arena.remove("catalog"));
+        assertTrue(arena.remove("bandana"));
+        assertEquals(before - 7, arena.relayout());
+        assertTrue(arena.findWord("cat") && arena.findWord("band") && arena.findWord("banana"));
+        assertFalse(arena.findWord("catalog"));
+        assertEquals(3, arena.countPrefix("ba"));
+        assertTrue(arena.addWord("catalog"));
+        assertEquals(words.length - 1, arena.numberOfWords());
+        arena.close();
+    }
+
+    @Test public void testPackedChildLabels() throws IOException {
+        String words = "apple\nbanana\nband\ncat\ndog\neel\nfig\ngoat\nhat\nice\nkite\nzebra\n";
+        Trie tree = new FillTree().packChildLabels(2).readIn(new LineWordReader(new StringReader(words)));
+        //root has 11 children, and no other node has 8.
+        assertEquals(2, tree.packedLevels());
+        PackedLabels packed = tree.root().packedLabels();
+        assertEquals(11, packed.size());
+        assertEquals(0, packed.indexOf('a'));
+        assertEquals(4, packed.indexOf('e'));
+        assertEquals(10, packed.indexOf('z'));
+        assertEquals(-1, packed.indexOf('j'));
+        assertEquals(-1, packed.indexOf('\0'));
+        assertNull(tree.find("b").packedLabels());
+        for (String word : words.split("\n")) assertTrue(tree.findWord(word));
+        assertFalse(tree.findWord("jam"));
+        //adding and removing words keeps the packed letters up to date.
+        assertTrue(tree.addWord("jam"));
+        assertTrue(tree.findWord("jam"));
+        assertEquals(12, tree.root().packedLabels().size());
+        assertTrue(tree.remove("eel"));
+        assertFalse(tree.findWord("eel"));
+        assertTrue(tree.findWord("fig"));
+        assertEquals(-1, tree.root().packedLabels().indexOf('e'));
+        //compacting packs the new nodes, and 0 levels unpacks them.
+        tree.compact();
+        assertEquals(11, tree.root().packedLabels().size());
+        assertTrue(tree.findWord("zebra"));
+        assertEquals(0, tree.packChildLabels(0));
+        assertNull(tree.root().packedLabels());
+        assertTrue(tree.findWord("zebra"));
+    }
+
+    @Test public void testParallelSuggestions() throws IOException {
+        String words = "bandana\nbandanas\nbandwagon\ncatalog\ncatalogs\ncataloged\nreconnaissance\nresponsibility\nresponsibilities\n";
+        Trie tree = new FillTree().readIn(new LineWordReader(new StringReader(words)));
+        String[] misspelled = {"bandanaz", "xandana", "bndana", "bandanqa", "catalg", "cataloxed", "catlog", "reconaissance",
+                "reconnaisance", "responsibilty", "respnsibility", "responsibilitiez", "zzzzzzzzzzzz", "bandwagn"};
+        ArrayList<String> sequential = new ArrayList<>();
+        for (String word : misspelled) {
+            sequential.add(tree.findMissTypedCharacter(word) + " " + tree.findMissingMiddle(word) + " " + tree.findExtraMiddle(word));
+        }
+        //the parallel searches find the same, first in order, suggestion.
+        assertFalse(tree.parallelSuggestions());
+        assertTrue(tree.parallelSuggestions(true));
+        assertEquals(1, tree.parallelMinLength(1));
+        for (int i = 0; i < misspelled.length; i++) {
+            String word = misspelled[i];
+            assertEquals(sequential.get(i), tree.findMissTypedCharacter(word) + " " + tree.findMissingMiddle(word) + " " + tree.findExtraMiddle(word));
+        }
+        //the last character is tried before the first, and the first before the middle ones.
+        assertEquals("bandanas", tree.findMissTypedCharacter("bandanaz"));
+        assertEquals("bandana", tree.findMissTypedCharacter("xandana"));
+        assertEquals("responsibility", tree.findMissingMiddle("responsibilty"));
+        assertEquals("cataloged", tree.findExtraMiddle("catalogxed"));
+        assertNull(tree.findMissTypedCharacter("zzzzzzzzzzzz"));
+    }
+
+    @Test public void testIncrementalSuggestionSearches() throws IOException {
+        String words = "cab\ncat\ncate\ncatalog\ndog\nx-ray\nrock'n'roll\n";
+        Trie tree = new FillTree().readIn(new LineWordReader(new StringReader(words)));
+        //missing suffixes only follow the trie's own paths, in the same order, with punctuation still tried.
+        assertEquals("cate", tree.findMissingSuffix("cat"));
+        assertEquals("CATALog", tree.findMissingSuffix("CATAL"));
+        assertEquals("x-ray", tree.findMissingSuffix("x-"));
+        assertEquals("rock'n'roll", tree.findMissingSuffix("rock'n'r"));
+        assertNull(tree.findMissingSuffix("catalogs"));
+        assertNull(tree.findMissingSuffix("bat"));
+        //whitespace is still skipped, like lookups do.
+        assertEquals(" cate", tree.findMissingSuffix(" cat"));
+        assertEquals("ca te", tree.findMissingSuffix("ca t"));
+        //miss typed characters only try the letters the trie continues with, last character first, then first.
+        assertEquals("cab", tree.findMissTypedCharacter("cax"));
+        assertEquals("Cab", tree.findMissTypedCharacter("Cax"));
+        assertEquals("dog", tree.findMissTypedCharacter("bog"));
+        assertEquals("catalog", tree.findMissTypedCharacter("catxlog"));
+        assertEquals("cat", tree.findMissTypedCharacter("c t"));
+        assertNull(tree.findMissTypedCharacter("x-rax-"));
+    }
+
+    /**
+     * Writes a word list to a temp file, deleted on exit.
+     * @param words The words, one per line.
+     * @return The word list file.
+     * @throws IOException when the file can't be written.
+     */
+    private static File tempWordList(String... words) throws IOException {
+        File wordList = File.createTempFile("wordList", ".txt");
+        wordList.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(wordList))) {
+            for (String word : words) writer.println(word);
+        }
+        return wordList;
+    }
+
+    /**
+     * Splits a small word list into segments by first letter, in a temp directory deleted on exit.
+     * @return The segmented dictionary's directory.
+     * @throws IOException when the segments can't be written.
+     */
+    private static String tempSegments() throws IOException {
+        File wordList = tempWordList("a", "apple", "Apply", "banana", "band", "cat", "b-", "zebra");
+        File dir = new File(wordList.getPath() + ".segments");
+        // registered first, so it's deleted last, once it's empty.
+        dir.deleteOnExit();
+        assertEquals(4, SegmentedDictionary.writeSegments(wordList.getPath(), dir.getPath(), 1));
+        for (File file : dir.listFiles()) file.deleteOnExit();
+        return dir.getPath();
+    }
+
+    /**
+     * Reads the sibling order test's words, looks up its text with adaptive sibling order on, and reorders the siblings.
+     * @return The reordered trie.
+     * @throws IOException when the words can't be read.
+     */
+    private static Trie reorderedSiblingTree() throws IOException {
+        Trie tree = new FillTree().readIn(new LineWordReader(new StringReader(SIBLING_WORDS)));
+        tree.adaptiveSiblingOrder(true);
+        for (String word : SIBLING_TEXT) tree.findWord(word);
+        tree.reorderSiblings();
+        return tree;
+    }
 }